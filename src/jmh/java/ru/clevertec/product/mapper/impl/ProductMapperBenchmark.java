@@ -0,0 +1,98 @@
+package ru.clevertec.product.mapper.impl;
+
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.clevertec.product.data.InfoProductDto;
+import ru.clevertec.product.data.ProductDto;
+import ru.clevertec.product.entity.Product;
+import ru.clevertec.product.mapper.ProductMapper;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнивает {@link ProductMapperImpl} с реализацией, которую генерирует MapStruct.
+ * Запуск: {@code ./gradlew jmh -PjmhIncludes=ProductMapperBenchmark}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ProductMapperBenchmark {
+
+    private static final int LIST_SIZE = 1_000;
+
+    @Param({"handwritten", "mapstruct"})
+    private String mapper;
+
+    private ProductMapper productMapper;
+    private ProductDto productDto;
+    private ProductDto[] mergedDtos;
+    private Product product;
+    private List<Product> products;
+    private int merges;
+
+    @Setup
+    public void setUp() {
+        productMapper = "mapstruct".equals(mapper) ? Mappers.getMapper(ProductMapper.class) : new ProductMapperImpl();
+        productDto = new ProductDto("Молоко", "Пастеризованное 3,2%", new BigDecimal("89.90"));
+        mergedDtos = new ProductDto[]{productDto, new ProductDto("Молоко", "Пастеризованное 3,2%", new BigDecimal("99.90"))};
+        product = newProduct(0);
+        products = new ArrayList<>(LIST_SIZE);
+        for (int i = 0; i < LIST_SIZE; i++) {
+            products.add(newProduct(i));
+        }
+    }
+
+    @Benchmark
+    public Product toProduct() {
+        return productMapper.toProduct(productDto);
+    }
+
+    @Benchmark
+    public InfoProductDto toInfoProductDto() {
+        return productMapper.toInfoProductDto(product);
+    }
+
+    @Benchmark
+    public List<InfoProductDto> toInfoProductDtoList() {
+        return productMapper.toInfoProductDtoList(products);
+    }
+
+    /**
+     * Тот же DTO, что уже слит в продукт: все поля совпадают
+     */
+    @Benchmark
+    public Product mergeUnchanged() {
+        return productMapper.merge(product, productDto);
+    }
+
+    /**
+     * Стоимость меняется при каждом вызове, название и описание совпадают
+     */
+    @Benchmark
+    public Product mergeChangedPrice() {
+        return productMapper.merge(product, mergedDtos[merges++ & 1]);
+    }
+
+    private Product newProduct(int i) {
+        return new Product(new UUID(i, i), "Молоко", "Пастеризованное 3,2%", new BigDecimal("89.90"),
+                LocalDateTime.of(2023, 10, 15, 12, 34), 1);
+    }
+}
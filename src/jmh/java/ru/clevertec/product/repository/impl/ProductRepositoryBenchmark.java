@@ -0,0 +1,124 @@
+package ru.clevertec.product.repository.impl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.clevertec.product.data.PriceStatistics;
+import ru.clevertec.product.entity.Product;
+import ru.clevertec.product.utils.CatalogData;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Однопоточные операции {@link InMemoryProductRepository} на каталогах от 1 тыс. до 10 млн продуктов.
+ * Каталог заполняется один раз на форк, запись перезаписывает существующие продукты, поэтому размер не меняется.
+ * Запуск: {@code ./gradlew jmh -PjmhIncludes=ProductRepositoryBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+public class ProductRepositoryBenchmark {
+
+    private static final int PAGE_SIZE = 100;
+    private static final BigDecimal PRICE_FROM = new BigDecimal("100.00");
+    private static final BigDecimal PRICE_TO = new BigDecimal("101.00");
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    private int catalogSize;
+
+    private InMemoryProductRepository repository;
+    private UUID[] uuids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        repository = new InMemoryProductRepository();
+        uuids = CatalogData.fill(repository, catalogSize);
+    }
+
+    @Benchmark
+    public Optional<Product> findById(Cursor cursor) {
+        return repository.findById(uuids[cursor.next(catalogSize)]);
+    }
+
+    @Benchmark
+    public Optional<Product> findByIdMiss(Cursor cursor) {
+        return repository.findById(cursor.unknown());
+    }
+
+    @Benchmark
+    public List<Product> findAllById(Cursor cursor) {
+        int from = cursor.next(Math.max(1, catalogSize - PAGE_SIZE));
+        return repository.findAllById(Arrays.asList(uuids).subList(from, Math.min(catalogSize, from + PAGE_SIZE)));
+    }
+
+    @Benchmark
+    public List<Product> findPage(Cursor cursor) {
+        return repository.findPage(uuids[cursor.next(catalogSize)], PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Product> findByNamePrefix() {
+        return repository.findByNamePrefix("Продукт 12");
+    }
+
+    @Benchmark
+    public List<Product> search() {
+        return repository.search("продукт 123", PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Product> findByPriceBetween() {
+        return repository.findByPriceBetween(PRICE_FROM, PRICE_TO);
+    }
+
+    @Benchmark
+    public PriceStatistics priceStatistics() {
+        return repository.priceStatistics(PRICE_FROM, PRICE_TO);
+    }
+
+    @Benchmark
+    public List<Product> findNewest() {
+        return repository.findNewest(PAGE_SIZE);
+    }
+
+    @Benchmark
+    public Product save(Cursor cursor) {
+        int i = cursor.next(catalogSize);
+        return repository.save(CatalogData.product(uuids[i], i));
+    }
+
+    /**
+     * Случайные позиции каталога, свои у каждого потока
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        private final SplittableRandom random = new SplittableRandom();
+
+        public int next(int bound) {
+            return random.nextInt(bound);
+        }
+
+        public UUID unknown() {
+            return new UUID(random.nextLong(), random.nextLong());
+        }
+    }
+}
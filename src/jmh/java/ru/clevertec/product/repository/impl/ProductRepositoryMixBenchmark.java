@@ -0,0 +1,86 @@
+package ru.clevertec.product.repository.impl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.clevertec.product.entity.Product;
+import ru.clevertec.product.utils.CatalogData;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Чтение и запись {@link InMemoryProductRepository} из нескольких потоков одновременно.
+ * Доля операций задаётся числом потоков в группе: 19 читателей на 1 писателя (95/5) и 2 на 2 (50/50).
+ * JMH выдаёт пропускную способность каждой роли отдельно и группы в целом.
+ * Запуск: {@code ./gradlew jmh -PjmhIncludes=ProductRepositoryMixBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+public class ProductRepositoryMixBenchmark {
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    private int catalogSize;
+
+    private InMemoryProductRepository repository;
+    private UUID[] uuids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        repository = new InMemoryProductRepository();
+        uuids = CatalogData.fill(repository, catalogSize);
+    }
+
+    @Benchmark
+    @Group("readMostly")
+    @GroupThreads(19)
+    public Optional<Product> readMostlyRead(ProductRepositoryBenchmark.Cursor cursor) {
+        return read(cursor);
+    }
+
+    @Benchmark
+    @Group("readMostly")
+    @GroupThreads(1)
+    public Product readMostlyWrite(ProductRepositoryBenchmark.Cursor cursor) {
+        return write(cursor);
+    }
+
+    @Benchmark
+    @Group("balanced")
+    @GroupThreads(2)
+    public Optional<Product> balancedRead(ProductRepositoryBenchmark.Cursor cursor) {
+        return read(cursor);
+    }
+
+    @Benchmark
+    @Group("balanced")
+    @GroupThreads(2)
+    public Product balancedWrite(ProductRepositoryBenchmark.Cursor cursor) {
+        return write(cursor);
+    }
+
+    private Optional<Product> read(ProductRepositoryBenchmark.Cursor cursor) {
+        return repository.findById(uuids[cursor.next(catalogSize)]);
+    }
+
+    private Product write(ProductRepositoryBenchmark.Cursor cursor) {
+        int i = cursor.next(catalogSize);
+        return repository.save(CatalogData.product(uuids[i], i));
+    }
+}
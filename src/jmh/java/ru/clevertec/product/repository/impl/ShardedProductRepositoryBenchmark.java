@@ -0,0 +1,105 @@
+package ru.clevertec.product.repository.impl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.clevertec.product.data.PriceStatistics;
+import ru.clevertec.product.entity.Product;
+import ru.clevertec.product.repository.ProductRepository;
+import ru.clevertec.product.utils.CatalogData;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Запись из 1, 2, 4 и 8 потоков в одно {@link InMemoryProductRepository} и в {@link ShardedProductRepository}
+ * с частью на каждое ядро: проверяет, растёт ли пропускная способность записи в разделённое хранилище с числом
+ * потоков, пока их не больше ядер. Запросы по всем частям показывают цену рассылки и слияния.
+ * Результаты одноядерного замера - в README.
+ * Запуск: {@code ./gradlew jmh -PjmhIncludes=ShardedProductRepositoryBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+public class ShardedProductRepositoryBenchmark {
+
+    private static final int PAGE_SIZE = 100;
+    private static final BigDecimal PRICE_FROM = new BigDecimal("10.00");
+    private static final BigDecimal PRICE_TO = new BigDecimal("20.00");
+
+    @Param({"1000000"})
+    private int catalogSize;
+
+    @Param({"inMemory", "sharded"})
+    private String repositoryType;
+
+    private ProductRepository repository;
+    private UUID[] uuids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        repository = "sharded".equals(repositoryType)
+                ? new ShardedProductRepository()
+                : new InMemoryProductRepository();
+        uuids = CatalogData.fill(repository, catalogSize);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Product save1(ProductRepositoryBenchmark.Cursor cursor) {
+        return save(cursor);
+    }
+
+    @Benchmark
+    @Threads(2)
+    public Product save2(ProductRepositoryBenchmark.Cursor cursor) {
+        return save(cursor);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Product save4(ProductRepositoryBenchmark.Cursor cursor) {
+        return save(cursor);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Product save8(ProductRepositoryBenchmark.Cursor cursor) {
+        return save(cursor);
+    }
+
+    @Benchmark
+    public PriceStatistics priceStatistics() {
+        return repository.priceStatistics(PRICE_FROM, PRICE_TO);
+    }
+
+    @Benchmark
+    public List<Product> findNewest() {
+        return repository.findNewest(PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Product> findByNamePrefix() {
+        return repository.findByNamePrefix("Продукт 12");
+    }
+
+    private Product save(ProductRepositoryBenchmark.Cursor cursor) {
+        int i = cursor.next(catalogSize);
+        return repository.save(CatalogData.product(uuids[i], i));
+    }
+}
@@ -0,0 +1,25 @@
+package ru.clevertec.product.repository.storage;
+
+/**
+ * Замер занятой кучи для классов памяти хранилища
+ */
+final class Footprint {
+
+    private static final int GC_ROUNDS = 4;
+    private static final long GC_PAUSE_MILLIS = 100;
+
+    private Footprint() {
+    }
+
+    /**
+     * @return занятая куча после нескольких {@code System.gc()}
+     */
+    static long usedHeap() throws InterruptedException {
+        for (int i = 0; i < GC_ROUNDS; i++) {
+            System.gc();
+            Thread.sleep(GC_PAUSE_MILLIS);
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
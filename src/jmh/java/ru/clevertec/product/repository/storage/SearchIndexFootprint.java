@@ -0,0 +1,45 @@
+package ru.clevertec.product.repository.storage;
+
+import ru.clevertec.product.entity.Product;
+import ru.clevertec.product.utils.CatalogData;
+
+import java.lang.ref.Reference;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+/**
+ * Память {@link SearchIndex} на продукт: занятая куча после {@code System.gc()} до и после индексации каталога
+ * {@link CatalogData}. Записи создаются до первого замера, поэтому в разницу входит только сам индекс.
+ * Запуск: {@code ./gradlew footprint -PfootprintClass=SearchIndexFootprint -PfootprintArgs=1000000}
+ */
+public final class SearchIndexFootprint {
+
+    private static final long SEED = 42;
+
+    private SearchIndexFootprint() {
+    }
+
+    /**
+     * @param args количество продуктов, по умолчанию 1 000 000
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int size = args.length == 0 ? 1_000_000 : Integer.parseInt(args[0]);
+        SplittableRandom random = new SplittableRandom(SEED);
+        Map<UUID, ProductRecord> records = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            UUID uuid = new UUID(random.nextLong(), random.nextLong());
+            Product product = CatalogData.product(uuid, i);
+            records.put(uuid, ProductRecord.of(uuid, product.getName(), product.getDescription(), product.getPrice(),
+                    product.getCreated(), 0));
+        }
+        long before = Footprint.usedHeap();
+        SearchIndex index = new SearchIndex(records::get);
+        records.values().forEach(record -> index.update(null, record));
+        long after = Footprint.usedHeap();
+        System.out.printf("SearchIndex: %d products, %.1f MB, %.1f B/product%n",
+                size, (after - before) / 1e6, (double) (after - before) / size);
+        Reference.reachabilityFence(index);
+    }
+}
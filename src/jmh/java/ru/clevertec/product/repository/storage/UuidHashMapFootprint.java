@@ -0,0 +1,63 @@
+package ru.clevertec.product.repository.storage;
+
+import java.lang.ref.Reference;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Память таблицы на продукт для {@link HashMap}, {@link ConcurrentHashMap} и {@link UuidHashMap}: занятая куча
+ * после {@code System.gc()} до и после заполнения случайными ключами, одно общее значение на все записи.
+ * Ключи создаются до первого замера, поэтому в разницу входит только сама таблица.
+ * Каждую таблицу стоит мерить в отдельной JVM.
+ * Запуск: {@code ./gradlew footprint -PfootprintClass=UuidHashMapFootprint -PfootprintArgs=uuidHashMap,1000000}
+ */
+public final class UuidHashMapFootprint {
+
+    private static final long SEED = 42;
+
+    private UuidHashMapFootprint() {
+    }
+
+    /**
+     * @param args таблица ({@code hashMap}, {@code concurrentHashMap} или {@code uuidHashMap})
+     *             и количество записей
+     */
+    public static void main(String[] args) throws InterruptedException {
+        String type = args[0];
+        int size = Integer.parseInt(args[1]);
+        SplittableRandom random = new SplittableRandom(SEED);
+        UUID[] keys = new UUID[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = new UUID(random.nextLong(), random.nextLong());
+        }
+        Object value = new Object();
+        long before = Footprint.usedHeap();
+        Object table = switch (type) {
+            case "hashMap" -> fill(new HashMap<>(), keys, value);
+            case "concurrentHashMap" -> fill(new ConcurrentHashMap<>(), keys, value);
+            case "uuidHashMap" -> {
+                UuidHashMap<Object> map = new UuidHashMap<>();
+                for (UUID key : keys) {
+                    map.compute(key, current -> value);
+                }
+                yield map;
+            }
+            default -> throw new IllegalArgumentException("Unknown table: " + type);
+        };
+        long after = Footprint.usedHeap();
+        System.out.printf("%s: %d entries, %.1f MB, %.1f B/entry%n",
+                type, size, (after - before) / 1e6, (double) (after - before) / size);
+        Reference.reachabilityFence(table);
+        Reference.reachabilityFence(keys);
+    }
+
+    private static Map<UUID, Object> fill(Map<UUID, Object> map, UUID[] keys, Object value) {
+        for (UUID key : keys) {
+            map.put(key, value);
+        }
+        return map;
+    }
+}
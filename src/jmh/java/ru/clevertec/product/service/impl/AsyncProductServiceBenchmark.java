@@ -0,0 +1,99 @@
+package ru.clevertec.product.service.impl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.clevertec.product.generator.impl.TimeOrderedIdGenerator;
+import ru.clevertec.product.mapper.impl.ProductMapperImpl;
+import ru.clevertec.product.repository.impl.InMemoryProductRepository;
+import ru.clevertec.product.service.ProductService;
+import ru.clevertec.product.utils.CatalogData;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пачка одновременных {@code get} через {@link AsyncProductServiceImpl}, каждый вызов сервиса
+ * сначала спит {@code ioMillis}, как обработчик, ждущий сеть или диск.
+ * На 200 платформенных потоках пачка не может пройти быстрее {@code inFlight / 200 * ioMillis}, на виртуальных
+ * ожидание не занимает поток, и время пачки ограничено процессором. Результаты - в README.
+ * Запуск: {@code ./gradlew jmh -PjmhIncludes=AsyncProductServiceBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AsyncProductServiceBenchmark {
+
+    private static final int CATALOG_SIZE = 100_000;
+    private static final int PLATFORM_THREADS = 200;
+
+    @Param({"1000", "10000", "50000"})
+    private int inFlight;
+
+    @Param({"virtual", "platform"})
+    private String executor;
+
+    @Param({"1"})
+    private long ioMillis;
+
+    private AsyncProductServiceImpl asyncService;
+    private UUID[] uuids;
+    private final SplittableRandom random = new SplittableRandom();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        InMemoryProductRepository repository = new InMemoryProductRepository();
+        uuids = CatalogData.fill(repository, CATALOG_SIZE);
+        ProductService productService = withLatency(
+                new ProductServiceImpl(repository, new ProductMapperImpl(), new TimeOrderedIdGenerator()), ioMillis);
+        asyncService = new AsyncProductServiceImpl(productService, "platform".equals(executor)
+                ? AsyncProductServiceImpl.platformThreads(PLATFORM_THREADS, inFlight)
+                : AsyncProductServiceImpl.virtualThreads());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        asyncService.close();
+    }
+
+    /**
+     * Отправляет {@code inFlight} операций, не дожидаясь ответов, и ждёт, пока завершатся все
+     */
+    @Benchmark
+    public Void getInFlight() {
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[inFlight];
+        for (int i = 0; i < inFlight; i++) {
+            futures[i] = asyncService.get(uuids[random.nextInt(CATALOG_SIZE)]);
+        }
+        return CompletableFuture.allOf(futures).join();
+    }
+
+    private static ProductService withLatency(ProductService productService, long ioMillis) {
+        return (ProductService) Proxy.newProxyInstance(ProductService.class.getClassLoader(),
+                new Class<?>[]{ProductService.class}, (proxy, method, args) -> {
+                    Thread.sleep(ioMillis);
+                    try {
+                        return method.invoke(productService, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+}
@@ -0,0 +1,158 @@
+package ru.clevertec.product.service.impl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.clevertec.product.data.InfoProductDto;
+import ru.clevertec.product.data.ProductDto;
+import ru.clevertec.product.data.ProductQuery;
+import ru.clevertec.product.data.ProductQueryResult;
+import ru.clevertec.product.generator.impl.TimeOrderedIdGenerator;
+import ru.clevertec.product.mapper.impl.ProductMapperImpl;
+import ru.clevertec.product.repository.impl.InMemoryProductRepository;
+import ru.clevertec.product.service.ProductService;
+import ru.clevertec.product.utils.CatalogData;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ProductServiceImpl} поверх {@link InMemoryProductRepository} и {@link ProductMapperImpl}.
+ * {@link #getAll(Catalog)} создаёт DTO на весь каталог, поэтому каталоги ограничены миллионом продуктов.
+ * {@link #query(Catalog)} и {@link #queryByHand(Catalog)} отвечают на один отчёт: параллельным запросом сервиса
+ * и однопоточной обработкой результата {@link ProductService#getAll()}.
+ * Созданные продукты удаляются после каждой итерации, чтобы каталог не рос от замера к замеру.
+ * Запуск: {@code ./gradlew jmh -PjmhIncludes=ProductServiceBenchmark}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class ProductServiceBenchmark {
+
+    private static final String NAME = "продукт 12";
+    private static final BigDecimal PRICE_FROM = new BigDecimal("100.00");
+    private static final BigDecimal PRICE_TO = new BigDecimal("500.00");
+    private static final int REPORT_SIZE = 100;
+    private static final ProductQuery QUERY = ProductQuery.builder()
+            .nameContains(NAME)
+            .priceFrom(PRICE_FROM)
+            .priceTo(PRICE_TO)
+            .sortBy(ProductQuery.SortKey.PRICE)
+            .descending(true)
+            .limit(REPORT_SIZE)
+            .build();
+
+    @Benchmark
+    public InfoProductDto get(Catalog catalog, Client client) {
+        return catalog.productService.get(catalog.uuids[client.next(catalog.catalogSize)]);
+    }
+
+    @Benchmark
+    public UUID create(Catalog catalog, Client client) {
+        UUID uuid = catalog.productService.create(client.productDto());
+        client.created.add(uuid);
+        return uuid;
+    }
+
+    @Benchmark
+    public ProductDto update(Catalog catalog, Client client) {
+        ProductDto productDto = client.productDto();
+        catalog.productService.update(catalog.uuids[client.next(catalog.catalogSize)], productDto);
+        return productDto;
+    }
+
+    @Benchmark
+    public List<InfoProductDto> getAll(Catalog catalog) {
+        return catalog.productService.getAll();
+    }
+
+    @Benchmark
+    public ProductQueryResult query(Catalog catalog) {
+        return catalog.productService.query(QUERY);
+    }
+
+    @Benchmark
+    public List<Object> queryByHand(Catalog catalog) {
+        List<InfoProductDto> matching = catalog.productService.getAll().stream()
+                .filter(product -> product.name().toLowerCase().contains(NAME))
+                .filter(product -> product.price().compareTo(PRICE_FROM) >= 0 && product.price().compareTo(PRICE_TO) <= 0)
+                .toList();
+        BigDecimal sum = matching.stream()
+                .map(InfoProductDto::price)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        List<InfoProductDto> top = matching.stream()
+                .sorted(Comparator.comparing(InfoProductDto::price).reversed().thenComparing(InfoProductDto::uuid))
+                .limit(REPORT_SIZE)
+                .toList();
+        return List.of(top, matching.size(), sum);
+    }
+
+    /**
+     * Общий для всех потоков каталог
+     */
+    @State(Scope.Benchmark)
+    public static class Catalog {
+
+        @Param({"1000", "100000", "1000000"})
+        private int catalogSize;
+
+        private ProductService productService;
+        private UUID[] uuids;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            InMemoryProductRepository repository = new InMemoryProductRepository();
+            uuids = CatalogData.fill(repository, catalogSize);
+            productService = new ProductServiceImpl(repository, new ProductMapperImpl(), new TimeOrderedIdGenerator());
+        }
+    }
+
+    /**
+     * Состояние одного потока: случайные позиции каталога и продукты, созданные за итерацию
+     */
+    @State(Scope.Thread)
+    public static class Client {
+
+        private final SplittableRandom random = new SplittableRandom();
+        private final List<UUID> created = new ArrayList<>();
+        private final ProductDto[] productDtos = new ProductDto[CatalogData.NAMES];
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            for (int i = 0; i < productDtos.length; i++) {
+                productDtos[i] = CatalogData.productDto(i);
+            }
+        }
+
+        @TearDown(Level.Iteration)
+        public void deleteCreated(Catalog catalog) {
+            catalog.productService.deleteAll(created);
+            created.clear();
+        }
+
+        public int next(int bound) {
+            return random.nextInt(bound);
+        }
+
+        public ProductDto productDto() {
+            return productDtos[random.nextInt(productDtos.length)];
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package ru.clevertec.product.utils;
+
+import ru.clevertec.product.data.ProductDto;
+import ru.clevertec.product.entity.Product;
+import ru.clevertec.product.repository.ProductRepository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+/**
+ * Детерминированный каталог для бенчмарков: одинаковый размер даёт одинаковые продукты во всех запусках,
+ * поэтому результаты разных сборок можно сравнивать между собой
+ */
+public final class CatalogData {
+
+    /**
+     * Количество разных названий, префикс {@code "Продукт 12"} подходит примерно к 11 из них
+     */
+    public static final int NAMES = 1_000;
+
+    private static final int BATCH_SIZE = 10_000;
+    private static final long SEED = 42;
+    private static final LocalDateTime START = LocalDateTime.of(2023, 10, 1, 0, 0);
+
+    private CatalogData() {
+    }
+
+    /**
+     * Заполняет хранилище пачками
+     *
+     * @param repository пустое хранилище
+     * @param size       количество продуктов
+     * @return идентификаторы продуктов в порядке создания
+     */
+    public static UUID[] fill(ProductRepository repository, int size) {
+        UUID[] uuids = new UUID[size];
+        SplittableRandom random = new SplittableRandom(SEED);
+        List<Product> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < size; i++) {
+            uuids[i] = new UUID(random.nextLong(), random.nextLong());
+            batch.add(product(uuids[i], i));
+            if (batch.size() == BATCH_SIZE || i == size - 1) {
+                repository.saveAll(batch);
+                batch.clear();
+            }
+        }
+        return uuids;
+    }
+
+    /**
+     * @param uuid идентификатор
+     * @param i    номер продукта, от него зависят остальные поля
+     * @return новый продукт
+     */
+    public static Product product(UUID uuid, int i) {
+        return new Product(uuid, "Продукт " + i % NAMES, "Описание продукта " + i % NAMES,
+                BigDecimal.valueOf(i % 100_000 + 1, 2), START.plusSeconds(i), 0);
+    }
+
+    /**
+     * @param i номер продукта
+     * @return DTO с теми же полями, что у {@link #product(UUID, int)}
+     */
+    public static ProductDto productDto(int i) {
+        return new ProductDto("Продукт " + i % NAMES, "Описание продукта " + i % NAMES, BigDecimal.valueOf(i % 100_000 + 1, 2));
+    }
+}
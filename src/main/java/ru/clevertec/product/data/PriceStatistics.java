@@ -0,0 +1,31 @@
+package ru.clevertec.product.data;
+
+import java.math.BigDecimal;
+
+public record PriceStatistics(
+
+        /**
+         * Количество продуктов со стоимостью, продукты без стоимости не учитываются
+         */
+        long count,
+
+        /**
+         * Наименьшая стоимость, null если продуктов нет
+         */
+        BigDecimal min,
+
+        /**
+         * Наибольшая стоимость, null если продуктов нет
+         */
+        BigDecimal max,
+
+        /**
+         * Точная сумма стоимостей с наибольшим масштабом из слагаемых, ноль если продуктов нет
+         */
+        BigDecimal sum,
+
+        /**
+         * Средняя стоимость с точностью {@link java.math.MathContext#DECIMAL128}, null если продуктов нет
+         */
+        BigDecimal average) {
+}
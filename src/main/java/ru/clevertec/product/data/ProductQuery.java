@@ -0,0 +1,71 @@
+package ru.clevertec.product.data;
+
+import lombok.Builder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Builder
+public record ProductQuery(
+
+        /**
+         * Подстрока названия без учёта регистра, null если не ограничено
+         */
+        String nameContains,
+
+        /**
+         * Подстрока описания без учёта регистра, null если не ограничено
+         */
+        String descriptionContains,
+
+        /**
+         * Нижняя граница стоимости включительно, null если не ограничена.
+         * Продукты без стоимости не подходят, если задана любая граница стоимости
+         */
+        BigDecimal priceFrom,
+
+        /**
+         * Верхняя граница стоимости включительно, null если не ограничена
+         */
+        BigDecimal priceTo,
+
+        /**
+         * Нижняя граница времени создания включительно, null если не ограничена.
+         * Продукты без времени создания не подходят, если задана любая граница времени
+         */
+        LocalDateTime createdFrom,
+
+        /**
+         * Верхняя граница времени создания включительно, null если не ограничена
+         */
+        LocalDateTime createdTo,
+
+        /**
+         * Поле сортировки, null - по идентификатору. Продукты без значения поля идут последними,
+         * при равных значениях - по возрастанию идентификатора
+         */
+        SortKey sortBy,
+
+        /**
+         * Сортировка по убыванию поля
+         */
+        boolean descending,
+
+        /**
+         * Максимальное количество продуктов в ответе, должно быть положительным
+         */
+        int limit) {
+
+    public ProductQuery {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        if (sortBy == null) {
+            sortBy = SortKey.ID;
+        }
+    }
+
+    public enum SortKey {
+        ID, NAME, PRICE, CREATED
+    }
+}
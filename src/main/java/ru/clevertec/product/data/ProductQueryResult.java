@@ -0,0 +1,21 @@
+package ru.clevertec.product.data;
+
+import java.util.List;
+
+public record ProductQueryResult(
+
+        /**
+         * Не больше limit подходящих продуктов в порядке сортировки запроса
+         */
+        List<InfoProductDto> products,
+
+        /**
+         * Количество всех подходящих продуктов, а не только попавших в ответ
+         */
+        long count,
+
+        /**
+         * Статистика стоимостей всех подходящих продуктов
+         */
+        PriceStatistics priceStatistics) {
+}
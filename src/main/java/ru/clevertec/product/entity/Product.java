@@ -3,6 +3,7 @@ package ru.clevertec.product.entity;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import lombok.experimental.FieldNameConstants;
 
@@ -41,4 +42,11 @@ public class Product {
      * Время создания, не может быть null(задаётся до сохранения и не обновляется)
      */
     private LocalDateTime created;
+
+    /**
+     * Версия продукта для оптимистичной блокировки (задаётся хранилищем при каждом сохранении,
+     * 0 - продукт ещё не сохранён), не участвует в сравнении продуктов
+     */
+    @EqualsAndHashCode.Exclude
+    private long version;
 }
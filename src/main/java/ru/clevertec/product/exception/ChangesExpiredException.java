@@ -0,0 +1,27 @@
+package ru.clevertec.product.exception;
+
+public class ChangesExpiredException extends RuntimeException {
+
+    private final long sequence;
+    private final long firstAvailable;
+
+    /**
+     * Изменения с запрошенного номера уже вытеснены из буфера, читателю нужно заново прочитать каталог
+     *
+     * @param sequence       запрошенный номер изменения
+     * @param firstAvailable самый старый номер, который ещё можно прочитать
+     */
+    public ChangesExpiredException(long sequence, long firstAvailable) {
+        super("Changes from sequence " + sequence + " are overwritten, first available is " + firstAvailable);
+        this.sequence = sequence;
+        this.firstAvailable = firstAvailable;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public long getFirstAvailable() {
+        return firstAvailable;
+    }
+}
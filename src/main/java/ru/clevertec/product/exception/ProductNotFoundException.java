@@ -4,11 +4,40 @@ import java.util.UUID;
 
 public class ProductNotFoundException extends RuntimeException {
 
+    /**
+     * Включает исключения без стека для всех промахов, например -Dru.clevertec.product.stacklessNotFound=true.
+     * Заполнение стека - самая дорогая часть промаха, а на пути ненайденного продукта стек не нужен
+     */
+    private static final boolean STACKLESS = Boolean.getBoolean("ru.clevertec.product.stacklessNotFound");
+
+    private final UUID uuid;
+
     /**
      * Сообщение должно быть именно такого формата
      * @param uuid - идентификатор продукта
      */
     public ProductNotFoundException(UUID uuid) {
-        super(String.format("Product with uuid: %s not found", uuid));
+        this(uuid, !STACKLESS);
+    }
+
+    /**
+     * @param uuid               - идентификатор продукта
+     * @param writableStackTrace - заполнять ли стек исключения
+     */
+    public ProductNotFoundException(UUID uuid, boolean writableStackTrace) {
+        super(null, null, writableStackTrace, writableStackTrace);
+        this.uuid = uuid;
+    }
+
+    public UUID getUuid() {
+        return uuid;
+    }
+
+    /**
+     * Сообщение собирается только при обращении к нему
+     */
+    @Override
+    public String getMessage() {
+        return "Product with uuid: " + uuid + " not found";
     }
 }
@@ -0,0 +1,13 @@
+package ru.clevertec.product.generator;
+
+import java.util.UUID;
+
+public interface IdGenerator {
+
+    /**
+     * Генерирует новый идентификатор продукта
+     *
+     * @return уникальный идентификатор, не может быть null
+     */
+    UUID generate();
+}
@@ -0,0 +1,17 @@
+package ru.clevertec.product.generator.impl;
+
+import ru.clevertec.product.generator.IdGenerator;
+
+import java.util.UUID;
+
+/**
+ * Случайные идентификаторы версии 4 через {@link UUID#randomUUID()},
+ * использует общий {@link java.security.SecureRandom}
+ */
+public class RandomIdGenerator implements IdGenerator {
+
+    @Override
+    public UUID generate() {
+        return UUID.randomUUID();
+    }
+}
@@ -0,0 +1,70 @@
+package ru.clevertec.product.generator.impl;
+
+import ru.clevertec.product.generator.IdGenerator;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongSupplier;
+
+/**
+ * Идентификаторы версии 7 (RFC 9562): 48 бит миллисекунд Unix-времени, 12 бит счётчика и 62 случайных бита.
+ * <p>
+ * Генератор не блокирует потоки: счётчик свой у каждого потока, случайные биты берутся из
+ * {@link ThreadLocalRandom}. Идентификаторы одного потока строго возрастают даже при переводе часов назад,
+ * идентификаторы разных потоков упорядочены по миллисекунде создания
+ */
+public class TimeOrderedIdGenerator implements IdGenerator {
+
+    private static final int MAX_SEQUENCE = 0xFFF;
+    private static final long VERSION = 0x7000L;
+    private static final long VARIANT = 0x8000_0000_0000_0000L;
+    private static final long RANDOM_MASK = 0x3FFF_FFFF_FFFF_FFFFL;
+
+    private final LongSupplier currentMillis;
+    private final ThreadLocal<State> state = ThreadLocal.withInitial(State::new);
+
+    public TimeOrderedIdGenerator() {
+        this(System::currentTimeMillis);
+    }
+
+    /**
+     * @param currentMillis источник текущего времени в миллисекундах Unix-времени
+     */
+    public TimeOrderedIdGenerator(LongSupplier currentMillis) {
+        this.currentMillis = currentMillis;
+    }
+
+    @Override
+    public UUID generate() {
+        State current = state.get();
+        long millis = currentMillis.getAsLong();
+        if (millis > current.millis) {
+            current.millis = millis;
+            current.sequence = 0;
+        } else if (current.sequence < MAX_SEQUENCE) {
+            current.sequence++;
+        } else {
+            current.millis++;
+            current.sequence = 0;
+        }
+        long mostSigBits = current.millis << 16 | VERSION | current.sequence;
+        long leastSigBits = VARIANT | ThreadLocalRandom.current().nextLong() & RANDOM_MASK;
+        return new UUID(mostSigBits, leastSigBits);
+    }
+
+    /**
+     * Извлекает время создания из идентификатора версии 7
+     *
+     * @param uuid идентификатор версии 7
+     * @return миллисекунды Unix-времени
+     */
+    public static long timestampOf(UUID uuid) {
+        return uuid.getMostSignificantBits() >>> 16;
+    }
+
+    private static final class State {
+
+        private long millis = Long.MIN_VALUE;
+        private int sequence;
+    }
+}
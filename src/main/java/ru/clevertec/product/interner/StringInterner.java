@@ -0,0 +1,22 @@
+package ru.clevertec.product.interner;
+
+@FunctionalInterface
+public interface StringInterner {
+
+    /**
+     * Возвращает единственный экземпляр строки с таким содержимым
+     *
+     * @param value строка
+     * @return строка, равная value, общая для всех равных строк, null если value null
+     */
+    String intern(String value);
+
+    /**
+     * Интернер, который возвращает строку как есть
+     *
+     * @return интернер без словаря
+     */
+    static StringInterner none() {
+        return value -> value;
+    }
+}
@@ -0,0 +1,116 @@
+package ru.clevertec.product.interner.impl;
+
+import ru.clevertec.product.interner.StringInterner;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Словарь строк на {@link ConcurrentHashMap} со слабыми ссылками.
+ * <p>
+ * Названия и описания каталога сильно повторяются, поэтому каждое различное значение хранится один раз,
+ * а продукты ссылаются на общий экземпляр. Строка, на которую больше никто не ссылается, собирается сборщиком мусора,
+ * её запись удаляется из словаря при следующих вызовах {@link #intern(String)}.
+ * В отличие от {@link String#intern()} словарь живёт в обычной куче и не зависит от размера таблицы строк JVM
+ */
+public class WeakStringInterner implements StringInterner {
+
+    private final ConcurrentMap<Object, WeakKey> pool = new ConcurrentHashMap<>();
+    private final ReferenceQueue<String> collected = new ReferenceQueue<>();
+
+    @Override
+    public String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        expungeCollected();
+        WeakKey existing = pool.get(new LookupKey(value));
+        String canonical = existing == null ? null : existing.get();
+        if (canonical != null) {
+            return canonical;
+        }
+        WeakKey created = new WeakKey(value, collected);
+        while (true) {
+            existing = pool.putIfAbsent(created, created);
+            if (existing == null) {
+                return value;
+            }
+            canonical = existing.get();
+            if (canonical != null) {
+                return canonical;
+            }
+            pool.remove(existing, existing);
+        }
+    }
+
+    /**
+     * @return количество различных строк в словаре, включая ещё не удалённые собранные
+     */
+    public int size() {
+        expungeCollected();
+        return pool.size();
+    }
+
+    private void expungeCollected() {
+        Reference<? extends String> reference;
+        while ((reference = collected.poll()) != null) {
+            pool.remove(reference, reference);
+        }
+    }
+
+    /**
+     * Ключ словаря. Собранный ключ равен только самому себе, поэтому он не мешает вставить строку заново
+     */
+    private static final class WeakKey extends WeakReference<String> {
+
+        private final int hash;
+
+        private WeakKey(String value, ReferenceQueue<String> queue) {
+            super(value, queue);
+            this.hash = value.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            String value = get();
+            return value != null && value.equals(contentOf(other));
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * Ключ поиска без слабой ссылки, чтобы попадание в словарь не создавало объектов для сборщика
+     */
+    private record LookupKey(String value) {
+
+        @Override
+        public boolean equals(Object other) {
+            return value.equals(contentOf(other));
+        }
+
+        @Override
+        public int hashCode() {
+            return value.hashCode();
+        }
+    }
+
+    private static String contentOf(Object key) {
+        if (key instanceof WeakKey weakKey) {
+            return weakKey.get();
+        }
+        if (key instanceof LookupKey lookupKey) {
+            return lookupKey.value();
+        }
+        return null;
+    }
+}
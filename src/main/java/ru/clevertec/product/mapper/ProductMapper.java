@@ -6,6 +6,8 @@ import ru.clevertec.product.data.InfoProductDto;
 import ru.clevertec.product.data.ProductDto;
 import ru.clevertec.product.entity.Product;
 
+import java.util.List;
+
 @Mapper
 public interface ProductMapper {
 
@@ -25,6 +27,14 @@ public interface ProductMapper {
      */
     InfoProductDto toInfoProductDto(Product product);
 
+    /**
+     * Маппит список продуктов в DTO
+     *
+     * @param products - существующие продукты
+     * @return DTO в порядке продуктов
+     */
+    List<InfoProductDto> toInfoProductDtoList(List<Product> products);
+
     /**
      * Сливает существующий продукт с информацией из DTO
      * не меняет дату создания и идентификатор
@@ -0,0 +1,50 @@
+package ru.clevertec.product.mapper.impl;
+
+import lombok.RequiredArgsConstructor;
+import ru.clevertec.product.data.InfoProductDto;
+import ru.clevertec.product.data.ProductDto;
+import ru.clevertec.product.entity.Product;
+import ru.clevertec.product.interner.StringInterner;
+import ru.clevertec.product.mapper.ProductMapper;
+
+import java.util.List;
+
+/**
+ * Заменяет название и описание продукта, пришедшие из DTO, общими экземплярами из {@link StringInterner}.
+ * DTO ответа строятся из продукта и уже ссылаются на его строки, поэтому {@link #toInfoProductDto}
+ * и {@link #toInfoProductDtoList} ничего не меняют
+ */
+@RequiredArgsConstructor
+public class InterningProductMapper implements ProductMapper {
+
+    private final ProductMapper delegate;
+    private final StringInterner interner;
+
+    @Override
+    public Product toProduct(ProductDto productDto) {
+        return intern(delegate.toProduct(productDto));
+    }
+
+    @Override
+    public InfoProductDto toInfoProductDto(Product product) {
+        return delegate.toInfoProductDto(product);
+    }
+
+    @Override
+    public List<InfoProductDto> toInfoProductDtoList(List<Product> products) {
+        return delegate.toInfoProductDtoList(products);
+    }
+
+    @Override
+    public Product merge(Product product, ProductDto productDto) {
+        return intern(delegate.merge(product, productDto));
+    }
+
+    private Product intern(Product product) {
+        if (product != null) {
+            product.setName(interner.intern(product.getName()));
+            product.setDescription(interner.intern(product.getDescription()));
+        }
+        return product;
+    }
+}
@@ -5,20 +5,71 @@ import ru.clevertec.product.data.ProductDto;
 import ru.clevertec.product.entity.Product;
 import ru.clevertec.product.mapper.ProductMapper;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * Маппер без рефлексии и промежуточных объектов: продукт создаётся одним конструктором,
+ * а список DTO сразу выделяется нужного размера.
+ * <p>
+ * {@link #merge} записывает название и описание, только если они изменились, поэтому неизменённые строки продукта
+ * остаются теми же экземплярами (например, интернированными). Стоимость записывается без сравнения,
+ * а идентификатор, время создания и версия не трогаются
+ */
 public class ProductMapperImpl implements ProductMapper {
 
     @Override
     public Product toProduct(ProductDto productDto) {
-        return null;
+        if (productDto == null) {
+            return null;
+        }
+        return new Product(null, productDto.name(), productDto.description(), productDto.price(), null, 0);
     }
 
     @Override
     public InfoProductDto toInfoProductDto(Product product) {
-        return null;
+        if (product == null) {
+            return null;
+        }
+        return new InfoProductDto(product.getUuid(), product.getName(), product.getDescription(), product.getPrice());
+    }
+
+    /**
+     * Обходит список индексом, если он поддерживает быстрый доступ, чтобы не создавать итератор
+     */
+    @Override
+    public List<InfoProductDto> toInfoProductDtoList(List<Product> products) {
+        if (products == null) {
+            return null;
+        }
+        int size = products.size();
+        List<InfoProductDto> infoProductDtos = new ArrayList<>(size);
+        if (products instanceof RandomAccess) {
+            for (int i = 0; i < size; i++) {
+                infoProductDtos.add(toInfoProductDto(products.get(i)));
+            }
+        } else {
+            for (Product product : products) {
+                infoProductDtos.add(toInfoProductDto(product));
+            }
+        }
+        return infoProductDtos;
     }
 
     @Override
     public Product merge(Product product, ProductDto productDto) {
-        return null;
+        if (productDto == null) {
+            return product;
+        }
+        if (!Objects.equals(product.getName(), productDto.name())) {
+            product.setName(productDto.name());
+        }
+        if (!Objects.equals(product.getDescription(), productDto.description())) {
+            product.setDescription(productDto.description());
+        }
+        product.setPrice(productDto.price());
+        return product;
     }
 }
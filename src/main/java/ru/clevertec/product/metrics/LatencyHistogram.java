@@ -0,0 +1,127 @@
+package ru.clevertec.product.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Гистограмма задержек в наносекундах с лог-линейными корзинами, как в HdrHistogram.
+ * <p>
+ * Значения до 64 нс хранятся точно, дальше каждая степень двойки делится на 32 равные корзины,
+ * поэтому относительная погрешность перцентилей не больше 1/32 на всём диапазоне {@code long}.
+ * Запись - один инкремент в {@link AtomicLongArray} без блокировок и выделения памяти.
+ * Снимок не согласован с параллельной записью: значения, записанные во время снимка,
+ * могут попасть в счётчик, но не в корзину, или наоборот
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (Long.SIZE - 2 - SUB_BUCKET_BITS) * SUB_BUCKETS + 2 * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * @param nanos длительность операции, отрицательная считается нулевой
+     */
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0);
+        counts.incrementAndGet(index(value));
+        total.add(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * @return количество записанных значений
+     */
+    public long count() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * Снимок перцентилей по текущему содержимому корзин
+     *
+     * @param percentiles перцентили от 0 до 100 в порядке возрастания
+     * @return верхние границы корзин, в которые попадают перцентили, не больше максимума;
+     * нули, если значений нет
+     */
+    public long[] percentiles(double... percentiles) {
+        long[] snapshot = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            count += snapshot[i];
+        }
+        long[] values = new long[percentiles.length];
+        if (count == 0) {
+            return values;
+        }
+        long highest = max.get();
+        long seen = 0;
+        int bucket = -1;
+        for (int p = 0; p < percentiles.length; p++) {
+            long rank = Math.max(1, (long) Math.ceil(percentiles[p] / 100 * count));
+            while (seen < rank && bucket < BUCKETS - 1) {
+                seen += snapshot[++bucket];
+            }
+            values[p] = Math.min(highestEquivalent(bucket), highest);
+        }
+        return values;
+    }
+
+    /**
+     * @return среднее значение, 0 если значений нет
+     */
+    public double mean() {
+        long count = count();
+        return count == 0 ? 0 : (double) total.sum() / count;
+    }
+
+    /**
+     * @return наибольшее записанное значение, 0 если значений нет
+     */
+    public long max() {
+        return max.get();
+    }
+
+    /**
+     * Обнуляет гистограмму, значения, записанные во время сброса, могут сохраниться частично
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        total.reset();
+        max.reset();
+    }
+
+    /**
+     * Значения меньше {@code 2 * SUB_BUCKETS} лежат в корзине со своим номером, остальные -
+     * в корзине по старшим {@code SUB_BUCKET_BITS + 1} битам внутри своей степени двойки
+     */
+    static int index(long value) {
+        if (value < 2 * SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return shift * SUB_BUCKETS + (int) (value >>> shift);
+    }
+
+    /**
+     * @return наибольшее значение, попадающее в корзину
+     */
+    static long highestEquivalent(int index) {
+        if (index < 2 * SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long mantissa = index % SUB_BUCKETS + SUB_BUCKETS;
+        return ((mantissa + 1) << shift) - 1;
+    }
+}
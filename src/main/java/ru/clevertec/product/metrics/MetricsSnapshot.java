@@ -0,0 +1,21 @@
+package ru.clevertec.product.metrics;
+
+import java.util.Map;
+
+public record MetricsSnapshot(
+
+        /**
+         * Собираются ли метрики в момент снимка
+         */
+        boolean enabled,
+
+        /**
+         * Текущие значения показателей, например размера хранилища, по имени
+         */
+        Map<String, Long> gauges,
+
+        /**
+         * Метрики операций по имени в порядке возрастания имён
+         */
+        Map<String, OperationSnapshot> operations) {
+}
@@ -0,0 +1,53 @@
+package ru.clevertec.product.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Задержки и счётчики одной операции. Вызов считается по гистограмме задержек,
+ * поэтому в неё попадают и вызовы, закончившиеся исключением
+ */
+public class OperationMetrics {
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder notFound = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    /**
+     * @param nanos длительность вызова
+     */
+    public void record(long nanos) {
+        latency.record(nanos);
+    }
+
+    /**
+     * Отмечает вызов, который не нашёл продукт
+     */
+    public void notFound() {
+        notFound.increment();
+    }
+
+    /**
+     * Отмечает вызов, закончившийся исключением
+     */
+    public void error() {
+        errors.increment();
+    }
+
+    /**
+     * @return текущие значения счётчиков и перцентили задержек
+     */
+    public OperationSnapshot snapshot() {
+        long[] percentiles = latency.percentiles(50, 90, 99, 99.9);
+        return new OperationSnapshot(latency.count(), notFound.sum(), errors.sum(), latency.mean(),
+                percentiles[0], percentiles[1], percentiles[2], percentiles[3], latency.max());
+    }
+
+    /**
+     * Обнуляет задержки и счётчики
+     */
+    public void reset() {
+        latency.reset();
+        notFound.reset();
+        errors.reset();
+    }
+}
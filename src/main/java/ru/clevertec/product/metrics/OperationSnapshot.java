@@ -0,0 +1,49 @@
+package ru.clevertec.product.metrics;
+
+public record OperationSnapshot(
+
+        /**
+         * Количество вызовов, включая закончившиеся исключением
+         */
+        long calls,
+
+        /**
+         * Количество вызовов, не нашедших продукт
+         */
+        long notFound,
+
+        /**
+         * Количество вызовов, закончившихся исключением
+         */
+        long errors,
+
+        /**
+         * Средняя задержка в наносекундах, 0 если вызовов нет
+         */
+        double meanNanos,
+
+        /**
+         * Медиана задержки в наносекундах
+         */
+        long p50Nanos,
+
+        /**
+         * 90-й перцентиль задержки в наносекундах
+         */
+        long p90Nanos,
+
+        /**
+         * 99-й перцентиль задержки в наносекундах
+         */
+        long p99Nanos,
+
+        /**
+         * 99,9-й перцентиль задержки в наносекундах
+         */
+        long p999Nanos,
+
+        /**
+         * Наибольшая задержка в наносекундах
+         */
+        long maxNanos) {
+}
@@ -0,0 +1,137 @@
+package ru.clevertec.product.metrics;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Реестр метрик операций и показателей, общий для инструментированных сервиса и хранилища.
+ * <p>
+ * Декораторы получают {@link OperationMetrics} один раз при создании, поэтому на горячем пути
+ * нет поиска по имени. Выключенные метрики стоят одного чтения volatile-флага на вызов:
+ * декоратор сразу вызывает нижележащую реализацию, не читая часы
+ */
+public class ProductMetrics implements ProductMetricsMXBean {
+
+    /**
+     * Имя, под которым {@link #registerMBean()} регистрирует метрики
+     */
+    public static final String OBJECT_NAME = "ru.clevertec.product:type=ProductMetrics";
+
+    private final ConcurrentMap<String, OperationMetrics> operations = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+    private volatile boolean enabled;
+
+    public ProductMetrics() {
+        this(true);
+    }
+
+    /**
+     * @param enabled собирать ли метрики сразу после создания
+     */
+    public ProductMetrics(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * @param name имя операции, например {@code service.get}
+     * @return метрики операции, созданные при первом обращении
+     */
+    public OperationMetrics operation(String name) {
+        return operations.computeIfAbsent(name, key -> new OperationMetrics());
+    }
+
+    /**
+     * Регистрирует показатель, который вычисляется при каждом снимке, повторная регистрация заменяет его
+     *
+     * @param name  имя показателя, например {@code repository.size}
+     * @param value источник значения
+     */
+    public void gauge(String name, LongSupplier value) {
+        gauges.put(name, value);
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public Map<String, Long> getGauges() {
+        Map<String, Long> values = new TreeMap<>();
+        gauges.forEach((name, value) -> values.put(name, value.getAsLong()));
+        return Collections.unmodifiableMap(values);
+    }
+
+    @Override
+    public Map<String, OperationSnapshot> getOperations() {
+        Map<String, OperationSnapshot> snapshots = new TreeMap<>();
+        operations.forEach((name, operation) -> snapshots.put(name, operation.snapshot()));
+        return Collections.unmodifiableMap(snapshots);
+    }
+
+    @Override
+    public void reset() {
+        operations.values().forEach(OperationMetrics::reset);
+    }
+
+    /**
+     * @return снимок всех метрик
+     */
+    public MetricsSnapshot snapshot() {
+        return new MetricsSnapshot(enabled, getGauges(), getOperations());
+    }
+
+    /**
+     * Регистрирует метрики в платформенном MBean-сервере под именем {@link #OBJECT_NAME}
+     *
+     * @return имя зарегистрированного бина
+     * @throws IllegalStateException если бин с таким именем уже зарегистрирован
+     */
+    public ObjectName registerMBean() {
+        return registerMBean(OBJECT_NAME);
+    }
+
+    /**
+     * Регистрирует метрики в платформенном MBean-сервере
+     *
+     * @param name имя бина, например {@code ru.clevertec.product:type=ProductMetrics,name=catalog}
+     * @return имя зарегистрированного бина
+     * @throws IllegalStateException если имя некорректно или бин с таким именем уже зарегистрирован
+     */
+    public ObjectName registerMBean(String name) {
+        try {
+            ObjectName objectName = new ObjectName(name);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+            return objectName;
+        } catch (JMException e) {
+            throw new IllegalStateException("Metrics MBean can not be registered: " + name, e);
+        }
+    }
+
+    /**
+     * Снимает регистрацию бина, если он зарегистрирован
+     *
+     * @param name имя, которое вернул {@link #registerMBean(String)}
+     */
+    public void unregisterMBean(ObjectName name) {
+        try {
+            if (ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("Metrics MBean can not be unregistered: " + name, e);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package ru.clevertec.product.metrics;
+
+import java.util.Map;
+
+/**
+ * Метрики сервиса и хранилища продуктов, доступные через JMX
+ */
+public interface ProductMetricsMXBean {
+
+    /**
+     * @return true, если метрики собираются
+     */
+    boolean isEnabled();
+
+    /**
+     * Включает или выключает сбор метрик, уже собранные значения сохраняются
+     *
+     * @param enabled true, чтобы собирать метрики
+     */
+    void setEnabled(boolean enabled);
+
+    /**
+     * @return текущие значения показателей по имени
+     */
+    Map<String, Long> getGauges();
+
+    /**
+     * @return метрики операций по имени
+     */
+    Map<String, OperationSnapshot> getOperations();
+
+    /**
+     * Обнуляет метрики всех операций
+     */
+    void reset();
+}
@@ -1,10 +1,15 @@
 package ru.clevertec.product.repository;
 
+import ru.clevertec.product.data.PriceStatistics;
 import ru.clevertec.product.entity.Product;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 public interface ProductRepository {
 
@@ -16,6 +21,14 @@ public interface ProductRepository {
      */
     Optional<Product> findById(UUID uuid);
 
+    /**
+     * Ищет в памяти продукты по идентификаторам за один проход
+     *
+     * @param uuids идентификаторы продуктов
+     * @return найденные продукты в порядке переданных идентификаторов, ненайденные пропускаются
+     */
+    List<Product> findAllById(Collection<UUID> uuids);
+
     /**
      * Ищет все продукты в памяти
      *
@@ -23,19 +36,128 @@ public interface ProductRepository {
      */
     List<Product> findAll();
 
+    /**
+     * Ищет страницу продуктов в порядке возрастания идентификаторов,
+     * начиная сразу после переданного идентификатора
+     *
+     * @param after идентификатор последнего продукта предыдущей страницы, null для первой страницы
+     * @param limit максимальный размер страницы
+     * @return продукты страницы, пустой список если продуктов дальше нет
+     * @throws IllegalArgumentException если limit не положительный
+     */
+    List<Product> findPage(UUID after, int limit);
+
+    /**
+     * Ищет продукты, название которых начинается с префикса (с учётом регистра)
+     *
+     * @param prefix префикс названия, пустая строка подходит ко всем продуктам
+     * @return продукты в порядке возрастания названия, пустой список если prefix null
+     */
+    List<Product> findByNamePrefix(String prefix);
+
+    /**
+     * Ищет продукты по словам в названии и описании без учёта регистра, буквы ё и е не различаются.
+     * Слово из трёх и больше символов ищется как подстрока, более короткое - как начало слова
+     *
+     * @param query слова запроса, null считается пустым запросом
+     * @param limit максимальное количество продуктов
+     * @return продукты, содержащие все слова запроса, от наиболее подходящих к наименее,
+     * пустой список если в запросе нет слов
+     * @throws IllegalArgumentException если limit не положительный
+     */
+    List<Product> search(String query, int limit);
+
+    /**
+     * Ищет продукты со стоимостью в диапазоне включительно
+     *
+     * @param from нижняя граница стоимости, null если не ограничена
+     * @param to   верхняя граница стоимости, null если не ограничена
+     * @return продукты в порядке возрастания стоимости
+     */
+    List<Product> findByPriceBetween(BigDecimal from, BigDecimal to);
+
+    /**
+     * Считает минимум, максимум, сумму и среднее стоимостей в диапазоне включительно,
+     * не создавая продуктов. Продукты без стоимости не учитываются
+     *
+     * @param from нижняя граница стоимости, null если не ограничена
+     * @param to   верхняя граница стоимости, null если не ограничена, обе null - весь каталог
+     * @return статистика стоимостей
+     */
+    PriceStatistics priceStatistics(BigDecimal from, BigDecimal to);
+
+    /**
+     * Ищет продукты, созданные в промежутке времени включительно
+     *
+     * @param from начало промежутка, null если не ограничено
+     * @param to   конец промежутка, null если не ограничен
+     * @return продукты в порядке создания
+     */
+    List<Product> findCreatedBetween(LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Ищет последние созданные продукты
+     *
+     * @param limit максимальное количество продуктов
+     * @return продукты от новых к старым
+     * @throws IllegalArgumentException если limit не положительный
+     */
+    List<Product> findNewest(int limit);
+
+    /**
+     * Ленивый поток всех продуктов в памяти, продукты создаются по мере чтения потока
+     *
+     * @return поток продуктов
+     */
+    Stream<Product> streamAll();
+
+    /**
+     * Количество продуктов в памяти
+     *
+     * @return количество продуктов
+     */
+    long count();
+
     /**
      * Сохраняет или обновляет продукт в памяти
      *
      * @param product сохраняемый продукт
      * @return сохранённый продукт
-     * @throws IllegalArgumentException если переданный продукт null
+     * @throws IllegalArgumentException если переданный продукт null или его стоимость не помещается в 64-битное
+     *                                  немасштабированное значение
      */
     Product save(Product product);
 
+    /**
+     * Сохраняет или обновляет пачку продуктов в памяти
+     *
+     * @param products сохраняемые продукты
+     * @return сохранённые продукты в порядке передачи
+     * @throws IllegalArgumentException если один из переданных продуктов null
+     */
+    List<Product> saveAll(Collection<Product> products);
+
+    /**
+     * Сохраняет продукт, только если его версия совпадает с версией в памяти
+     * (версия 0 означает, что продукта в памяти ещё нет)
+     *
+     * @param product сохраняемый продукт с версией, на основе которой он был изменён
+     * @return Optional<Product> с новой версией, если продукт сохранён, иначе Optional.empty()
+     * @throws IllegalArgumentException если переданный продукт null
+     */
+    Optional<Product> compareAndSave(Product product);
+
     /**
      * Удаляет продукт из памяти по идентификатору
      *
      * @param uuid идентификатор продукта
      */
     void delete(UUID uuid);
+
+    /**
+     * Удаляет продукты из памяти по идентификаторам
+     *
+     * @param uuids идентификаторы продуктов
+     */
+    void deleteAll(Collection<UUID> uuids);
 }
@@ -0,0 +1,282 @@
+package ru.clevertec.product.repository.impl;
+
+import ru.clevertec.product.data.PriceStatistics;
+import ru.clevertec.product.entity.Product;
+import ru.clevertec.product.interner.StringInterner;
+import ru.clevertec.product.repository.ProductRepository;
+import ru.clevertec.product.repository.storage.DurabilityConfig;
+import ru.clevertec.product.repository.storage.ProductChangeListener;
+import ru.clevertec.product.repository.storage.ProductCodec;
+import ru.clevertec.product.repository.storage.SnapshotStore;
+import ru.clevertec.product.repository.storage.WriteAheadLog;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Хранилище в памяти, переживающее перезапуск процесса.
+ * <p>
+ * Каждое изменение {@link InMemoryProductRepository} попадает в {@link WriteAheadLog} под блокировкой продукта,
+ * поэтому порядок изменений одного продукта в журнале совпадает с порядком в памяти. Метод записи возвращается
+ * после группового fsync своей последней записи (или сразу, если {@link DurabilityConfig#awaitDurability()} выключен),
+ * а вызов, который ничего не изменил, например отклонённый {@code compareAndSave}, не ждёт журнал.
+ * <p>
+ * Снимок снимается в фоне без остановки записи: журнал переключается на новый сегмент, затем все записи
+ * сохраняются в снимок. Снимок может уже содержать часть изменений из нового сегмента, но журнал хранит
+ * полное состояние продукта, поэтому повторное применение этих изменений при восстановлении ничего не портит.
+ * При запуске загружается последний снимок и применяется хвост журнала.
+ * <p>
+ * Если фоновый снимок завершился ошибкой, запись отклоняется, пока {@link #snapshot()} не выполнится успешно:
+ * иначе журнал рос бы без ограничений, а ошибка диска оставалась бы незамеченной
+ */
+public class DurableProductRepository implements ProductRepository, AutoCloseable {
+
+    private final DurabilityConfig config;
+    private final InMemoryProductRepository delegate;
+    private final WriteAheadLog log;
+    private final ExecutorService snapshots = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "product-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean snapshotScheduled = new AtomicBoolean();
+    private final ThreadLocal<long[]> lastAppended = ThreadLocal.withInitial(() -> new long[1]);
+    private volatile long snapshotSequence;
+    private volatile RuntimeException snapshotFailure;
+
+    /**
+     * Восстанавливает продукты из снимка и журнала в каталоге настроек
+     *
+     * @param config настройки журнала и снимков
+     * @throws UncheckedIOException если каталог не удалось прочитать
+     */
+    public DurableProductRepository(DurabilityConfig config) {
+        this(config, StringInterner.none());
+    }
+
+    /**
+     * Восстанавливает продукты так же, но тексты всех восстановленных и новых продуктов проходят через словарь
+     *
+     * @param config   настройки журнала и снимков
+     * @param interner словарь для названий и описаний
+     * @throws UncheckedIOException если каталог не удалось прочитать
+     */
+    public DurableProductRepository(DurabilityConfig config, StringInterner interner) {
+        this.config = config;
+        this.delegate = new InMemoryProductRepository(interner);
+        try {
+            Files.createDirectories(config.directory());
+            snapshotSequence = SnapshotStore.load(config.directory(), delegate::restore);
+            long lastSequence = WriteAheadLog.replay(config.directory(), snapshotSequence, entry -> {
+                if (entry.isDelete()) {
+                    delegate.delete(entry.uuid());
+                } else {
+                    delegate.restore(entry.record());
+                }
+            });
+            log = new WriteAheadLog(config, lastSequence);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        delegate.addListener((before, after) ->
+                lastAppended.get()[0] = log.append(before == null ? after.uuid() : before.uuid(), after));
+    }
+
+    @Override
+    public Optional<Product> findById(UUID uuid) {
+        return delegate.findById(uuid);
+    }
+
+    @Override
+    public List<Product> findAllById(Collection<UUID> uuids) {
+        return delegate.findAllById(uuids);
+    }
+
+    @Override
+    public List<Product> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public List<Product> findPage(UUID after, int limit) {
+        return delegate.findPage(after, limit);
+    }
+
+    @Override
+    public List<Product> findByNamePrefix(String prefix) {
+        return delegate.findByNamePrefix(prefix);
+    }
+
+    @Override
+    public List<Product> search(String query, int limit) {
+        return delegate.search(query, limit);
+    }
+
+    @Override
+    public List<Product> findByPriceBetween(BigDecimal from, BigDecimal to) {
+        return delegate.findByPriceBetween(from, to);
+    }
+
+    @Override
+    public PriceStatistics priceStatistics(BigDecimal from, BigDecimal to) {
+        return delegate.priceStatistics(from, to);
+    }
+
+    @Override
+    public List<Product> findCreatedBetween(LocalDateTime from, LocalDateTime to) {
+        return delegate.findCreatedBetween(from, to);
+    }
+
+    @Override
+    public List<Product> findNewest(int limit) {
+        return delegate.findNewest(limit);
+    }
+
+    @Override
+    public Stream<Product> streamAll() {
+        return delegate.streamAll();
+    }
+
+    @Override
+    public long count() {
+        return delegate.count();
+    }
+
+    /**
+     * @throws IllegalArgumentException если продукт не помещается в кадр журнала
+     */
+    @Override
+    public Product save(Product product) {
+        requireFits(product);
+        return durably(() -> delegate.save(product));
+    }
+
+    /**
+     * Размер всей пачки проверяется до записи, поэтому слишком большой продукт не сохраняет пачку частично
+     *
+     * @throws IllegalArgumentException если продукт пачки не помещается в кадр журнала
+     */
+    @Override
+    public List<Product> saveAll(Collection<Product> products) {
+        products.forEach(DurableProductRepository::requireFits);
+        return durably(() -> delegate.saveAll(products));
+    }
+
+    /**
+     * @throws IllegalArgumentException если продукт не помещается в кадр журнала
+     */
+    @Override
+    public Optional<Product> compareAndSave(Product product) {
+        requireFits(product);
+        return durably(() -> delegate.compareAndSave(product));
+    }
+
+    @Override
+    public void delete(UUID uuid) {
+        durably(() -> {
+            delegate.delete(uuid);
+            return null;
+        });
+    }
+
+    @Override
+    public void deleteAll(Collection<UUID> uuids) {
+        durably(() -> {
+            delegate.deleteAll(uuids);
+            return null;
+        });
+    }
+
+    /**
+     * Подписывает слушателя на все последующие изменения. Слушатель вызывается после добавления изменения в журнал,
+     * поэтому не получает изменений, которые не удалось записать
+     *
+     * @param listener слушатель изменений
+     */
+    public void addListener(ProductChangeListener listener) {
+        delegate.addListener(listener);
+    }
+
+    /**
+     * Снимает снимок и удаляет покрытые им сегменты журнала. Сегменты удаляются только после fsync каталога
+     * с переименованным снимком: если снимок не записан на диск, журнал остаётся целым.
+     * Успешный снимок снова разрешает запись после ошибки фонового снимка
+     */
+    public synchronized void snapshot() {
+        long sequence = log.rotate();
+        SnapshotStore.write(config.directory(), sequence, delegate.streamRecords());
+        log.deleteSegmentsUpTo(sequence);
+        snapshotSequence = sequence;
+        snapshotFailure = null;
+    }
+
+    /**
+     * Дожидается фонового снимка, дописывает и закрывает журнал
+     */
+    @Override
+    public void close() {
+        snapshots.shutdown();
+        try {
+            snapshots.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.close();
+    }
+
+    /**
+     * Проверяет продукт до изменения памяти: иначе запись, отклонённая журналом, оставила бы уже сохранённую
+     * часть пачки без записи в журнале. null пропускается, его отклоняет хранилище в памяти
+     */
+    private static void requireFits(Product product) {
+        if (product != null) {
+            ProductCodec.requireFits(product.getName(), product.getDescription());
+        }
+    }
+
+    /**
+     * Журнал уже содержит изменения этого потока: они добавлены под блокировкой продукта до возврата из делегата,
+     * и слушатель запомнил номер последнего из них. Ждать чужие, более поздние записи не нужно
+     *
+     * @throws IllegalStateException если фоновый снимок завершился ошибкой
+     */
+    private <T> T durably(Supplier<T> action) {
+        RuntimeException failure = snapshotFailure;
+        if (failure != null) {
+            throw new IllegalStateException("Background snapshot failed", failure);
+        }
+        long[] appended = lastAppended.get();
+        appended[0] = 0;
+        T result = action.get();
+        long sequence = appended[0];
+        if (sequence == 0) {
+            return result;
+        }
+        log.awaitDurable(sequence);
+        if (sequence - snapshotSequence >= config.snapshotThreshold() && snapshotScheduled.compareAndSet(false, true)) {
+            snapshots.submit(() -> {
+                try {
+                    snapshot();
+                } catch (RuntimeException e) {
+                    snapshotFailure = e;
+                } finally {
+                    snapshotScheduled.set(false);
+                }
+            });
+        }
+        return result;
+    }
+}
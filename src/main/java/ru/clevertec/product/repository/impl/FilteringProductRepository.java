@@ -0,0 +1,213 @@
+package ru.clevertec.product.repository.impl;
+
+import ru.clevertec.product.data.PriceStatistics;
+import ru.clevertec.product.entity.Product;
+import ru.clevertec.product.exception.ProductCanNotBeNull;
+import ru.clevertec.product.repository.ProductRepository;
+import ru.clevertec.product.repository.storage.UuidBloomFilter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Отсекает поиск несуществующих продуктов фильтром Блума до обращения к нижележащему хранилищу.
+ * <p>
+ * Идентификатор попадает в фильтр до записи в хранилище, поэтому сохранённый продукт всегда находится.
+ * Удалённые продукты остаются в фильтре и просто доходят до хранилища, со временем это повышает долю
+ * ложноположительных ответов - {@link #rebuild()} пересобирает фильтр по текущему содержимому хранилища,
+ * не останавливая запись надолго
+ */
+public class FilteringProductRepository implements ProductRepository {
+
+    private final ProductRepository delegate;
+    private final int expectedInsertions;
+    private final double falsePositiveRate;
+    private final StampedLock rebuildLock = new StampedLock();
+    private final LongAdder rejected = new LongAdder();
+    private volatile UuidBloomFilter filter;
+    private volatile UuidBloomFilter next;
+
+    /**
+     * @param delegate           хранилище продуктов, заполняет фильтр при создании
+     * @param expectedInsertions ожидаемое количество продуктов
+     * @param falsePositiveRate  допустимая доля ложноположительных ответов фильтра
+     */
+    public FilteringProductRepository(ProductRepository delegate, int expectedInsertions, double falsePositiveRate) {
+        this.delegate = delegate;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+        this.filter = fill(new UuidBloomFilter(expectedInsertions, falsePositiveRate));
+    }
+
+    @Override
+    public Optional<Product> findById(UUID uuid) {
+        if (uuid == null || !filter.mightContain(uuid)) {
+            rejected.increment();
+            return Optional.empty();
+        }
+        return delegate.findById(uuid);
+    }
+
+    @Override
+    public List<Product> findAllById(Collection<UUID> uuids) {
+        UuidBloomFilter current = filter;
+        List<UUID> candidates = uuids.stream()
+                .filter(Objects::nonNull)
+                .filter(current::mightContain)
+                .collect(Collectors.toList());
+        rejected.add(uuids.size() - candidates.size());
+        return candidates.isEmpty() ? List.of() : delegate.findAllById(candidates);
+    }
+
+    @Override
+    public List<Product> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public List<Product> findPage(UUID after, int limit) {
+        return delegate.findPage(after, limit);
+    }
+
+    @Override
+    public List<Product> findByNamePrefix(String prefix) {
+        return delegate.findByNamePrefix(prefix);
+    }
+
+    @Override
+    public List<Product> search(String query, int limit) {
+        return delegate.search(query, limit);
+    }
+
+    @Override
+    public List<Product> findByPriceBetween(BigDecimal from, BigDecimal to) {
+        return delegate.findByPriceBetween(from, to);
+    }
+
+    @Override
+    public PriceStatistics priceStatistics(BigDecimal from, BigDecimal to) {
+        return delegate.priceStatistics(from, to);
+    }
+
+    @Override
+    public List<Product> findCreatedBetween(LocalDateTime from, LocalDateTime to) {
+        return delegate.findCreatedBetween(from, to);
+    }
+
+    @Override
+    public List<Product> findNewest(int limit) {
+        return delegate.findNewest(limit);
+    }
+
+    @Override
+    public Stream<Product> streamAll() {
+        return delegate.streamAll();
+    }
+
+    @Override
+    public long count() {
+        return delegate.count();
+    }
+
+    @Override
+    public Product save(Product product) {
+        if (product == null) {
+            throw new ProductCanNotBeNull();
+        }
+        return write(List.of(product), () -> delegate.save(product));
+    }
+
+    @Override
+    public List<Product> saveAll(Collection<Product> products) {
+        if (products.stream().anyMatch(Objects::isNull)) {
+            throw new ProductCanNotBeNull();
+        }
+        return write(products, () -> delegate.saveAll(products));
+    }
+
+    @Override
+    public Optional<Product> compareAndSave(Product product) {
+        if (product == null) {
+            throw new ProductCanNotBeNull();
+        }
+        return write(List.of(product), () -> delegate.compareAndSave(product));
+    }
+
+    @Override
+    public void delete(UUID uuid) {
+        delegate.delete(uuid);
+    }
+
+    @Override
+    public void deleteAll(Collection<UUID> uuids) {
+        delegate.deleteAll(uuids);
+    }
+
+    /**
+     * Пересобирает фильтр по текущему содержимому хранилища, чтобы убрать удалённые продукты.
+     * Запись блокируется только на время переключения фильтров, а не на время обхода хранилища
+     */
+    public void rebuild() {
+        UuidBloomFilter rebuilt = new UuidBloomFilter(expectedInsertions, falsePositiveRate);
+        long stamp = rebuildLock.writeLock();
+        next = rebuilt;
+        rebuildLock.unlockWrite(stamp);
+        fill(rebuilt);
+        stamp = rebuildLock.writeLock();
+        filter = rebuilt;
+        next = null;
+        rebuildLock.unlockWrite(stamp);
+    }
+
+    /**
+     * Количество поисков, отсечённых фильтром
+     *
+     * @return количество отсечённых идентификаторов
+     */
+    public long rejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * Добавляет идентификаторы в фильтр до записи в хранилище. Разделяемая блокировка гарантирует,
+     * что пересборка, начавшая обход хранилища, увидит либо саму запись, либо её идентификатор
+     */
+    private <T> T write(Collection<Product> products, Supplier<T> action) {
+        long stamp = rebuildLock.readLock();
+        try {
+            products.forEach(this::register);
+            return action.get();
+        } finally {
+            rebuildLock.unlockRead(stamp);
+        }
+    }
+
+    private void register(Product product) {
+        if (product.getUuid() == null) {
+            product.setUuid(UUID.randomUUID());
+        }
+        filter.add(product.getUuid());
+        UuidBloomFilter rebuilt = next;
+        if (rebuilt != null) {
+            rebuilt.add(product.getUuid());
+        }
+    }
+
+    private UuidBloomFilter fill(UuidBloomFilter target) {
+        try (Stream<Product> products = delegate.streamAll()) {
+            products.map(Product::getUuid)
+                    .forEach(target::add);
+        }
+        return target;
+    }
+}
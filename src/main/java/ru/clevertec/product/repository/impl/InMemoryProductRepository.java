@@ -1,47 +1,336 @@
 package ru.clevertec.product.repository.impl;
 
+import ru.clevertec.product.data.PriceStatistics;
 import ru.clevertec.product.entity.Product;
 import ru.clevertec.product.exception.ProductCanNotBeNull;
+import ru.clevertec.product.interner.StringInterner;
 import ru.clevertec.product.repository.ProductRepository;
+import ru.clevertec.product.repository.storage.PriceIndex;
+import ru.clevertec.product.repository.storage.ProductChangeListener;
+import ru.clevertec.product.repository.storage.ProductRecord;
+import ru.clevertec.product.repository.storage.SearchIndex;
+import ru.clevertec.product.repository.storage.SearchQuery;
+import ru.clevertec.product.repository.storage.SortedIndex;
+import ru.clevertec.product.repository.storage.UuidHashMap;
 
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
+import java.util.Objects;
+import java.util.NavigableSet;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+/**
+ * Потокобезопасное хранилище продуктов в памяти.
+ * Чтение проверяет версию сегмента {@link UuidHashMap} вместо блокировки, запись блокирует только
+ * этот сегмент, поэтому запись разных продуктов почти не конкурирует между собой.
+ * <p>
+ * Продукты хранятся в виде неизменяемых {@link ProductRecord}: наружу всегда отдаётся новый
+ * {@link Product}, а сохранение атомарно заменяет запись, поэтому изменения чужих экземпляров
+ * не видны хранилищу и читатели никогда не видят частично обновлённый продукт.
+ * <p>
+ * Отсортированные индексы по идентификатору, названию, стоимости и времени создания, а также поисковый
+ * {@link SearchIndex} обновляются внутри {@code compute} под блокировкой того же сегмента,
+ * поэтому они всегда согласованы с записями.
+ * Там же вызываются {@link ProductChangeListener}, поэтому изменения одного продукта они получают по порядку.
+ * <p>
+ * Названия и описания можно пропускать через {@link StringInterner}: тогда равные тексты разных продуктов
+ * хранятся одним экземпляром, а индекс названий сравнивает их по ссылке.
+ * <p>
+ * Стоимость хранится в записи и в {@link PriceIndex} как long и масштаб, поэтому стоимость больше 18 знаков
+ * не сохраняется, а {@link BigDecimal} создаётся только при выдаче продукта
+ */
 public class InMemoryProductRepository implements ProductRepository {
 
-    private final Map<UUID, Product> products = new HashMap<>();
+    private final UuidHashMap<ProductRecord> products = new UuidHashMap<>();
+    private final NavigableSet<UUID> keys = new ConcurrentSkipListSet<>();
+    private final SortedIndex<String> nameIndex = new SortedIndex<>(ProductRecord::name, Comparator.naturalOrder());
+    private final PriceIndex priceIndex = new PriceIndex();
+    private final SearchIndex searchIndex = new SearchIndex(products::get);
+    private final SortedIndex<LocalDateTime> createdIndex = new SortedIndex<>(ProductRecord::created, Comparator.naturalOrder());
+    private final List<ProductChangeListener> listeners = new CopyOnWriteArrayList<>();
+    private final StringInterner interner;
+
+    public InMemoryProductRepository() {
+        this(StringInterner.none());
+    }
+
+    /**
+     * @param interner словарь для названий и описаний сохраняемых продуктов
+     */
+    public InMemoryProductRepository(StringInterner interner) {
+        this.interner = interner;
+    }
 
     @Override
     public Optional<Product> findById(UUID uuid) {
-        return Optional.ofNullable(products.get(uuid));
+        if (uuid == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(products.get(uuid))
+                .map(ProductRecord::toProduct);
     }
 
+    @Override
+    public List<Product> findAllById(Collection<UUID> uuids) {
+        return uuids.stream()
+                .filter(Objects::nonNull)
+                .map(products::get)
+                .filter(Objects::nonNull)
+                .map(ProductRecord::toProduct)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Снимок не блокирует писателей: каждый продукт попадает в список не более одного раза
+     * и отражает состояние не раньше момента вызова
+     */
     @Override
     public List<Product> findAll() {
-        return new ArrayList<>(products.values());
+        return products.values()
+                .map(ProductRecord::toProduct)
+                .collect(Collectors.toList());
     }
 
     @Override
-    public Product save(Product product) {
-        if (product == null) {
-            throw new ProductCanNotBeNull();
+    public List<Product> findPage(UUID after, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Page limit must be positive");
         }
+        NavigableSet<UUID> tail = after == null ? keys : keys.tailSet(after, false);
+        return materialize(tail.stream(), limit);
+    }
 
-        if (products.containsKey(product.getUuid())) {
-            products.put(product.getUuid(), product);
+    @Override
+    public List<Product> findByNamePrefix(String prefix) {
+        if (prefix == null) {
+            return List.of();
         }
-        else {
-            products.put(product.getUuid(), product);
+        return materialize(nameIndex.range(prefix, true, prefixEnd(prefix), false));
+    }
+
+    @Override
+    public List<Product> search(String query, int limit) {
+        return searchIndex.search(SearchQuery.parse(query), limit).stream()
+                .map(ProductRecord::toProduct)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<Product> findByPriceBetween(BigDecimal from, BigDecimal to) {
+        return materialize(priceIndex.range(from, to));
+    }
+
+    /**
+     * Считается по элементам индекса стоимости, записи продуктов не читаются
+     */
+    @Override
+    public PriceStatistics priceStatistics(BigDecimal from, BigDecimal to) {
+        return priceIndex.statistics(from, to);
+    }
+
+    @Override
+    public List<Product> findCreatedBetween(LocalDateTime from, LocalDateTime to) {
+        return materialize(createdIndex.range(from, true, to, true));
+    }
+
+    /**
+     * Продукты без времени создания не индексируются и не попадают в выборку
+     */
+    @Override
+    public List<Product> findNewest(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        return materialize(createdIndex.descending(), limit);
+    }
+
+    @Override
+    public Stream<Product> streamAll() {
+        return products.values()
+                .map(ProductRecord::toProduct);
+    }
+
+    /**
+     * Ленивый поток неизменяемых записей без создания продуктов
+     *
+     * @return поток записей
+     */
+    public Stream<ProductRecord> streamRecords() {
+        return products.values();
+    }
+
+    /**
+     * Сегменты считаются по очереди, поэтому при параллельной записи результат приблизительный
+     */
+    @Override
+    public long count() {
+        return products.size();
+    }
+
+    @Override
+    public Product save(Product product) {
+        return store(prepare(product));
+    }
+
+    /**
+     * Проверяет и кодирует всю пачку до записи, поэтому пачка с null или слишком большой стоимостью
+     * не сохраняется частично. Пачка делится по сегментам {@link UuidHashMap}: каждый сегмент блокируется
+     * и расширяется один раз на все свои продукты. Каждый продукт заменяется атомарно, пачка целиком - нет
+     */
+    @Override
+    public List<Product> saveAll(Collection<Product> products) {
+        if (products.stream().anyMatch(Objects::isNull)) {
+            throw new ProductCanNotBeNull();
         }
-        return product;
+        List<ProductRecord> records = products.stream()
+                .map(this::prepare)
+                .collect(Collectors.toList());
+        return this.products.computeAll(records, ProductRecord::uuid,
+                        (record, current) -> replace(current, record.withVersion(nextVersion(current)))).stream()
+                .map(ProductRecord::toProduct)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public Optional<Product> compareAndSave(Product product) {
+        ProductRecord candidate = prepare(product).withVersion(product.getVersion() + 1);
+        ProductRecord stored = products.compute(product.getUuid(),
+                current -> currentVersion(current) == product.getVersion() ? replace(current, candidate) : current);
+        return stored == candidate
+                ? Optional.of(candidate.toProduct())
+                : Optional.empty();
     }
 
     @Override
     public void delete(UUID uuid) {
-        products.remove(uuid);
+        if (uuid != null) {
+            products.computeIfPresent(uuid, current -> replace(current, null));
+        }
+    }
+
+    /**
+     * Как {@link #saveAll}, блокирует каждый сегмент один раз на все его идентификаторы
+     */
+    @Override
+    public void deleteAll(Collection<UUID> uuids) {
+        List<UUID> present = uuids.stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        products.computeAll(present, Function.identity(),
+                (uuid, current) -> current == null ? null : replace(current, null));
+    }
+
+    /**
+     * Кладёт запись как есть, вместе с её версией, например при восстановлении из журнала
+     *
+     * @param record восстанавливаемая запись
+     */
+    public void restore(ProductRecord record) {
+        ProductRecord interned = new ProductRecord(record.uuid(), interner.intern(record.name()),
+                interner.intern(record.description()), record.priceUnscaled(), record.priceScale(),
+                record.created(), record.version());
+        products.compute(record.uuid(), current -> replace(current, interned));
+    }
+
+    /**
+     * Подписывает слушателя на все последующие изменения
+     *
+     * @param listener слушатель изменений
+     */
+    public void addListener(ProductChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Вызывается под блокировкой сегмента, поэтому индексы меняются атомарно вместе с записью.
+     * Слушатели вызываются первыми: если слушатель бросит исключение, ни запись, ни индексы не изменятся
+     *
+     * @param current текущая запись, null если продукта нет
+     * @param updated новая запись, null при удалении
+     * @return новая запись
+     */
+    private ProductRecord replace(ProductRecord current, ProductRecord updated) {
+        listeners.forEach(listener -> listener.onChange(current, updated));
+        if (current == null) {
+            keys.add(updated.uuid());
+        } else if (updated == null) {
+            keys.remove(current.uuid());
+        }
+        nameIndex.update(current, updated);
+        priceIndex.update(current, updated);
+        createdIndex.update(current, updated);
+        searchIndex.update(current, updated);
+        return updated;
+    }
+
+    private Product store(ProductRecord record) {
+        return products.compute(record.uuid(), current -> replace(current, record.withVersion(nextVersion(current))))
+                .toProduct();
+    }
+
+    /**
+     * Тексты интернируются и стоимость кодируется до блокировки сегмента
+     *
+     * @return запись с нулевой версией
+     * @throws IllegalArgumentException если стоимость не помещается в long
+     */
+    private ProductRecord prepare(Product product) {
+        if (product == null) {
+            throw new ProductCanNotBeNull();
+        }
+        if (product.getUuid() == null) {
+            product.setUuid(UUID.randomUUID());
+        }
+        return ProductRecord.of(product.getUuid(), interner.intern(product.getName()),
+                interner.intern(product.getDescription()), product.getPrice(), product.getCreated(), 0);
+    }
+
+    private List<Product> materialize(Stream<UUID> uuids) {
+        return materialize(uuids, Long.MAX_VALUE);
+    }
+
+    /**
+     * Индексы обновляются вместе с записью, но читаются без блокировок,
+     * поэтому идентификатор удалённой в этот момент записи пропускается
+     */
+    private List<Product> materialize(Stream<UUID> uuids, long limit) {
+        return uuids.map(products::get)
+                .filter(Objects::nonNull)
+                .limit(limit)
+                .map(ProductRecord::toProduct)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Наименьшая строка, большая всех строк с этим префиксом
+     *
+     * @param prefix префикс
+     * @return верхняя граница диапазона, null если префикс состоит из {@link Character#MAX_VALUE}
+     */
+    private static String prefixEnd(String prefix) {
+        for (int i = prefix.length() - 1; i >= 0; i--) {
+            char last = prefix.charAt(i);
+            if (last != Character.MAX_VALUE) {
+                return prefix.substring(0, i) + (char) (last + 1);
+            }
+        }
+        return null;
+    }
+
+    private static long nextVersion(ProductRecord current) {
+        return currentVersion(current) + 1;
+    }
+
+    private static long currentVersion(ProductRecord current) {
+        return current == null ? 0 : current.version();
     }
 }
@@ -0,0 +1,221 @@
+package ru.clevertec.product.repository.impl;
+
+import ru.clevertec.product.data.PriceStatistics;
+import ru.clevertec.product.entity.Product;
+import ru.clevertec.product.metrics.OperationMetrics;
+import ru.clevertec.product.metrics.ProductMetrics;
+import ru.clevertec.product.repository.ProductRepository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Замеряет задержку каждой операции другого хранилища и считает вызовы, ошибки и промахи
+ * {@link #findById(UUID)}. Размер хранилища публикуется показателем {@code repository.size}.
+ * <p>
+ * Если метрики выключены, вызов сразу уходит в нижележащее хранилище без чтения часов.
+ * У {@link #streamAll()} замеряется только создание потока, а не его чтение
+ */
+public class InstrumentedProductRepository implements ProductRepository {
+
+    private static final String PREFIX = "repository.";
+
+    private final ProductRepository delegate;
+    private final ProductMetrics metrics;
+    private final OperationMetrics findById;
+    private final OperationMetrics findAllById;
+    private final OperationMetrics findAll;
+    private final OperationMetrics findPage;
+    private final OperationMetrics findByNamePrefix;
+    private final OperationMetrics search;
+    private final OperationMetrics findByPriceBetween;
+    private final OperationMetrics priceStatistics;
+    private final OperationMetrics findCreatedBetween;
+    private final OperationMetrics findNewest;
+    private final OperationMetrics streamAll;
+    private final OperationMetrics count;
+    private final OperationMetrics save;
+    private final OperationMetrics saveAll;
+    private final OperationMetrics compareAndSave;
+    private final OperationMetrics delete;
+    private final OperationMetrics deleteAll;
+
+    /**
+     * @param delegate хранилище, операции которого замеряются
+     * @param metrics  реестр, в который пишутся метрики
+     */
+    public InstrumentedProductRepository(ProductRepository delegate, ProductMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+        this.findById = metrics.operation(PREFIX + "findById");
+        this.findAllById = metrics.operation(PREFIX + "findAllById");
+        this.findAll = metrics.operation(PREFIX + "findAll");
+        this.findPage = metrics.operation(PREFIX + "findPage");
+        this.findByNamePrefix = metrics.operation(PREFIX + "findByNamePrefix");
+        this.search = metrics.operation(PREFIX + "search");
+        this.findByPriceBetween = metrics.operation(PREFIX + "findByPriceBetween");
+        this.priceStatistics = metrics.operation(PREFIX + "priceStatistics");
+        this.findCreatedBetween = metrics.operation(PREFIX + "findCreatedBetween");
+        this.findNewest = metrics.operation(PREFIX + "findNewest");
+        this.streamAll = metrics.operation(PREFIX + "streamAll");
+        this.count = metrics.operation(PREFIX + "count");
+        this.save = metrics.operation(PREFIX + "save");
+        this.saveAll = metrics.operation(PREFIX + "saveAll");
+        this.compareAndSave = metrics.operation(PREFIX + "compareAndSave");
+        this.delete = metrics.operation(PREFIX + "delete");
+        this.deleteAll = metrics.operation(PREFIX + "deleteAll");
+        metrics.gauge(PREFIX + "size", delegate::count);
+    }
+
+    @Override
+    public Optional<Product> findById(UUID uuid) {
+        if (!metrics.isEnabled()) {
+            return delegate.findById(uuid);
+        }
+        Optional<Product> product = measure(findById, () -> delegate.findById(uuid));
+        if (product.isEmpty()) {
+            findById.notFound();
+        }
+        return product;
+    }
+
+    @Override
+    public List<Product> findAllById(Collection<UUID> uuids) {
+        return metrics.isEnabled()
+                ? measure(findAllById, () -> delegate.findAllById(uuids))
+                : delegate.findAllById(uuids);
+    }
+
+    @Override
+    public List<Product> findAll() {
+        return metrics.isEnabled()
+                ? measure(findAll, delegate::findAll)
+                : delegate.findAll();
+    }
+
+    @Override
+    public List<Product> findPage(UUID after, int limit) {
+        return metrics.isEnabled()
+                ? measure(findPage, () -> delegate.findPage(after, limit))
+                : delegate.findPage(after, limit);
+    }
+
+    @Override
+    public List<Product> findByNamePrefix(String prefix) {
+        return metrics.isEnabled()
+                ? measure(findByNamePrefix, () -> delegate.findByNamePrefix(prefix))
+                : delegate.findByNamePrefix(prefix);
+    }
+
+    @Override
+    public List<Product> search(String query, int limit) {
+        return metrics.isEnabled()
+                ? measure(search, () -> delegate.search(query, limit))
+                : delegate.search(query, limit);
+    }
+
+    @Override
+    public List<Product> findByPriceBetween(BigDecimal from, BigDecimal to) {
+        return metrics.isEnabled()
+                ? measure(findByPriceBetween, () -> delegate.findByPriceBetween(from, to))
+                : delegate.findByPriceBetween(from, to);
+    }
+
+    @Override
+    public PriceStatistics priceStatistics(BigDecimal from, BigDecimal to) {
+        return metrics.isEnabled()
+                ? measure(priceStatistics, () -> delegate.priceStatistics(from, to))
+                : delegate.priceStatistics(from, to);
+    }
+
+    @Override
+    public List<Product> findCreatedBetween(LocalDateTime from, LocalDateTime to) {
+        return metrics.isEnabled()
+                ? measure(findCreatedBetween, () -> delegate.findCreatedBetween(from, to))
+                : delegate.findCreatedBetween(from, to);
+    }
+
+    @Override
+    public List<Product> findNewest(int limit) {
+        return metrics.isEnabled()
+                ? measure(findNewest, () -> delegate.findNewest(limit))
+                : delegate.findNewest(limit);
+    }
+
+    @Override
+    public Stream<Product> streamAll() {
+        return metrics.isEnabled()
+                ? measure(streamAll, delegate::streamAll)
+                : delegate.streamAll();
+    }
+
+    @Override
+    public long count() {
+        return metrics.isEnabled()
+                ? measure(count, delegate::count)
+                : delegate.count();
+    }
+
+    @Override
+    public Product save(Product product) {
+        return metrics.isEnabled()
+                ? measure(save, () -> delegate.save(product))
+                : delegate.save(product);
+    }
+
+    @Override
+    public List<Product> saveAll(Collection<Product> products) {
+        return metrics.isEnabled()
+                ? measure(saveAll, () -> delegate.saveAll(products))
+                : delegate.saveAll(products);
+    }
+
+    @Override
+    public Optional<Product> compareAndSave(Product product) {
+        return metrics.isEnabled()
+                ? measure(compareAndSave, () -> delegate.compareAndSave(product))
+                : delegate.compareAndSave(product);
+    }
+
+    @Override
+    public void delete(UUID uuid) {
+        if (!metrics.isEnabled()) {
+            delegate.delete(uuid);
+            return;
+        }
+        measure(delete, () -> {
+            delegate.delete(uuid);
+            return null;
+        });
+    }
+
+    @Override
+    public void deleteAll(Collection<UUID> uuids) {
+        if (!metrics.isEnabled()) {
+            delegate.deleteAll(uuids);
+            return;
+        }
+        measure(deleteAll, () -> {
+            delegate.deleteAll(uuids);
+            return null;
+        });
+    }
+
+    private static <T> T measure(OperationMetrics operation, Supplier<T> action) {
+        long start = System.nanoTime();
+        try {
+            return action.get();
+        } catch (RuntimeException | Error e) {
+            operation.error();
+            throw e;
+        } finally {
+            operation.record(System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,610 @@
+package ru.clevertec.product.repository.impl;
+
+import ru.clevertec.product.data.PriceStatistics;
+import ru.clevertec.product.entity.Product;
+import ru.clevertec.product.exception.ProductCanNotBeNull;
+import ru.clevertec.product.repository.ProductRepository;
+import ru.clevertec.product.repository.storage.FixedPrice;
+import ru.clevertec.product.repository.storage.OffHeapArena;
+import ru.clevertec.product.repository.storage.OffHeapIndex;
+import ru.clevertec.product.repository.storage.PriceAccumulator;
+import ru.clevertec.product.repository.storage.SearchQuery;
+import ru.clevertec.product.repository.storage.TopMatches;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.LongPredicate;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * Хранилище продуктов вне кучи: записи лежат в {@link OffHeapArena} в фиксированном двоичном виде,
+ * идентификаторы - в {@link OffHeapIndex}. В куче остаются только эти два объекта, поэтому миллионы продуктов
+ * не увеличивают работу сборщика мусора, а {@link Product} создаётся только при возврате из метода.
+ * <p>
+ * Стоимость хранится как немасштабированный long и масштаб ({@link FixedPrice}), время создания - в микросекундах,
+ * поэтому наносекунды времени создания отбрасываются, а стоимость больше 18 знаков не сохраняется.
+ * <p>
+ * Поиск по идентификатору читает индекс без блокировки и проверяет результат по {@link StampedLock}.
+ * Запись идёт под одной блокировкой писателя: новая версия дописывается в область, старая становится мусором,
+ * и когда мусора больше живых данных, область уплотняется. Выборки по названию, стоимости и времени создания
+ * проходят по всем записям: смещения копируются под блокировкой чтения, а сами записи читаются уже без неё
+ */
+public class OffHeapProductRepository implements ProductRepository, AutoCloseable {
+
+    private static final int DEFAULT_CHUNK_SIZE = 64 << 20;
+    private static final int DEFAULT_EXPECTED_SIZE = 1 << 16;
+
+    private final StampedLock lock = new StampedLock();
+    private final OffHeapIndex index = new OffHeapIndex(DEFAULT_EXPECTED_SIZE);
+    private final int chunkSize;
+    private volatile OffHeapArena arena;
+    private long liveBytes;
+
+    /**
+     * Хранилище в прямых буферах кусками по 64 МБ
+     */
+    public OffHeapProductRepository() {
+        this(null, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param directory каталог для отображаемых в память файлов, null для прямых буферов
+     * @param chunkSize размер куска памяти в байтах, ограничивает размер одного продукта
+     * @throws IllegalArgumentException если размер куска не кратен 8 или меньше 4096
+     */
+    public OffHeapProductRepository(Path directory, int chunkSize) {
+        this.arena = new OffHeapArena(chunkSize, directory);
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public Optional<Product> findById(UUID uuid) {
+        if (uuid == null) {
+            return Optional.empty();
+        }
+        long stamp = lock.tryOptimisticRead();
+        OffHeapArena current = arena;
+        long offset = index.get(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                current = arena;
+                offset = index.get(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return offset == OffHeapIndex.ABSENT
+                ? Optional.empty()
+                : Optional.of(current.product(offset));
+    }
+
+    @Override
+    public List<Product> findAllById(Collection<UUID> uuids) {
+        UUID[] keys = uuids.stream()
+                .filter(Objects::nonNull)
+                .toArray(UUID[]::new);
+        long[] offsets = new long[keys.length];
+        long stamp = lock.tryOptimisticRead();
+        OffHeapArena current = arena;
+        lookup(keys, offsets);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                current = arena;
+                lookup(keys, offsets);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return materialize(current, Arrays.stream(offsets).filter(offset -> offset != OffHeapIndex.ABSENT));
+    }
+
+    @Override
+    public List<Product> findAll() {
+        Snapshot snapshot = snapshot();
+        return materialize(snapshot.arena(), Arrays.stream(snapshot.offsets()));
+    }
+
+    /**
+     * Проходит по всем записям и держит в куче только limit лучших смещений
+     */
+    @Override
+    public List<Product> findPage(UUID after, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Page limit must be positive");
+        }
+        Snapshot snapshot = snapshot();
+        OffHeapArena current = snapshot.arena();
+        OffsetComparator byUuid = (first, second) -> compareUuid(current, first, second);
+        LongPredicate afterKey = after == null
+                ? offset -> true
+                : offset -> compareUuid(current, offset, after.getMostSignificantBits(), after.getLeastSignificantBits()) > 0;
+        return materialize(current, Arrays.stream(select(snapshot.offsets(), afterKey, byUuid, limit)));
+    }
+
+    @Override
+    public List<Product> findByNamePrefix(String prefix) {
+        if (prefix == null) {
+            return List.of();
+        }
+        Snapshot snapshot = snapshot();
+        OffHeapArena current = snapshot.arena();
+        LongPredicate matches;
+        if (prefix.chars().anyMatch(c -> Character.isSurrogate((char) c))) {
+            matches = offset -> {
+                String name = current.name(offset);
+                return name != null && name.startsWith(prefix);
+            };
+        } else {
+            byte[] bytes = prefix.getBytes(StandardCharsets.UTF_8);
+            matches = offset -> current.nameStartsWith(offset, bytes);
+        }
+        return sorted(current, Arrays.stream(snapshot.offsets()).filter(matches), Comparator.comparing(Product::getName));
+    }
+
+    /**
+     * Обратного индекса вне кучи нет: запрос проверяется по всем записям снимка, в куче держатся только
+     * {@code limit} лучших продуктов
+     */
+    @Override
+    public List<Product> search(String query, int limit) {
+        SearchQuery parsed = SearchQuery.parse(query);
+        TopMatches<Product> top = new TopMatches<>(parsed, limit);
+        if (parsed.isEmpty()) {
+            return List.of();
+        }
+        Snapshot snapshot = snapshot();
+        for (long offset : snapshot.offsets()) {
+            Product product = snapshot.arena().product(offset);
+            top.offer(product, product.getUuid(), product.getName(), product.getDescription());
+        }
+        return top.toList();
+    }
+
+    /**
+     * Стоимости сравниваются как long и масштаб прямо в записях, {@link BigDecimal} создаётся только для результата
+     */
+    @Override
+    public List<Product> findByPriceBetween(BigDecimal from, BigDecimal to) {
+        Snapshot snapshot = snapshot();
+        OffHeapArena current = snapshot.arena();
+        OffsetComparator byPrice = (first, second) -> {
+            int comparison = FixedPrice.compare(current.priceUnscaled(first), current.priceScale(first),
+                    current.priceUnscaled(second), current.priceScale(second));
+            return comparison != 0 ? comparison : compareUuid(current, first, second);
+        };
+        return materialize(current, Arrays.stream(select(snapshot.offsets(), priceBetween(current, from, to), byPrice,
+                Integer.MAX_VALUE)));
+    }
+
+    @Override
+    public PriceStatistics priceStatistics(BigDecimal from, BigDecimal to) {
+        Snapshot snapshot = snapshot();
+        OffHeapArena current = snapshot.arena();
+        LongPredicate matches = priceBetween(current, from, to);
+        PriceAccumulator accumulator = new PriceAccumulator();
+        for (long offset : snapshot.offsets()) {
+            if (matches.test(offset)) {
+                accumulator.add(current.priceUnscaled(offset), current.priceScale(offset));
+            }
+        }
+        return accumulator.toStatistics();
+    }
+
+    /**
+     * Границы переводятся в микросекунды один раз, записи сравниваются без создания {@link LocalDateTime}
+     */
+    @Override
+    public List<Product> findCreatedBetween(LocalDateTime from, LocalDateTime to) {
+        long fromMicros = from == null ? Long.MIN_VALUE + 1 : boundMicros(from) + (from.getNano() % 1000 == 0 ? 0 : 1);
+        long toMicros = to == null ? Long.MAX_VALUE : boundMicros(to);
+        Snapshot snapshot = snapshot();
+        OffHeapArena current = snapshot.arena();
+        LongPredicate matches = offset -> {
+            long created = current.createdMicros(offset);
+            return created >= fromMicros && created <= toMicros;
+        };
+        return sorted(current, Arrays.stream(snapshot.offsets()).filter(matches), Comparator.comparing(Product::getCreated));
+    }
+
+    /**
+     * Продукты без времени создания не попадают в выборку
+     */
+    @Override
+    public List<Product> findNewest(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        Snapshot snapshot = snapshot();
+        OffHeapArena current = snapshot.arena();
+        OffsetComparator newestFirst = (first, second) -> {
+            int byCreated = Long.compare(current.createdMicros(second), current.createdMicros(first));
+            return byCreated != 0 ? byCreated : compareUuid(current, second, first);
+        };
+        LongPredicate hasCreated = offset -> current.createdMicros(offset) != Long.MIN_VALUE;
+        return materialize(current, Arrays.stream(select(snapshot.offsets(), hasCreated, newestFirst, limit)));
+    }
+
+    /**
+     * Смещения копируются сразу, а продукты создаются по мере чтения потока
+     */
+    @Override
+    public Stream<Product> streamAll() {
+        Snapshot snapshot = snapshot();
+        return Arrays.stream(snapshot.offsets())
+                .mapToObj(snapshot.arena()::product);
+    }
+
+    @Override
+    public long count() {
+        long stamp = lock.readLock();
+        try {
+            return index.size();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public Product save(Product product) {
+        byte[] record = encode(product);
+        long stamp = lock.writeLock();
+        OffHeapArena current;
+        long offset;
+        try {
+            compactIfNeeded();
+            current = arena;
+            long stored = index.get(product.getUuid().getMostSignificantBits(), product.getUuid().getLeastSignificantBits());
+            offset = store(product.getUuid(), record, stored, versionOf(stored) + 1);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        return current.product(offset);
+    }
+
+    /**
+     * Вся пачка кодируется и проверяется на размер куска до взятия блокировки, поэтому ни слишком большая стоимость,
+     * ни слишком большой продукт не сохраняют пачку частично, а блокировка писателя берётся один раз на пачку
+     */
+    @Override
+    public List<Product> saveAll(Collection<Product> products) {
+        if (products.stream().anyMatch(Objects::isNull)) {
+            throw new ProductCanNotBeNull();
+        }
+        List<byte[]> records = products.stream()
+                .map(this::encode)
+                .collect(Collectors.toList());
+        long[] offsets = new long[records.size()];
+        OffHeapArena current;
+        long stamp = lock.writeLock();
+        try {
+            compactIfNeeded();
+            current = arena;
+            int i = 0;
+            for (Product product : products) {
+                long stored = index.get(product.getUuid().getMostSignificantBits(), product.getUuid().getLeastSignificantBits());
+                offsets[i] = store(product.getUuid(), records.get(i), stored, versionOf(stored) + 1);
+                i++;
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        return materialize(current, Arrays.stream(offsets));
+    }
+
+    @Override
+    public Optional<Product> compareAndSave(Product product) {
+        byte[] record = encode(product);
+        long stamp = lock.writeLock();
+        OffHeapArena current;
+        long offset;
+        try {
+            compactIfNeeded();
+            current = arena;
+            long stored = index.get(product.getUuid().getMostSignificantBits(), product.getUuid().getLeastSignificantBits());
+            if (versionOf(stored) != product.getVersion()) {
+                return Optional.empty();
+            }
+            offset = store(product.getUuid(), record, stored, product.getVersion() + 1);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        return Optional.of(current.product(offset));
+    }
+
+    @Override
+    public void delete(UUID uuid) {
+        if (uuid != null) {
+            deleteAll(List.of(uuid));
+        }
+    }
+
+    @Override
+    public void deleteAll(Collection<UUID> uuids) {
+        long stamp = lock.writeLock();
+        try {
+            for (UUID uuid : uuids) {
+                if (uuid != null) {
+                    long removed = index.remove(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+                    if (removed != OffHeapIndex.ABSENT) {
+                        liveBytes -= arena.length(removed);
+                    }
+                }
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Переписывает живые записи в новую область и освобождает мусор
+     */
+    public void compact() {
+        long stamp = lock.writeLock();
+        try {
+            relocate();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * @return количество байт, занятых записями вне кучи, включая мусор
+     */
+    public long usedBytes() {
+        long stamp = lock.readLock();
+        try {
+            return arena.used();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Удаляет файлы кусков, если хранилище работает с отображаемыми файлами
+     */
+    @Override
+    public void close() {
+        long stamp = lock.writeLock();
+        try {
+            arena.close();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException если стоимость не помещается в long или запись больше куска
+     */
+    private byte[] encode(Product product) {
+        if (product == null) {
+            throw new ProductCanNotBeNull();
+        }
+        if (product.getUuid() == null) {
+            product.setUuid(UUID.randomUUID());
+        }
+        byte[] record = OffHeapArena.encode(product);
+        if (record.length > chunkSize) {
+            throw new IllegalArgumentException("Product of " + record.length + " bytes does not fit into a chunk");
+        }
+        return record;
+    }
+
+    private long store(UUID uuid, byte[] record, long stored, long version) {
+        long offset = arena.append(record, version);
+        index.put(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), offset);
+        liveBytes += record.length;
+        if (stored != OffHeapIndex.ABSENT) {
+            liveBytes -= arena.length(stored);
+        }
+        return offset;
+    }
+
+    private long versionOf(long offset) {
+        return offset == OffHeapIndex.ABSENT ? 0 : arena.version(offset);
+    }
+
+    /**
+     * Уплотняет область перед записью, пока смещения этой записи ещё никому не отданы
+     */
+    private void compactIfNeeded() {
+        long garbage = arena.used() - liveBytes;
+        if (garbage > liveBytes && garbage >= arena.chunkSize()) {
+            relocate();
+        }
+    }
+
+    /**
+     * Старая область не очищается: читатели, получившие смещения до уплотнения, дочитывают из неё
+     */
+    private void relocate() {
+        OffHeapArena source = arena;
+        OffHeapArena target = source.emptyCopy();
+        index.replaceValues(offset -> target.copy(source, offset));
+        arena = target;
+        source.close();
+    }
+
+    /**
+     * Граница за пределами микросекунд long заменяется крайним значением: таких записей в хранилище нет
+     */
+    private static long boundMicros(LocalDateTime bound) {
+        try {
+            return OffHeapArena.micros(bound);
+        } catch (IllegalArgumentException e) {
+            return bound.getYear() < 0 ? Long.MIN_VALUE + 1 : Long.MAX_VALUE - 1;
+        }
+    }
+
+    /**
+     * Записи без стоимости не подходят ни под какой диапазон
+     */
+    private static LongPredicate priceBetween(OffHeapArena arena, BigDecimal from, BigDecimal to) {
+        PriceBound lower = PriceBound.of(from);
+        PriceBound upper = PriceBound.of(to);
+        return offset -> {
+            long unscaled = arena.priceUnscaled(offset);
+            int scale = arena.priceScale(offset);
+            return scale != FixedPrice.NO_SCALE
+                    && (lower == null || lower.compareTo(unscaled, scale) <= 0)
+                    && (upper == null || upper.compareTo(unscaled, scale) >= 0);
+        };
+    }
+
+    private void lookup(UUID[] keys, long[] offsets) {
+        for (int i = 0; i < keys.length; i++) {
+            offsets[i] = index.get(keys[i].getMostSignificantBits(), keys[i].getLeastSignificantBits());
+        }
+    }
+
+    private Snapshot snapshot() {
+        long stamp = lock.readLock();
+        try {
+            return new Snapshot(arena, index.values());
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private static List<Product> materialize(OffHeapArena arena, LongStream offsets) {
+        return offsets.mapToObj(arena::product)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Совпадение ключа сортировки разрешается идентификатором, как в отсортированных индексах
+     */
+    private static List<Product> sorted(OffHeapArena arena, LongStream offsets, Comparator<Product> order) {
+        return offsets.mapToObj(arena::product)
+                .sorted(order.thenComparing(Product::getUuid))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Выбирает limit первых по порядку смещений с помощью ограниченной кучи на массиве long,
+     * поэтому выборка страницы не создаёт объектов на каждую просмотренную запись
+     *
+     * @return выбранные смещения в порядке comparator
+     */
+    private static long[] select(long[] offsets, LongPredicate filter, OffsetComparator comparator, int limit) {
+        long[] heap = new long[Math.min(limit, offsets.length)];
+        int size = 0;
+        for (long offset : offsets) {
+            if (!filter.test(offset)) {
+                continue;
+            }
+            if (size < heap.length) {
+                heap[size] = offset;
+                siftUp(heap, size++, comparator);
+            } else if (size > 0 && comparator.compare(offset, heap[0]) < 0) {
+                heap[0] = offset;
+                siftDown(heap, size, comparator);
+            }
+        }
+        List<Long> selected = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            selected.add(heap[i]);
+        }
+        selected.sort(comparator::compare);
+        return selected.stream()
+                .mapToLong(Long::longValue)
+                .toArray();
+    }
+
+    /**
+     * Куча с наибольшим по порядку элементом в корне
+     */
+    private static void siftUp(long[] heap, int index, OffsetComparator comparator) {
+        while (index > 0) {
+            int parent = index - 1 >>> 1;
+            if (comparator.compare(heap[index], heap[parent]) <= 0) {
+                return;
+            }
+            swap(heap, index, parent);
+            index = parent;
+        }
+    }
+
+    private static void siftDown(long[] heap, int size, OffsetComparator comparator) {
+        int index = 0;
+        while (true) {
+            int largest = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+            if (left < size && comparator.compare(heap[left], heap[largest]) > 0) {
+                largest = left;
+            }
+            if (right < size && comparator.compare(heap[right], heap[largest]) > 0) {
+                largest = right;
+            }
+            if (largest == index) {
+                return;
+            }
+            swap(heap, index, largest);
+            index = largest;
+        }
+    }
+
+    private static void swap(long[] heap, int first, int second) {
+        long value = heap[first];
+        heap[first] = heap[second];
+        heap[second] = value;
+    }
+
+    private static int compareUuid(OffHeapArena arena, long first, long second) {
+        return compareUuid(arena, first, arena.msb(second), arena.lsb(second));
+    }
+
+    /**
+     * Тот же порядок, что у {@link UUID#compareTo(UUID)}: знаковое сравнение старших, затем младших битов
+     */
+    private static int compareUuid(OffHeapArena arena, long offset, long msb, long lsb) {
+        int byMsb = Long.compare(arena.msb(offset), msb);
+        return byMsb != 0 ? byMsb : Long.compare(arena.lsb(offset), lsb);
+    }
+
+    @FunctionalInterface
+    private interface OffsetComparator {
+
+        int compare(long first, long second);
+    }
+
+    private record Snapshot(OffHeapArena arena, long[] offsets) {
+    }
+
+    /**
+     * Граница стоимости, переведённая в long и масштаб один раз на выборку.
+     * Граница, которая не помещается в long, сравнивается через {@link BigDecimal}
+     */
+    private record PriceBound(BigDecimal value, long unscaled, int scale) {
+
+        private static PriceBound of(BigDecimal value) {
+            if (value == null) {
+                return null;
+            }
+            return FixedPrice.fits(value)
+                    ? new PriceBound(null, FixedPrice.unscaled(value), value.scale())
+                    : new PriceBound(value, 0, 0);
+        }
+
+        private int compareTo(long otherUnscaled, int otherScale) {
+            return value == null
+                    ? FixedPrice.compare(unscaled, scale, otherUnscaled, otherScale)
+                    : value.compareTo(BigDecimal.valueOf(otherUnscaled, otherScale));
+        }
+    }
+}
@@ -0,0 +1,370 @@
+package ru.clevertec.product.repository.impl;
+
+import ru.clevertec.product.data.PriceStatistics;
+import ru.clevertec.product.entity.Product;
+import ru.clevertec.product.exception.ProductCanNotBeNull;
+import ru.clevertec.product.interner.StringInterner;
+import ru.clevertec.product.repository.ProductRepository;
+import ru.clevertec.product.repository.storage.FixedPrice;
+import ru.clevertec.product.repository.storage.ProductChangeListener;
+import ru.clevertec.product.repository.storage.SearchQuery;
+import ru.clevertec.product.repository.storage.TopMatches;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Делит продукты между независимыми {@link InMemoryProductRepository} по хешу идентификатора.
+ * <p>
+ * У каждой части свои записи и индексы, поэтому запись разных продуктов не делит ни сегменты таблицы,
+ * ни списки пропусков индексов, ни поисковые списки. Операции с одним продуктом идут в его часть в вызывающем
+ * потоке. Запросы по всем продуктам рассылаются частям параллельно в {@link ForkJoinPool}, а отсортированные ответы
+ * сливаются с сохранением порядка {@link InMemoryProductRepository}: ответ части уже отсортирован,
+ * поэтому слияние k списков стоит O(n log k).
+ * <p>
+ * Запросы с лимитом берут до limit продуктов из каждой части и обрезают слитый результат
+ */
+public class ShardedProductRepository implements ProductRepository {
+
+    private static final Comparator<Product> BY_UUID = Comparator.comparing(Product::getUuid);
+    private static final Comparator<Product> BY_NAME = Comparator.comparing(Product::getName).thenComparing(BY_UUID);
+    private static final Comparator<Product> BY_PRICE = Comparator.comparing(Product::getPrice).thenComparing(BY_UUID);
+    private static final Comparator<Product> BY_CREATED = Comparator.comparing(Product::getCreated).thenComparing(BY_UUID);
+
+    private final InMemoryProductRepository[] shards;
+    private final ForkJoinPool pool;
+
+    /**
+     * Одна часть на каждое доступное ядро, запросы выполняются в общем пуле
+     */
+    public ShardedProductRepository() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param shardCount количество частей
+     * @throws IllegalArgumentException если количество частей не положительное
+     */
+    public ShardedProductRepository(int shardCount) {
+        this(shardCount, StringInterner.none(), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param shardCount количество частей
+     * @param interner   общий для всех частей словарь названий и описаний
+     * @param pool       пул, в котором выполняются запросы по всем частям
+     * @throws IllegalArgumentException если количество частей не положительное
+     */
+    public ShardedProductRepository(int shardCount, StringInterner interner, ForkJoinPool pool) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("Shard count must be positive");
+        }
+        this.shards = new InMemoryProductRepository[shardCount];
+        Arrays.setAll(shards, i -> new InMemoryProductRepository(interner));
+        this.pool = pool;
+    }
+
+    @Override
+    public Optional<Product> findById(UUID uuid) {
+        return uuid == null ? Optional.empty() : shardFor(uuid).findById(uuid);
+    }
+
+    @Override
+    public List<Product> findAllById(Collection<UUID> uuids) {
+        List<UUID> ordered = uuids.stream()
+                .filter(Objects::nonNull)
+                .toList();
+        List<List<UUID>> byShard = groupByShard(ordered, uuid -> uuid);
+        Map<UUID, Product> found = new HashMap<>();
+        scatter(i -> byShard.get(i).isEmpty() ? List.<Product>of() : shards[i].findAllById(byShard.get(i)))
+                .forEach(products -> products.forEach(product -> found.put(product.getUuid(), product)));
+        return ordered.stream()
+                .map(found::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<Product> findAll() {
+        return scatter(i -> shards[i].findAll()).stream()
+                .flatMap(List::stream)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<Product> findPage(UUID after, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Page limit must be positive");
+        }
+        return merge(scatter(i -> shards[i].findPage(after, limit)), BY_UUID, limit);
+    }
+
+    @Override
+    public List<Product> findByNamePrefix(String prefix) {
+        return merge(scatter(i -> shards[i].findByNamePrefix(prefix)), BY_NAME, Long.MAX_VALUE);
+    }
+
+    /**
+     * Каждая часть отбирает свои limit лучших, общий порядок восстанавливается той же оценкой {@link TopMatches}
+     */
+    @Override
+    public List<Product> search(String query, int limit) {
+        SearchQuery parsed = SearchQuery.parse(query);
+        TopMatches<Product> top = new TopMatches<>(parsed, limit);
+        if (parsed.isEmpty()) {
+            return List.of();
+        }
+        scatter(i -> shards[i].search(query, limit)).forEach(products -> products.forEach(product ->
+                top.offer(product, product.getUuid(), product.getName(), product.getDescription())));
+        return top.toList();
+    }
+
+    @Override
+    public List<Product> findByPriceBetween(BigDecimal from, BigDecimal to) {
+        return merge(scatter(i -> shards[i].findByPriceBetween(from, to)), BY_PRICE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Статистики частей складываются: сумма точная, среднее делится так же, как в {@link InMemoryProductRepository}
+     */
+    @Override
+    public PriceStatistics priceStatistics(BigDecimal from, BigDecimal to) {
+        long count = 0;
+        BigDecimal min = null;
+        BigDecimal max = null;
+        BigDecimal sum = BigDecimal.ZERO;
+        for (PriceStatistics statistics : scatter(i -> shards[i].priceStatistics(from, to))) {
+            if (statistics.count() == 0) {
+                continue;
+            }
+            count += statistics.count();
+            min = min == null || statistics.min().compareTo(min) < 0 ? statistics.min() : min;
+            max = max == null || statistics.max().compareTo(max) > 0 ? statistics.max() : max;
+            sum = sum.add(statistics.sum());
+        }
+        return count == 0
+                ? new PriceStatistics(0, null, null, BigDecimal.ZERO, null)
+                : new PriceStatistics(count, min, max, sum, sum.divide(BigDecimal.valueOf(count), MathContext.DECIMAL128));
+    }
+
+    @Override
+    public List<Product> findCreatedBetween(LocalDateTime from, LocalDateTime to) {
+        return merge(scatter(i -> shards[i].findCreatedBetween(from, to)), BY_CREATED, Long.MAX_VALUE);
+    }
+
+    @Override
+    public List<Product> findNewest(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        return merge(scatter(i -> shards[i].findNewest(limit)), BY_CREATED.reversed(), limit);
+    }
+
+    /**
+     * Части читаются по очереди и лениво
+     */
+    @Override
+    public Stream<Product> streamAll() {
+        return Arrays.stream(shards)
+                .flatMap(InMemoryProductRepository::streamAll);
+    }
+
+    @Override
+    public long count() {
+        long count = 0;
+        for (InMemoryProductRepository shard : shards) {
+            count += shard.count();
+        }
+        return count;
+    }
+
+    @Override
+    public Product save(Product product) {
+        assignUuid(product);
+        return shardFor(product.getUuid()).save(product);
+    }
+
+    /**
+     * Проверяет всю пачку до записи, поэтому пачка с null или слишком большой стоимостью не сохраняется
+     * частично ни в одной части. Части записывают свои продукты параллельно
+     */
+    @Override
+    public List<Product> saveAll(Collection<Product> products) {
+        if (products.stream().anyMatch(Objects::isNull)) {
+            throw new ProductCanNotBeNull();
+        }
+        List<Product> ordered = List.copyOf(products);
+        ordered.forEach(product -> FixedPrice.unscaled(product.getPrice()));
+        ordered.forEach(ShardedProductRepository::assignUuid);
+        List<List<Product>> byShard = groupByShard(ordered, Product::getUuid);
+        List<Iterator<Product>> saved = scatter(i -> byShard.get(i).isEmpty()
+                ? List.<Product>of()
+                : shards[i].saveAll(byShard.get(i))).stream()
+                .map(List::iterator)
+                .toList();
+        return ordered.stream()
+                .map(product -> saved.get(indexFor(product.getUuid())).next())
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public Optional<Product> compareAndSave(Product product) {
+        assignUuid(product);
+        return shardFor(product.getUuid()).compareAndSave(product);
+    }
+
+    @Override
+    public void delete(UUID uuid) {
+        if (uuid != null) {
+            shardFor(uuid).delete(uuid);
+        }
+    }
+
+    @Override
+    public void deleteAll(Collection<UUID> uuids) {
+        List<List<UUID>> byShard = groupByShard(uuids.stream().filter(Objects::nonNull).toList(), uuid -> uuid);
+        scatter(i -> {
+            shards[i].deleteAll(byShard.get(i));
+            return null;
+        });
+    }
+
+    /**
+     * Подписывает слушателя на изменения всех частей. Изменения одного продукта приходят по порядку,
+     * изменения разных частей могут приходить одновременно из разных потоков
+     *
+     * @param listener слушатель изменений
+     */
+    public void addListener(ProductChangeListener listener) {
+        for (InMemoryProductRepository shard : shards) {
+            shard.addListener(listener);
+        }
+    }
+
+    /**
+     * @return количество частей
+     */
+    public int shardCount() {
+        return shards.length;
+    }
+
+    private InMemoryProductRepository shardFor(UUID uuid) {
+        return shards[indexFor(uuid)];
+    }
+
+    /**
+     * Финализатор SplitMix64, как в {@link ru.clevertec.product.repository.storage.UuidHashMap}: старшие биты
+     * идентификаторов, выданных по времени, почти совпадают, поэтому часть выбирается по перемешанным битам обеих половин
+     */
+    private int indexFor(UUID uuid) {
+        long h = uuid.getMostSignificantBits() ^ Long.rotateLeft(uuid.getLeastSignificantBits(), 32);
+        h = (h ^ h >>> 30) * 0xbf58476d1ce4e5b9L;
+        h = (h ^ h >>> 27) * 0x94d049bb133111ebL;
+        h ^= h >>> 31;
+        return Math.floorMod(h, shards.length);
+    }
+
+    private <T> List<List<T>> groupByShard(List<T> items, Function<T, UUID> uuid) {
+        List<List<T>> byShard = new ArrayList<>(shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            byShard.add(new ArrayList<>());
+        }
+        items.forEach(item -> byShard.get(indexFor(uuid.apply(item))).add(item));
+        return byShard;
+    }
+
+    /**
+     * Выполняет запрос во всех частях параллельно
+     *
+     * @param query запрос к части по её номеру
+     * @return ответы частей по порядку номеров
+     */
+    private <T> List<T> scatter(IntFunction<T> query) {
+        if (shards.length == 1) {
+            return Arrays.asList(query.apply(0));
+        }
+        List<ForkJoinTask<T>> tasks = new ArrayList<>(shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            int shard = i;
+            tasks.add(ForkJoinTask.adapt(() -> query.apply(shard)));
+        }
+        return pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks).stream()
+                .map(ForkJoinTask::join)
+                .toList()));
+    }
+
+    /**
+     * Сливает отсортированные ответы частей
+     *
+     * @param sorted ответы частей, каждый отсортирован по comparator
+     * @param limit  максимальное количество продуктов
+     * @return общий отсортированный список
+     */
+    private static List<Product> merge(List<List<Product>> sorted, Comparator<Product> comparator, long limit) {
+        PriorityQueue<Cursor> heads = new PriorityQueue<>(sorted.size(), (first, second) ->
+                comparator.compare(first.head, second.head));
+        int total = 0;
+        for (List<Product> products : sorted) {
+            total += products.size();
+            Cursor cursor = new Cursor(products.iterator());
+            if (cursor.advance()) {
+                heads.add(cursor);
+            }
+        }
+        List<Product> merged = new ArrayList<>((int) Math.min(total, limit));
+        while (!heads.isEmpty() && merged.size() < limit) {
+            Cursor cursor = heads.poll();
+            merged.add(cursor.head);
+            if (cursor.advance()) {
+                heads.add(cursor);
+            }
+        }
+        return merged;
+    }
+
+    private static void assignUuid(Product product) {
+        if (product == null) {
+            throw new ProductCanNotBeNull();
+        }
+        if (product.getUuid() == null) {
+            product.setUuid(UUID.randomUUID());
+        }
+    }
+
+    /**
+     * Текущий продукт одного отсортированного ответа
+     */
+    private static final class Cursor {
+
+        private final Iterator<Product> iterator;
+        private Product head;
+
+        private Cursor(Iterator<Product> iterator) {
+            this.iterator = iterator;
+        }
+
+        private boolean advance() {
+            head = iterator.hasNext() ? iterator.next() : null;
+            return head != null;
+        }
+    }
+}
@@ -0,0 +1,481 @@
+package ru.clevertec.product.repository.impl;
+
+import ru.clevertec.product.data.PriceStatistics;
+import ru.clevertec.product.entity.Product;
+import ru.clevertec.product.exception.ProductCanNotBeNull;
+import ru.clevertec.product.repository.ProductRepository;
+import ru.clevertec.product.repository.storage.ProductRecord;
+import ru.clevertec.product.repository.storage.WriteBehindConfig;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Откладывает запись в другое хранилище и склеивает повторные изменения одного продукта.
+ * <p>
+ * Изменение сначала попадает в буфер, где заменяет предыдущее изменение того же продукта, а фоновый поток
+ * сбрасывает буфер пачками {@code saveAll}/{@code deleteAll}, когда в нём набирается
+ * {@link WriteBehindConfig#batchSize()} продуктов или проходит {@link WriteBehindConfig#flushInterval()}.
+ * {@link #findById(UUID)} и {@link #findAllById(Collection)} сначала смотрят в буфер, поэтому запись сразу видна
+ * чтению. Остальные запросы сначала дожидаются сброса буфера.
+ * <p>
+ * Буфер ограничен {@link WriteBehindConfig#capacity()} продуктами: запись нового продукта в полный буфер ждёт места
+ * {@link WriteBehindConfig#offerTimeout()} и затем завершается {@link RejectedExecutionException}. Изменение
+ * продукта, уже находящегося в буфере, места не занимает.
+ * <p>
+ * Версия продукта, видимая через это хранилище, - версия нижележащего хранилища, сдвинутая на
+ * {@value #VERSION_SHIFT} бит, плюс количество склеенных изменений в младших битах. Сброс увеличивает версию
+ * нижележащего хранилища на единицу, поэтому видимая версия только растёт и никогда не повторяется,
+ * и {@link #compareAndSave(Product)} отвергает продукт, прочитанный до любого склеенного изменения.
+ * Предполагается, что в нижележащее хранилище пишет только этот экземпляр
+ */
+public class WriteBehindProductRepository implements ProductRepository, AutoCloseable {
+
+    private static final int VERSION_SHIFT = 16;
+    private static final int MAX_WRITES = (1 << VERSION_SHIFT) - 1;
+    private static final long ANY_VERSION = -1;
+
+    private final ProductRepository delegate;
+    private final WriteBehindConfig config;
+    private final ConcurrentMap<UUID, Entry> pending = new ConcurrentHashMap<>();
+    private final Semaphore permits;
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final ReentrantLock signalLock = new ReentrantLock();
+    private final Condition flushRequested = signalLock.newCondition();
+    private final Thread flusher;
+    private volatile boolean closed;
+
+    /**
+     * @param delegate хранилище, в которое сбрасываются изменения
+     * @param config   настройки буфера
+     */
+    public WriteBehindProductRepository(ProductRepository delegate, WriteBehindConfig config) {
+        this.delegate = delegate;
+        this.config = config;
+        this.permits = new Semaphore(config.capacity());
+        this.flusher = new Thread(this::flushLoop, "product-write-behind");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    @Override
+    public Optional<Product> findById(UUID uuid) {
+        Entry entry = uuid == null ? null : pending.get(uuid);
+        if (entry != null) {
+            return Optional.ofNullable(entry.toProduct());
+        }
+        return delegate.findById(uuid).map(WriteBehindProductRepository::visible);
+    }
+
+    @Override
+    public List<Product> findAllById(Collection<UUID> uuids) {
+        List<UUID> ordered = new ArrayList<>(uuids);
+        Product[] found = new Product[ordered.size()];
+        boolean[] buffered = new boolean[ordered.size()];
+        List<UUID> missing = new ArrayList<>();
+        for (int i = 0; i < found.length; i++) {
+            Entry entry = ordered.get(i) == null ? null : pending.get(ordered.get(i));
+            if (entry != null) {
+                found[i] = entry.toProduct();
+                buffered[i] = true;
+            } else {
+                missing.add(ordered.get(i));
+            }
+        }
+        Map<UUID, Product> stored = missing.isEmpty() ? Map.of() : delegate.findAllById(missing).stream()
+                .collect(Collectors.toMap(Product::getUuid, WriteBehindProductRepository::visible, (first, second) -> first));
+        List<Product> products = new ArrayList<>(found.length);
+        for (int i = 0; i < found.length; i++) {
+            Product product = buffered[i] ? found[i] : stored.get(ordered.get(i));
+            if (product != null) {
+                products.add(product);
+            }
+        }
+        return products;
+    }
+
+    @Override
+    public List<Product> findAll() {
+        flush();
+        return visible(delegate.findAll());
+    }
+
+    @Override
+    public List<Product> findPage(UUID after, int limit) {
+        flush();
+        return visible(delegate.findPage(after, limit));
+    }
+
+    @Override
+    public List<Product> findByNamePrefix(String prefix) {
+        flush();
+        return visible(delegate.findByNamePrefix(prefix));
+    }
+
+    @Override
+    public List<Product> search(String query, int limit) {
+        flush();
+        return visible(delegate.search(query, limit));
+    }
+
+    @Override
+    public List<Product> findByPriceBetween(BigDecimal from, BigDecimal to) {
+        flush();
+        return visible(delegate.findByPriceBetween(from, to));
+    }
+
+    @Override
+    public PriceStatistics priceStatistics(BigDecimal from, BigDecimal to) {
+        flush();
+        return delegate.priceStatistics(from, to);
+    }
+
+    @Override
+    public List<Product> findCreatedBetween(LocalDateTime from, LocalDateTime to) {
+        flush();
+        return visible(delegate.findCreatedBetween(from, to));
+    }
+
+    @Override
+    public List<Product> findNewest(int limit) {
+        flush();
+        return visible(delegate.findNewest(limit));
+    }
+
+    @Override
+    public Stream<Product> streamAll() {
+        flush();
+        return delegate.streamAll().map(WriteBehindProductRepository::visible);
+    }
+
+    @Override
+    public long count() {
+        flush();
+        return delegate.count();
+    }
+
+    /**
+     * @throws RejectedExecutionException если буфер полон дольше {@link WriteBehindConfig#offerTimeout()}
+     */
+    @Override
+    public Product save(Product product) {
+        ProductRecord record = prepare(product);
+        return write(record.uuid(), record, ANY_VERSION).toProduct();
+    }
+
+    /**
+     * Проверяет всю пачку до записи в буфер, поэтому пачка с null или слишком большой стоимостью не попадает
+     * в буфер частично
+     *
+     * @throws RejectedExecutionException если буфер полон дольше {@link WriteBehindConfig#offerTimeout()}
+     */
+    @Override
+    public List<Product> saveAll(Collection<Product> products) {
+        if (products.stream().anyMatch(Objects::isNull)) {
+            throw new ProductCanNotBeNull();
+        }
+        return products.stream()
+                .map(WriteBehindProductRepository::prepare)
+                .toList()
+                .stream()
+                .map(record -> write(record.uuid(), record, ANY_VERSION).toProduct())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @throws RejectedExecutionException если буфер полон дольше {@link WriteBehindConfig#offerTimeout()}
+     */
+    @Override
+    public Optional<Product> compareAndSave(Product product) {
+        ProductRecord record = prepare(product);
+        return Optional.ofNullable(write(record.uuid(), record, product.getVersion()))
+                .map(Entry::toProduct);
+    }
+
+    /**
+     * @throws RejectedExecutionException если буфер полон дольше {@link WriteBehindConfig#offerTimeout()}
+     */
+    @Override
+    public void delete(UUID uuid) {
+        if (uuid != null) {
+            write(uuid, null, ANY_VERSION);
+        }
+    }
+
+    @Override
+    public void deleteAll(Collection<UUID> uuids) {
+        uuids.forEach(this::delete);
+    }
+
+    /**
+     * Записывает в нижележащее хранилище все изменения, находившиеся в буфере на момент вызова
+     *
+     * @throws RuntimeException если нижележащее хранилище не приняло пачку, её изменения остаются в буфере
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            List<Map.Entry<UUID, Entry>> batch = new ArrayList<>(Math.min(config.batchSize(), config.capacity()));
+            for (Map.Entry<UUID, Entry> entry : pending.entrySet()) {
+                batch.add(Map.entry(entry.getKey(), entry.getValue()));
+                if (batch.size() == config.batchSize()) {
+                    writeBatch(batch);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                writeBatch(batch);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Останавливает фоновый сброс и записывает остаток буфера. Запись, принятая одновременно с закрытием,
+     * сама дожидается сброса. Нижележащее хранилище не закрывается
+     *
+     * @throws RuntimeException если нижележащее хранилище не приняло остаток буфера
+     */
+    @Override
+    public void close() {
+        closed = true;
+        requestFlush();
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    /**
+     * @param expectedVersion видимая версия, на основе которой изменён продукт, {@link #ANY_VERSION} - без проверки
+     * @return новое состояние в буфере, null если версия не совпала или удалять нечего
+     */
+    private Entry write(UUID uuid, ProductRecord record, long expectedVersion) {
+        while (true) {
+            checkOpen();
+            boolean reserved = !pending.containsKey(uuid) && reserve();
+            Write write = new Write();
+            pending.compute(uuid, (key, current) -> {
+                Entry base = current != null ? current : Entry.stored(delegate.findById(key));
+                if (expectedVersion != ANY_VERSION && expectedVersion != base.visibleVersion()
+                        || record == null && base.record() == null) {
+                    return current;
+                }
+                if (current == null && !reserved) {
+                    write.unreserved = true;
+                    return null;
+                }
+                if (base.writes() == MAX_WRITES) {
+                    write.full = true;
+                    return current;
+                }
+                write.created = current == null;
+                write.entry = base.next(record);
+                return write.entry;
+            });
+            if (reserved && !write.created) {
+                permits.release();
+            }
+            if (write.full) {
+                flush();
+            } else if (!write.unreserved) {
+                if (closed) {
+                    flush();
+                } else if (write.created && config.capacity() - permits.availablePermits() >= config.batchSize()) {
+                    requestFlush();
+                }
+                return write.entry;
+            }
+        }
+    }
+
+    /**
+     * Занимает место в буфере, при полном буфере будит фоновый сброс и ждёт
+     */
+    private boolean reserve() {
+        if (permits.tryAcquire()) {
+            return true;
+        }
+        requestFlush();
+        try {
+            if (permits.tryAcquire(config.offerTimeout().toNanos(), TimeUnit.NANOSECONDS)) {
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for write-behind buffer", e);
+        }
+        throw new RejectedExecutionException("Write-behind buffer is full");
+    }
+
+    /**
+     * Пишет пачку и убирает из буфера изменения, которые не менялись во время записи.
+     * Изменение, пришедшее во время записи, остаётся в буфере на новой версии нижележащего хранилища
+     */
+    private void writeBatch(List<Map.Entry<UUID, Entry>> batch) {
+        List<Product> saves = new ArrayList<>();
+        List<UUID> deletes = new ArrayList<>();
+        for (Map.Entry<UUID, Entry> entry : batch) {
+            if (entry.getValue().record() == null) {
+                deletes.add(entry.getKey());
+            } else {
+                saves.add(entry.getValue().record().toProduct());
+            }
+        }
+        Map<UUID, Long> versions = new HashMap<>();
+        if (!saves.isEmpty()) {
+            delegate.saveAll(saves).forEach(product -> versions.put(product.getUuid(), product.getVersion()));
+        }
+        if (!deletes.isEmpty()) {
+            delegate.deleteAll(deletes);
+        }
+        for (Map.Entry<UUID, Entry> entry : batch) {
+            long version = versions.getOrDefault(entry.getKey(), 0L);
+            boolean[] removed = new boolean[1];
+            pending.computeIfPresent(entry.getKey(), (key, current) -> {
+                removed[0] = current == entry.getValue();
+                return removed[0] ? null : current.rebase(version);
+            });
+            if (removed[0]) {
+                permits.release();
+            }
+        }
+    }
+
+    private void flushLoop() {
+        long intervalNanos = config.flushInterval().toNanos();
+        boolean failed = false;
+        while (!closed) {
+            signalLock.lock();
+            try {
+                if ((failed || config.capacity() - permits.availablePermits() < config.batchSize()) && !closed) {
+                    flushRequested.awaitNanos(intervalNanos);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                signalLock.unlock();
+            }
+            try {
+                flush();
+                failed = false;
+            } catch (RuntimeException e) {
+                // Изменения остаются в буфере и повторяются через интервал, а явный flush() получит исключение
+                failed = true;
+            }
+        }
+    }
+
+    private void requestFlush() {
+        signalLock.lock();
+        try {
+            flushRequested.signal();
+        } finally {
+            signalLock.unlock();
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Write-behind repository is closed");
+        }
+    }
+
+    /**
+     * Продукту без идентификатора, как и в {@link InMemoryProductRepository}, выдаётся случайный
+     *
+     * @return запись с нулевой версией
+     * @throws ProductCanNotBeNull      если продукт null
+     * @throws IllegalArgumentException если стоимость не помещается в long
+     */
+    private static ProductRecord prepare(Product product) {
+        if (product == null) {
+            throw new ProductCanNotBeNull();
+        }
+        if (product.getUuid() == null) {
+            product.setUuid(UUID.randomUUID());
+        }
+        return ProductRecord.of(product.getUuid(), product.getName(), product.getDescription(), product.getPrice(),
+                product.getCreated(), 0);
+    }
+
+    private static Product visible(Product product) {
+        product.setVersion(product.getVersion() << VERSION_SHIFT);
+        return product;
+    }
+
+    private static List<Product> visible(List<Product> products) {
+        products.forEach(WriteBehindProductRepository::visible);
+        return products;
+    }
+
+    /**
+     * Результат одной попытки записи в буфер
+     */
+    private static final class Write {
+
+        private Entry entry;
+        private boolean created;
+        private boolean unreserved;
+        private boolean full;
+    }
+
+    /**
+     * Состояние продукта в буфере
+     *
+     * @param record      несохранённое состояние, null если продукт удалён
+     * @param baseVersion версия продукта в нижележащем хранилище
+     * @param writes      количество склеенных изменений, 0 у состояния, прочитанного из нижележащего хранилища
+     */
+    private record Entry(ProductRecord record, long baseVersion, int writes) {
+
+        private static Entry stored(Optional<Product> product) {
+            return product.map(found -> new Entry(prepare(found), found.getVersion(), 0))
+                    .orElseGet(() -> new Entry(null, 0, 0));
+        }
+
+        /**
+         * @return видимая версия, 0 если продукта нет
+         */
+        private long visibleVersion() {
+            return record == null ? 0 : baseVersion << VERSION_SHIFT | writes;
+        }
+
+        private Entry next(ProductRecord updated) {
+            return new Entry(updated, baseVersion, writes + 1);
+        }
+
+        /**
+         * Изменение, пришедшее во время записи прежнего состояния, переносится на новую версию хранилища
+         * и остаётся отличимым от уже записанного состояния
+         */
+        private Entry rebase(long version) {
+            return new Entry(record, version, 1);
+        }
+
+        private Product toProduct() {
+            return record == null ? null : record.withVersion(visibleVersion()).toProduct();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package ru.clevertec.product.repository.storage;
+
+import java.util.UUID;
+
+/**
+ * Изменение продукта в хранилище
+ *
+ * @param sequence номер изменения, строго возрастает в пределах {@link ChangeLog}
+ * @param type     вид изменения
+ * @param before   запись до изменения, null если продукт создан
+ * @param after    запись после изменения, null если продукт удалён
+ */
+public record ChangeEvent(long sequence, Type type, ProductRecord before, ProductRecord after) {
+
+    /**
+     * @param sequence номер изменения
+     * @param before   запись до изменения, null если продукт создан
+     * @param after    запись после изменения, null если продукт удалён
+     * @return изменение с видом, определённым по наличию записей
+     */
+    public static ChangeEvent of(long sequence, ProductRecord before, ProductRecord after) {
+        Type type = before == null ? Type.CREATED : after == null ? Type.DELETED : Type.UPDATED;
+        return new ChangeEvent(sequence, type, before, after);
+    }
+
+    /**
+     * @return идентификатор изменённого продукта
+     */
+    public UUID uuid() {
+        return after == null ? before.uuid() : after.uuid();
+    }
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+}
@@ -0,0 +1,109 @@
+package ru.clevertec.product.repository.storage;
+
+import ru.clevertec.product.exception.ChangesExpiredException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Кольцевой буфер последних изменений хранилища, из которого читатели забирают изменения начиная с номера.
+ * <p>
+ * Запись не блокируется: номер изменения выдаётся атомарным счётчиком, а ячейка кольца занимается через CAS.
+ * Писатель не ждёт читателей - при заполнении буфера самые старые изменения вытесняются, и читатель,
+ * отставший больше чем на ёмкость, получает {@link ChangesExpiredException}.
+ * Изменения одного продукта приходят под его блокировкой, поэтому их номера идут в порядке применения.
+ * Номер, уже выданный, но ещё не записанный в ячейку, останавливает чтение, поэтому читатель
+ * никогда не пропускает изменение и получает их строго по возрастанию номеров
+ */
+public class ChangeLog implements ProductChangeListener {
+
+    private final AtomicReferenceArray<ChangeEvent> slots;
+    private final int mask;
+    private final AtomicLong nextSequence = new AtomicLong(1);
+
+    /**
+     * @param capacity количество хранимых изменений, округляется вверх до степени двойки
+     * @throws IllegalArgumentException если ёмкость не положительная или больше 2^30
+     */
+    public ChangeLog(int capacity) {
+        if (capacity <= 0 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Change log capacity must be in [1, 2^30]: " + capacity);
+        }
+        int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * Публикует изменение. Ячейку, которую уже занял писатель следующего круга, не перезаписывает:
+     * такое изменение и так вытеснено
+     */
+    @Override
+    public void onChange(ProductRecord before, ProductRecord after) {
+        long sequence = nextSequence.getAndIncrement();
+        ChangeEvent event = ChangeEvent.of(sequence, before, after);
+        int index = (int) sequence & mask;
+        ChangeEvent current;
+        do {
+            current = slots.get(index);
+            if (current != null && current.sequence() > sequence) {
+                return;
+            }
+        } while (!slots.compareAndSet(index, current, event));
+    }
+
+    /**
+     * @param from  номер первого читаемого изменения, обычно номер последнего прочитанного плюс один
+     * @param limit максимальное количество изменений
+     * @return изменения с номерами from, from + 1, ... без пропусков, пустой список если новых изменений нет
+     * @throws ChangesExpiredException  если изменение с номером from уже вытеснено
+     * @throws IllegalArgumentException если from или limit не положительный
+     */
+    public List<ChangeEvent> read(long from, int limit) {
+        if (from <= 0) {
+            throw new IllegalArgumentException("Sequence must be positive: " + from);
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Read limit must be positive: " + limit);
+        }
+        List<ChangeEvent> events = new ArrayList<>(Math.min(limit, slots.length()));
+        for (long sequence = from; events.size() < limit; sequence++) {
+            ChangeEvent event = slots.get((int) sequence & mask);
+            if (event == null || event.sequence() < sequence) {
+                break;
+            }
+            if (event.sequence() > sequence) {
+                if (events.isEmpty()) {
+                    throw new ChangesExpiredException(sequence, firstSequence());
+                }
+                break;
+            }
+            events.add(event);
+        }
+        return events;
+    }
+
+    /**
+     * @return номер, который получит следующее изменение. Читатель, начинающий с пустого состояния,
+     * запоминает его до чтения каталога и затем читает изменения с него
+     */
+    public long nextSequence() {
+        return nextSequence.get();
+    }
+
+    /**
+     * @return номер самого старого изменения, которое ещё можно прочитать
+     */
+    public long firstSequence() {
+        return Math.max(1, nextSequence.get() - slots.length());
+    }
+
+    /**
+     * @return количество хранимых изменений
+     */
+    public int capacity() {
+        return slots.length();
+    }
+}
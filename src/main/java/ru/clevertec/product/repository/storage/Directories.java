@@ -0,0 +1,26 @@
+package ru.clevertec.product.repository.storage;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Создание, переименование и удаление файла становятся надёжными только после fsync каталога,
+ * иначе после отключения питания каталог может не содержать уже записанный файл
+ */
+final class Directories {
+
+    private Directories() {
+    }
+
+    /**
+     * @param directory каталог, записи которого сбрасываются на диск
+     * @throws IOException если каталог не удалось открыть или сбросить
+     */
+    static void sync(Path directory) throws IOException {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package ru.clevertec.product.repository.storage;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Настройки журнала упреждающей записи и снимков
+ *
+ * @param directory         каталог журнала и снимка
+ * @param groupCommitSize   максимальное количество записей, сбрасываемых в файл одной операцией
+ * @param syncInterval      максимальный интервал между fsync, {@link Duration#ZERO} - fsync после каждой пачки
+ * @param awaitDurability   ждать ли fsync своей записи перед возвратом из метода хранилища
+ * @param snapshotThreshold количество записей журнала, после которого в фоне снимается снимок
+ */
+public record DurabilityConfig(Path directory,
+                               int groupCommitSize,
+                               Duration syncInterval,
+                               boolean awaitDurability,
+                               long snapshotThreshold) {
+
+    public DurabilityConfig {
+        if (directory == null) {
+            throw new IllegalArgumentException("Directory cannot be null");
+        }
+        if (groupCommitSize <= 0 || snapshotThreshold <= 0) {
+            throw new IllegalArgumentException("Group commit size and snapshot threshold must be positive");
+        }
+        if (syncInterval == null || syncInterval.isNegative()) {
+            throw new IllegalArgumentException("Sync interval cannot be null or negative");
+        }
+    }
+
+    /**
+     * Настройки по умолчанию: групповой fsync после каждой пачки, запись ждёт fsync,
+     * снимок каждые 100 000 записей журнала
+     *
+     * @param directory каталог журнала и снимка
+     * @return настройки
+     */
+    public static DurabilityConfig of(Path directory) {
+        return new DurabilityConfig(directory, 256, Duration.ZERO, true, 100_000);
+    }
+}
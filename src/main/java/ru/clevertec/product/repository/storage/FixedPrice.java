@@ -0,0 +1,113 @@
+package ru.clevertec.product.repository.storage;
+
+import java.math.BigDecimal;
+
+/**
+ * Стоимость с фиксированной точкой: немасштабированное значение в long и масштаб в int,
+ * то есть то же представление, что у {@link BigDecimal}, но без объекта на каждую стоимость.
+ * Масштаб сохраняется, поэтому обратное преобразование точное и 20.50 остаётся 20.50, а не 20.5.
+ * <p>
+ * Сравнение разных масштабов домножает меньший из них на степень десяти и при переполнении long
+ * определяет результат по знаку, поэтому тоже не создаёт объектов и совпадает с {@link BigDecimal#compareTo}
+ */
+public final class FixedPrice {
+
+    /**
+     * Масштаб, которым обозначается отсутствие стоимости
+     */
+    public static final int NO_SCALE = Integer.MIN_VALUE;
+
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private FixedPrice() {
+    }
+
+    /**
+     * @param price стоимость
+     * @return true если стоимость есть и её немасштабированное значение помещается в long
+     */
+    public static boolean fits(BigDecimal price) {
+        return price != null && price.scale() != NO_SCALE && price.unscaledValue().bitLength() < Long.SIZE;
+    }
+
+    /**
+     * @param price стоимость, может быть null
+     * @return немасштабированное значение, 0 если стоимости нет
+     * @throws IllegalArgumentException если значение не помещается в long
+     */
+    public static long unscaled(BigDecimal price) {
+        if (price == null) {
+            return 0;
+        }
+        if (!fits(price)) {
+            throw new IllegalArgumentException("Price does not fit into 64-bit unscaled value: " + price);
+        }
+        return price.unscaledValue().longValue();
+    }
+
+    /**
+     * @param price стоимость, может быть null
+     * @return масштаб, {@link #NO_SCALE} если стоимости нет
+     */
+    public static int scale(BigDecimal price) {
+        return price == null ? NO_SCALE : price.scale();
+    }
+
+    /**
+     * Единственное место, где стоимость снова становится {@link BigDecimal}
+     *
+     * @param unscaled немасштабированное значение
+     * @param scale    масштаб
+     * @return стоимость, null если масштаб равен {@link #NO_SCALE}
+     */
+    public static BigDecimal toBigDecimal(long unscaled, int scale) {
+        return scale == NO_SCALE ? null : BigDecimal.valueOf(unscaled, scale);
+    }
+
+    /**
+     * Сравнивает две стоимости по значению, масштаб на результат не влияет
+     *
+     * @return отрицательное число, ноль или положительное число, как у {@link BigDecimal#compareTo}
+     */
+    public static int compare(long firstUnscaled, int firstScale, long secondUnscaled, int secondScale) {
+        if (firstScale == secondScale) {
+            return Long.compare(firstUnscaled, secondUnscaled);
+        }
+        if (firstScale < secondScale) {
+            return -compare(secondUnscaled, secondScale, firstUnscaled, firstScale);
+        }
+        long difference = (long) firstScale - secondScale;
+        if (secondUnscaled == 0 || difference >= POWERS_OF_TEN.length) {
+            return secondUnscaled == 0 ? Long.signum(firstUnscaled) : secondUnscaled > 0 ? -1 : 1;
+        }
+        long power = POWERS_OF_TEN[(int) difference];
+        long high = Math.multiplyHigh(secondUnscaled, power);
+        long low = secondUnscaled * power;
+        if (high != low >> Long.SIZE - 1) {
+            return secondUnscaled > 0 ? -1 : 1;
+        }
+        return Long.compare(firstUnscaled, low);
+    }
+
+    /**
+     * Домножает значение на 10 в степени difference
+     *
+     * @throws ArithmeticException если результат не помещается в long
+     */
+    static long rescaleExact(long unscaled, long difference) {
+        if (unscaled == 0) {
+            return 0;
+        }
+        if (difference >= POWERS_OF_TEN.length) {
+            throw new ArithmeticException("long overflow");
+        }
+        return Math.multiplyExact(unscaled, POWERS_OF_TEN[(int) difference]);
+    }
+}
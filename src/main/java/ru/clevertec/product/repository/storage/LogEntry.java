@@ -0,0 +1,17 @@
+package ru.clevertec.product.repository.storage;
+
+import java.util.UUID;
+
+/**
+ * Запись журнала: новое состояние продукта или его удаление
+ *
+ * @param sequence номер записи в журнале, строго возрастает
+ * @param uuid     идентификатор продукта
+ * @param record   новое состояние продукта, null если продукт удалён
+ */
+public record LogEntry(long sequence, UUID uuid, ProductRecord record) {
+
+    public boolean isDelete() {
+        return record == null;
+    }
+}
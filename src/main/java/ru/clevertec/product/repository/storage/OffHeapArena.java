@@ -0,0 +1,364 @@
+package ru.clevertec.product.repository.storage;
+
+import ru.clevertec.product.entity.Product;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Область памяти вне кучи, в которую записи продуктов только дописываются.
+ * <p>
+ * Память выделяется кусками одного размера: прямыми буферами или, если передан каталог,
+ * отображёнными в память файлами. Запись не пересекает границу куска, смещение записи - это
+ * номер куска * размер куска + позиция в куске. Записанные байты больше не меняются, поэтому
+ * прочитать запись по смещению можно без блокировок.
+ * <p>
+ * Запись выровнена по 8 байтам и имеет фиксированный заголовок:
+ * <pre>
+ *  0 int   длина записи с выравниванием
+ *  4 int   масштаб стоимости, {@link FixedPrice#NO_SCALE} если стоимости нет
+ *  8 long  старшие биты идентификатора
+ * 16 long  младшие биты идентификатора
+ * 24 long  версия
+ * 32 long  немасштабированная стоимость
+ * 40 long  время создания в микросекундах от эпохи UTC, {@link Long#MIN_VALUE} если времени нет
+ * 48 int   длина названия в UTF-8, -1 для null
+ * 52 int   длина описания в UTF-8, -1 для null
+ * 56       байты названия и описания
+ * </pre>
+ * Файлы кусков - только место под данные: они удаляются при {@link #close()} и не переживают перезапуск
+ */
+public class OffHeapArena implements AutoCloseable {
+
+    private static final int LENGTH = 0;
+    private static final int SCALE = 4;
+    private static final int MSB = 8;
+    private static final int LSB = 16;
+    private static final int VERSION = 24;
+    private static final int UNSCALED = 32;
+    private static final int CREATED = 40;
+    private static final int NAME_LENGTH = 48;
+    private static final int DESCRIPTION_LENGTH = 52;
+    private static final int HEADER = 56;
+    private static final long NO_CREATED = Long.MIN_VALUE;
+    private static final long MICROS_PER_SECOND = 1_000_000;
+
+    private final int chunkSize;
+    private final Path directory;
+    private final List<Path> files = new ArrayList<>();
+    private volatile ByteBuffer[] chunks = new ByteBuffer[0];
+    private long position;
+
+    /**
+     * @param chunkSize размер куска в байтах, кратный 8, не меньше 4096
+     * @param directory каталог для файлов кусков, null для прямых буферов
+     * @throws IllegalArgumentException если размер куска неверный
+     */
+    public OffHeapArena(int chunkSize, Path directory) {
+        if (chunkSize < 4096 || chunkSize % Long.BYTES != 0) {
+            throw new IllegalArgumentException("Chunk size must be a multiple of 8 not less than 4096");
+        }
+        this.chunkSize = chunkSize;
+        this.directory = directory;
+    }
+
+    /**
+     * Кодирует продукт в запись с нулевой версией. Вызывается до взятия блокировки писателя,
+     * поэтому кодирование строк не удлиняет критическую секцию
+     *
+     * @param product продукт с идентификатором
+     * @return байты записи
+     * @throws IllegalArgumentException если стоимость не помещается в long или время создания - в микросекунды long
+     */
+    public static byte[] encode(Product product) {
+        byte[] name = bytes(product.getName());
+        byte[] description = bytes(product.getDescription());
+        int length = align(HEADER + (name == null ? 0 : name.length) + (description == null ? 0 : description.length));
+        ByteBuffer record = ByteBuffer.allocate(length).order(ByteOrder.nativeOrder());
+        record.putInt(LENGTH, length);
+        record.putInt(SCALE, FixedPrice.scale(product.getPrice()));
+        record.putLong(UNSCALED, FixedPrice.unscaled(product.getPrice()));
+        record.putLong(MSB, product.getUuid().getMostSignificantBits());
+        record.putLong(LSB, product.getUuid().getLeastSignificantBits());
+        record.putLong(CREATED, product.getCreated() == null ? NO_CREATED : micros(product.getCreated()));
+        record.putInt(NAME_LENGTH, name == null ? -1 : name.length);
+        record.putInt(DESCRIPTION_LENGTH, description == null ? -1 : description.length);
+        record.position(HEADER);
+        if (name != null) {
+            record.put(name);
+        }
+        if (description != null) {
+            record.put(description);
+        }
+        return record.array();
+    }
+
+    /**
+     * Дописывает запись, должен вызываться под блокировкой писателя
+     *
+     * @param record  байты записи из {@link #encode(Product)}
+     * @param version версия записи
+     * @return смещение записи
+     * @throws IllegalArgumentException если запись больше куска
+     * @throws UncheckedIOException     если не удалось создать файл куска
+     */
+    public long append(byte[] record, long version) {
+        if (record.length > chunkSize) {
+            throw new IllegalArgumentException("Product of " + record.length + " bytes does not fit into a chunk");
+        }
+        long offset = reserve(record.length);
+        ByteBuffer chunk = chunk(offset);
+        int at = position(offset);
+        chunk.put(at, record);
+        chunk.putLong(at + VERSION, version);
+        return offset;
+    }
+
+    /**
+     * Копирует запись из другой области, например при уплотнении
+     *
+     * @param source область, в которой лежит запись
+     * @param offset смещение записи в source
+     * @return смещение копии
+     */
+    public long copy(OffHeapArena source, long offset) {
+        int length = source.length(offset);
+        long copied = reserve(length);
+        chunk(copied).put(position(copied), source.chunk(offset), source.position(offset), length);
+        return copied;
+    }
+
+    /**
+     * @return количество занятых байт, включая неиспользованные хвосты кусков
+     */
+    public long used() {
+        return position;
+    }
+
+    /**
+     * @return размер куска в байтах
+     */
+    public int chunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * @return новая пустая область с теми же настройками
+     */
+    public OffHeapArena emptyCopy() {
+        return new OffHeapArena(chunkSize, directory);
+    }
+
+    /**
+     * Создаёт продукт по записи, единственное место, где запись превращается в объекты кучи
+     *
+     * @param offset смещение записи
+     * @return новый продукт
+     */
+    public Product product(long offset) {
+        ByteBuffer chunk = chunk(offset);
+        int at = position(offset);
+        int nameLength = chunk.getInt(at + NAME_LENGTH);
+        int descriptionLength = chunk.getInt(at + DESCRIPTION_LENGTH);
+        int text = at + HEADER;
+        String name = string(chunk, text, nameLength);
+        String description = string(chunk, text + Math.max(nameLength, 0), descriptionLength);
+        return new Product(uuid(offset), name, description, price(offset), created(offset), version(offset));
+    }
+
+    public int length(long offset) {
+        return chunk(offset).getInt(position(offset) + LENGTH);
+    }
+
+    public long msb(long offset) {
+        return chunk(offset).getLong(position(offset) + MSB);
+    }
+
+    public long lsb(long offset) {
+        return chunk(offset).getLong(position(offset) + LSB);
+    }
+
+    public UUID uuid(long offset) {
+        return new UUID(msb(offset), lsb(offset));
+    }
+
+    public long version(long offset) {
+        return chunk(offset).getLong(position(offset) + VERSION);
+    }
+
+    /**
+     * @param offset смещение записи
+     * @return стоимость, null если её нет
+     */
+    public BigDecimal price(long offset) {
+        return FixedPrice.toBigDecimal(priceUnscaled(offset), priceScale(offset));
+    }
+
+    public long priceUnscaled(long offset) {
+        return chunk(offset).getLong(position(offset) + UNSCALED);
+    }
+
+    /**
+     * @param offset смещение записи
+     * @return масштаб стоимости, {@link FixedPrice#NO_SCALE} если её нет
+     */
+    public int priceScale(long offset) {
+        return chunk(offset).getInt(position(offset) + SCALE);
+    }
+
+    /**
+     * @param offset смещение записи
+     * @return время создания в микросекундах от эпохи UTC, {@link Long#MIN_VALUE} если его нет
+     */
+    public long createdMicros(long offset) {
+        return chunk(offset).getLong(position(offset) + CREATED);
+    }
+
+    /**
+     * @param offset смещение записи
+     * @return время создания, null если его нет
+     */
+    public LocalDateTime created(long offset) {
+        long micros = createdMicros(offset);
+        if (micros == NO_CREATED) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, MICROS_PER_SECOND),
+                (int) Math.floorMod(micros, MICROS_PER_SECOND) * 1000, ZoneOffset.UTC);
+    }
+
+    /**
+     * Сравнивает байты названия с префиксом без декодирования строки
+     *
+     * @param offset смещение записи
+     * @param prefix префикс в UTF-8
+     * @return true если название есть и начинается с префикса
+     */
+    public boolean nameStartsWith(long offset, byte[] prefix) {
+        ByteBuffer chunk = chunk(offset);
+        int at = position(offset);
+        if (chunk.getInt(at + NAME_LENGTH) < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (chunk.get(at + HEADER + i) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param offset смещение записи
+     * @return название, null если его нет
+     */
+    public String name(long offset) {
+        ByteBuffer chunk = chunk(offset);
+        int at = position(offset);
+        return string(chunk, at + HEADER, chunk.getInt(at + NAME_LENGTH));
+    }
+
+    /**
+     * Время создания с точностью до микросекунд, наносекунды отбрасываются
+     *
+     * @param created время создания
+     * @return микросекунды от эпохи UTC
+     * @throws IllegalArgumentException если время не помещается в long
+     */
+    public static long micros(LocalDateTime created) {
+        try {
+            return Math.addExact(Math.multiplyExact(created.toEpochSecond(ZoneOffset.UTC), MICROS_PER_SECOND),
+                    created.getNano() / 1000);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Creation time is out of range: " + created, e);
+        }
+    }
+
+    /**
+     * Удаляет файлы кусков. Уже отображённая память остаётся доступной читателям до сборки мусора
+     *
+     * @throws UncheckedIOException если файл не удалось удалить
+     */
+    @Override
+    public void close() {
+        try {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+            files.clear();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private long reserve(int length) {
+        long end = (long) chunks.length * chunkSize;
+        if (end - position < length) {
+            position = end;
+            addChunk();
+        }
+        long offset = position;
+        position += length;
+        return offset;
+    }
+
+    private void addChunk() {
+        ByteBuffer chunk;
+        if (directory == null) {
+            chunk = ByteBuffer.allocateDirect(chunkSize);
+        } else {
+            try {
+                Files.createDirectories(directory);
+                Path file = Files.createTempFile(directory, "products-", ".chunk");
+                files.add(file);
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                    chunk = channel.map(FileChannel.MapMode.READ_WRITE, 0, chunkSize);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        ByteBuffer[] grown = Arrays.copyOf(chunks, chunks.length + 1);
+        grown[chunks.length] = chunk.order(ByteOrder.nativeOrder());
+        chunks = grown;
+    }
+
+    private ByteBuffer chunk(long offset) {
+        return chunks[(int) (offset / chunkSize)];
+    }
+
+    private int position(long offset) {
+        return (int) (offset % chunkSize);
+    }
+
+    private static String string(ByteBuffer chunk, int at, int length) {
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        chunk.get(at, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] bytes(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int align(int length) {
+        return length + Long.BYTES - 1 & -Long.BYTES;
+    }
+}
@@ -0,0 +1,229 @@
+package ru.clevertec.product.repository.storage;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Хеш-таблица с открытой адресацией из идентификатора продукта в смещение записи, целиком лежащая вне кучи.
+ * <p>
+ * Ячейка занимает 24 байта: две половины идентификатора и смещение + 1 (0 означает пустую ячейку).
+ * Коллизии разрешаются линейным пробированием, удаление сдвигает следующие ячейки назад,
+ * поэтому таблица не копит удалённые ячейки. Заполненность не превышает 70%.
+ * <p>
+ * Таблица не потокобезопасна: запись должна идти под внешней блокировкой. Чтение без блокировки
+ * всегда завершается и не выходит за пределы буфера, но результат нужно проверить по той же блокировке
+ */
+public class OffHeapIndex {
+
+    public static final long ABSENT = -1;
+
+    private static final int SLOT = 24;
+    private static final int MSB = 0;
+    private static final int LSB = 8;
+    private static final int VALUE = 16;
+    private static final int MAX_CAPACITY = Integer.highestOneBit(Integer.MAX_VALUE / SLOT);
+
+    private volatile ByteBuffer slots;
+    private int size;
+
+    /**
+     * @param expectedSize ожидаемое количество записей
+     */
+    public OffHeapIndex(int expectedSize) {
+        this.slots = allocate(capacityFor(expectedSize));
+    }
+
+    /**
+     * @param msb старшие биты идентификатора
+     * @param lsb младшие биты идентификатора
+     * @return смещение записи или {@link #ABSENT}
+     */
+    public long get(long msb, long lsb) {
+        ByteBuffer table = slots;
+        int capacity = table.capacity() / SLOT;
+        int mask = capacity - 1;
+        int slot = hash(msb, lsb) & mask;
+        for (int probes = 0; probes < capacity; probes++, slot = slot + 1 & mask) {
+            int position = slot * SLOT;
+            long value = table.getLong(position + VALUE);
+            if (value == 0) {
+                return ABSENT;
+            }
+            if (table.getLong(position + MSB) == msb && table.getLong(position + LSB) == lsb) {
+                return value - 1;
+            }
+        }
+        return ABSENT;
+    }
+
+    /**
+     * @param msb    старшие биты идентификатора
+     * @param lsb    младшие биты идентификатора
+     * @param offset смещение записи
+     * @return предыдущее смещение или {@link #ABSENT}
+     * @throws IllegalStateException если таблица достигла предельного размера
+     */
+    public long put(long msb, long lsb, long offset) {
+        ByteBuffer table = slots;
+        int mask = table.capacity() / SLOT - 1;
+        int slot = hash(msb, lsb) & mask;
+        while (true) {
+            int position = slot * SLOT;
+            long value = table.getLong(position + VALUE);
+            if (value == 0) {
+                break;
+            }
+            if (table.getLong(position + MSB) == msb && table.getLong(position + LSB) == lsb) {
+                table.putLong(position + VALUE, offset + 1);
+                return value - 1;
+            }
+            slot = slot + 1 & mask;
+        }
+        if ((long) (size + 1) * 10 > (long) (mask + 1) * 7) {
+            grow();
+            return put(msb, lsb, offset);
+        }
+        int position = slot * SLOT;
+        table.putLong(position + MSB, msb);
+        table.putLong(position + LSB, lsb);
+        table.putLong(position + VALUE, offset + 1);
+        size++;
+        return ABSENT;
+    }
+
+    /**
+     * @param msb старшие биты идентификатора
+     * @param lsb младшие биты идентификатора
+     * @return удалённое смещение или {@link #ABSENT}
+     */
+    public long remove(long msb, long lsb) {
+        ByteBuffer table = slots;
+        int mask = table.capacity() / SLOT - 1;
+        int slot = hash(msb, lsb) & mask;
+        while (true) {
+            int position = slot * SLOT;
+            long value = table.getLong(position + VALUE);
+            if (value == 0) {
+                return ABSENT;
+            }
+            if (table.getLong(position + MSB) == msb && table.getLong(position + LSB) == lsb) {
+                shiftBack(table, slot, mask);
+                size--;
+                return value - 1;
+            }
+            slot = slot + 1 & mask;
+        }
+    }
+
+    /**
+     * @return количество записей
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return смещения всех записей в порядке ячеек
+     */
+    public long[] values() {
+        ByteBuffer table = slots;
+        long[] values = new long[size];
+        int count = 0;
+        for (int position = VALUE; position < table.capacity(); position += SLOT) {
+            long value = table.getLong(position);
+            if (value != 0) {
+                values[count++] = value - 1;
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Заменяет все смещения, например после переноса записей в новую область памяти
+     *
+     * @param mapping новое смещение по старому
+     */
+    public void replaceValues(LongUnaryOperator mapping) {
+        ByteBuffer table = slots;
+        for (int position = VALUE; position < table.capacity(); position += SLOT) {
+            long value = table.getLong(position);
+            if (value != 0) {
+                table.putLong(position, mapping.applyAsLong(value - 1) + 1);
+            }
+        }
+    }
+
+    /**
+     * Удаление без отметок: следующие ячейки той же цепочки сдвигаются на освободившееся место,
+     * если их исходная ячейка не лежит циклически между освободившейся и текущей
+     */
+    private static void shiftBack(ByteBuffer table, int slot, int mask) {
+        int free = slot;
+        int current = slot;
+        while (true) {
+            current = current + 1 & mask;
+            int position = current * SLOT;
+            if (table.getLong(position + VALUE) == 0) {
+                break;
+            }
+            int home = hash(table.getLong(position + MSB), table.getLong(position + LSB)) & mask;
+            boolean stays = free <= current
+                    ? free < home && home <= current
+                    : free < home || home <= current;
+            if (!stays) {
+                int target = free * SLOT;
+                table.putLong(target + MSB, table.getLong(position + MSB));
+                table.putLong(target + LSB, table.getLong(position + LSB));
+                table.putLong(target + VALUE, table.getLong(position + VALUE));
+                free = current;
+            }
+        }
+        table.putLong(free * SLOT + VALUE, 0);
+    }
+
+    private void grow() {
+        ByteBuffer table = slots;
+        int capacity = table.capacity() / SLOT;
+        if (capacity >= MAX_CAPACITY) {
+            throw new IllegalStateException("Off-heap index is full: " + size + " entries");
+        }
+        ByteBuffer grown = allocate(capacity << 1);
+        int mask = (capacity << 1) - 1;
+        for (int position = 0; position < table.capacity(); position += SLOT) {
+            long value = table.getLong(position + VALUE);
+            if (value != 0) {
+                long msb = table.getLong(position + MSB);
+                long lsb = table.getLong(position + LSB);
+                int slot = hash(msb, lsb) & mask;
+                while (grown.getLong(slot * SLOT + VALUE) != 0) {
+                    slot = slot + 1 & mask;
+                }
+                grown.putLong(slot * SLOT + MSB, msb);
+                grown.putLong(slot * SLOT + LSB, lsb);
+                grown.putLong(slot * SLOT + VALUE, value);
+            }
+        }
+        slots = grown;
+    }
+
+    private static int capacityFor(int expectedSize) {
+        long required = Math.max(16, (long) Math.ceil(expectedSize / 0.7));
+        long capacity = Long.highestOneBit(required - 1) << 1;
+        return (int) Math.min(capacity, MAX_CAPACITY);
+    }
+
+    private static ByteBuffer allocate(int capacity) {
+        return ByteBuffer.allocateDirect(capacity * SLOT).order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Финализатор SplitMix64: идентификаторы версии 7 отличаются в основном старшими битами времени
+     */
+    private static int hash(long msb, long lsb) {
+        long h = msb ^ Long.rotateLeft(lsb, 32);
+        h = (h ^ h >>> 30) * 0xbf58476d1ce4e5b9L;
+        h = (h ^ h >>> 27) * 0x94d049bb133111ebL;
+        return (int) (h ^ h >>> 31);
+    }
+}
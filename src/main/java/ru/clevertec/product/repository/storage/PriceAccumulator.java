@@ -0,0 +1,83 @@
+package ru.clevertec.product.repository.storage;
+
+import ru.clevertec.product.data.PriceStatistics;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Arrays;
+
+/**
+ * Собирает стоимости в два параллельных массива (немасштабированные значения и масштабы)
+ * и считает по ним минимум, максимум, сумму и среднее.
+ * <p>
+ * Минимум и максимум ищутся сравнением {@link FixedPrice#compare} без создания объектов.
+ * Сумма считается в long с общим наибольшим масштабом, и только если она переполняет long,
+ * пересчитывается в {@link BigDecimal}. Объекты {@link BigDecimal} создаются лишь для итога.
+ * Не потокобезопасен: один аккумулятор заполняется одним потоком
+ */
+public class PriceAccumulator {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private long[] unscaled = new long[INITIAL_CAPACITY];
+    private int[] scales = new int[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * @param unscaled немасштабированное значение стоимости
+     * @param scale    масштаб, {@link FixedPrice#NO_SCALE} пропускается
+     */
+    public void add(long unscaled, int scale) {
+        if (scale == FixedPrice.NO_SCALE) {
+            return;
+        }
+        if (size == this.unscaled.length) {
+            this.unscaled = Arrays.copyOf(this.unscaled, size << 1);
+            this.scales = Arrays.copyOf(this.scales, size << 1);
+        }
+        this.unscaled[size] = unscaled;
+        this.scales[size] = scale;
+        size++;
+    }
+
+    /**
+     * @return статистика по добавленным стоимостям
+     */
+    public PriceStatistics toStatistics() {
+        if (size == 0) {
+            return new PriceStatistics(0, null, null, BigDecimal.ZERO, null);
+        }
+        int min = 0;
+        int max = 0;
+        int maxScale = scales[0];
+        for (int i = 1; i < size; i++) {
+            if (FixedPrice.compare(unscaled[i], scales[i], unscaled[min], scales[min]) < 0) {
+                min = i;
+            }
+            if (FixedPrice.compare(unscaled[i], scales[i], unscaled[max], scales[max]) > 0) {
+                max = i;
+            }
+            maxScale = Math.max(maxScale, scales[i]);
+        }
+        BigDecimal sum = sum(maxScale);
+        return new PriceStatistics(size, FixedPrice.toBigDecimal(unscaled[min], scales[min]),
+                FixedPrice.toBigDecimal(unscaled[max], scales[max]), sum,
+                sum.divide(BigDecimal.valueOf(size), MathContext.DECIMAL128));
+    }
+
+    private BigDecimal sum(int scale) {
+        try {
+            long total = 0;
+            for (int i = 0; i < size; i++) {
+                total = Math.addExact(total, FixedPrice.rescaleExact(unscaled[i], (long) scale - scales[i]));
+            }
+            return BigDecimal.valueOf(total, scale);
+        } catch (ArithmeticException e) {
+            BigDecimal total = BigDecimal.valueOf(0, scale);
+            for (int i = 0; i < size; i++) {
+                total = total.add(BigDecimal.valueOf(unscaled[i], scales[i]));
+            }
+            return total;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package ru.clevertec.product.repository.storage;
+
+import ru.clevertec.product.data.PriceStatistics;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.NavigableSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Stream;
+
+/**
+ * Вторичный индекс по стоимости. В отличие от {@link SortedIndex} хранит стоимость в самом элементе
+ * как long и масштаб, поэтому сравнение элементов не обращается к {@link BigDecimal}, а статистика по диапазону
+ * считается прямо по элементам индекса, без поиска самих записей. Записи без стоимости в индекс не попадают
+ */
+public class PriceIndex {
+
+    private static final UUID MIN_UUID = new UUID(Long.MIN_VALUE, Long.MIN_VALUE);
+    private static final UUID MAX_UUID = new UUID(Long.MAX_VALUE, Long.MAX_VALUE);
+
+    private final NavigableSet<Entry> entries = new ConcurrentSkipListSet<>(Comparator.<Entry>naturalOrder()
+            .thenComparing(Entry::uuid));
+
+    /**
+     * Переносит запись в индексе, должен вызываться под блокировкой идентификатора записи.
+     * Стоимость с другим масштабом переиндексируется, чтобы статистика видела точное значение записи
+     *
+     * @param current текущая запись, null если записи не было
+     * @param updated новая запись, null при удалении
+     */
+    public void update(ProductRecord current, ProductRecord updated) {
+        boolean indexed = current != null && current.hasPrice();
+        boolean indexing = updated != null && updated.hasPrice();
+        if (indexed && indexing && current.priceUnscaled() == updated.priceUnscaled()
+                && current.priceScale() == updated.priceScale()) {
+            return;
+        }
+        if (indexed) {
+            entries.remove(new Entry(current.priceUnscaled(), current.priceScale(), null, current.uuid()));
+        }
+        if (indexing) {
+            entries.add(new Entry(updated.priceUnscaled(), updated.priceScale(), null, updated.uuid()));
+        }
+    }
+
+    /**
+     * Идентификаторы записей со стоимостью в диапазоне включительно, в порядке возрастания стоимости
+     *
+     * @param from нижняя граница, null если не ограничена
+     * @param to   верхняя граница, null если не ограничена
+     * @return поток идентификаторов, пустой если диапазон пустой
+     */
+    public Stream<UUID> range(BigDecimal from, BigDecimal to) {
+        return entries(from, to).stream()
+                .map(Entry::uuid);
+    }
+
+    /**
+     * @param from нижняя граница, null если не ограничена
+     * @param to   верхняя граница, null если не ограничена
+     * @return статистика по стоимостям из диапазона включительно
+     */
+    public PriceStatistics statistics(BigDecimal from, BigDecimal to) {
+        PriceAccumulator accumulator = new PriceAccumulator();
+        for (Entry entry : entries(from, to)) {
+            accumulator.add(entry.unscaled(), entry.scale());
+        }
+        return accumulator.toStatistics();
+    }
+
+    private NavigableSet<Entry> entries(BigDecimal from, BigDecimal to) {
+        if (from != null && to != null && from.compareTo(to) > 0) {
+            return Collections.emptyNavigableSet();
+        }
+        NavigableSet<Entry> range = entries;
+        if (from != null) {
+            range = range.tailSet(Entry.bound(from, MIN_UUID), true);
+        }
+        if (to != null) {
+            range = range.headSet(Entry.bound(to, MAX_UUID), true);
+        }
+        return range;
+    }
+
+    /**
+     * Граница диапазона, которая не помещается в long, хранится как {@link BigDecimal} в поле wide
+     * и сравнивается медленным путём, у элементов индекса это поле всегда null
+     */
+    private record Entry(long unscaled, int scale, BigDecimal wide, UUID uuid) implements Comparable<Entry> {
+
+        private static Entry bound(BigDecimal price, UUID uuid) {
+            return FixedPrice.fits(price)
+                    ? new Entry(FixedPrice.unscaled(price), price.scale(), null, uuid)
+                    : new Entry(0, 0, price, uuid);
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            if (wide == null && other.wide == null) {
+                return FixedPrice.compare(unscaled, scale, other.unscaled, other.scale);
+            }
+            return price().compareTo(other.price());
+        }
+
+        private BigDecimal price() {
+            return wide != null ? wide : BigDecimal.valueOf(unscaled, scale);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package ru.clevertec.product.repository.storage;
+
+/**
+ * Получает каждое изменение записи в хранилище.
+ * Вызывается под блокировкой изменяемого идентификатора, поэтому изменения одного продукта
+ * приходят строго в порядке применения. Реализация должна быть быстрой и не обращаться к хранилищу
+ */
+@FunctionalInterface
+public interface ProductChangeListener {
+
+    /**
+     * @param before запись до изменения, null если продукт создан
+     * @param after  запись после изменения, null если продукт удалён
+     */
+    void onChange(ProductRecord before, ProductRecord after);
+}
@@ -0,0 +1,206 @@
+package ru.clevertec.product.repository.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+import java.util.zip.CRC32;
+
+/**
+ * Компактное двоичное представление записей журнала и снимка.
+ * <p>
+ * Кадр: длина тела (int), тело, CRC32 тела (int). Тело: номер записи (long), операция (byte),
+ * идентификатор (два long) и для сохранения - версия (long), название и описание (длина + UTF-8, -1 для null),
+ * стоимость (масштаб int + длина и байты немасштабированного значения), время создания (секунды UTC long + наносекунды int).
+ * Оборванный или повреждённый кадр в конце файла распознаётся по длине и контрольной сумме
+ */
+public final class ProductCodec {
+
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+    private static final int MAX_FRAME = 1 << 20;
+    private static final int MAX_FIXED_BODY = Long.BYTES + Byte.BYTES + 2 * Long.BYTES + Long.BYTES + 2 * Integer.BYTES
+            + Integer.BYTES + Short.BYTES + Long.BYTES + Long.BYTES + Integer.BYTES;
+
+    private ProductCodec() {
+    }
+
+    /**
+     * Проверяет размер записи до того, как она попадёт в журнал: кадр больше {@value #MAX_FRAME} байт
+     * при чтении неотличим от повреждённого, и восстановление отбросило бы его вместе со всеми следующими записями
+     *
+     * @param name        название продукта
+     * @param description описание продукта
+     * @throws IllegalArgumentException если запись с такими текстами не помещается в кадр
+     */
+    public static void requireFits(String name, String description) {
+        long size = MAX_FIXED_BODY + utf8Length(name) + utf8Length(description);
+        if (size > MAX_FRAME) {
+            throw new IllegalArgumentException("Product of " + size + " bytes does not fit into a log frame of "
+                    + MAX_FRAME + " bytes");
+        }
+    }
+
+    /**
+     * @param entry запись журнала
+     * @return кадр, готовый к записи в файл
+     * @throws IllegalArgumentException если запись не помещается в кадр
+     */
+    public static byte[] encode(LogEntry entry) {
+        try {
+            ByteArrayOutputStream body = new ByteArrayOutputStream(128);
+            DataOutputStream out = new DataOutputStream(body);
+            out.writeLong(entry.sequence());
+            out.writeByte(entry.isDelete() ? DELETE : PUT);
+            out.writeLong(entry.uuid().getMostSignificantBits());
+            out.writeLong(entry.uuid().getLeastSignificantBits());
+            if (!entry.isDelete()) {
+                writeRecord(out, entry.record());
+            }
+            byte[] bytes = body.toByteArray();
+            if (bytes.length > MAX_FRAME) {
+                throw new IllegalArgumentException("Product of " + bytes.length + " bytes does not fit into a log frame of "
+                        + MAX_FRAME + " bytes");
+            }
+            CRC32 crc = new CRC32();
+            crc.update(bytes);
+            ByteArrayOutputStream frame = new ByteArrayOutputStream(bytes.length + 2 * Integer.BYTES);
+            DataOutputStream frameOut = new DataOutputStream(frame);
+            frameOut.writeInt(bytes.length);
+            frameOut.write(bytes);
+            frameOut.writeInt((int) crc.getValue());
+            return frame.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Читает следующий кадр
+     *
+     * @param in поток кадров
+     * @return запись журнала, null если поток закончился ровно на границе кадра
+     * @throws IOException если кадр оборван или повреждён
+     */
+    public static LogEntry decode(DataInputStream in) throws IOException {
+        int first = in.read();
+        if (first < 0) {
+            return null;
+        }
+        int length = first << 24 | in.readUnsignedByte() << 16 | in.readUnsignedByte() << 8 | in.readUnsignedByte();
+        if (length <= 0 || length > MAX_FRAME) {
+            throw new IOException("Corrupted frame length: " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        int expectedCrc = in.readInt();
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        if ((int) crc.getValue() != expectedCrc) {
+            throw new IOException("Frame checksum mismatch");
+        }
+        DataInputStream body = new DataInputStream(new ByteArrayInputStream(bytes));
+        long sequence = body.readLong();
+        byte operation = body.readByte();
+        UUID uuid = new UUID(body.readLong(), body.readLong());
+        return switch (operation) {
+            case PUT -> new LogEntry(sequence, uuid, readRecord(body, uuid));
+            case DELETE -> new LogEntry(sequence, uuid, null);
+            default -> throw new IOException("Unknown operation: " + operation);
+        };
+    }
+
+    private static void writeRecord(DataOutput out, ProductRecord record) throws IOException {
+        out.writeLong(record.version());
+        writeString(out, record.name());
+        writeString(out, record.description());
+        if (!record.hasPrice()) {
+            out.writeInt(FixedPrice.NO_SCALE);
+        } else {
+            out.writeInt(record.priceScale());
+            byte[] unscaled = BigInteger.valueOf(record.priceUnscaled()).toByteArray();
+            out.writeShort(unscaled.length);
+            out.write(unscaled);
+        }
+        if (record.created() == null) {
+            out.writeLong(Long.MIN_VALUE);
+        } else {
+            out.writeLong(record.created().toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(record.created().getNano());
+        }
+    }
+
+    private static ProductRecord readRecord(DataInput in, UUID uuid) throws IOException {
+        long version = in.readLong();
+        String name = readString(in);
+        String description = readString(in);
+        BigDecimal price = null;
+        int scale = in.readInt();
+        if (scale != FixedPrice.NO_SCALE) {
+            byte[] unscaled = new byte[in.readUnsignedShort()];
+            in.readFully(unscaled);
+            price = new BigDecimal(new BigInteger(unscaled), scale);
+        }
+        LocalDateTime created = null;
+        long epochSecond = in.readLong();
+        if (epochSecond != Long.MIN_VALUE) {
+            created = LocalDateTime.ofEpochSecond(epochSecond, in.readInt(), ZoneOffset.UTC);
+        }
+        return ProductRecord.of(uuid, name, description, price, created, version);
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static long utf8Length(String value) {
+        if (value == null) {
+            return 0;
+        }
+        long length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > MAX_FRAME) {
+            throw new EOFException("Corrupted string length: " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
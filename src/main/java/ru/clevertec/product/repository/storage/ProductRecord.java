@@ -0,0 +1,71 @@
+package ru.clevertec.product.repository.storage;
+
+import ru.clevertec.product.entity.Product;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Неизменяемое представление продукта внутри хранилища.
+ * Все поля неизменяемы, поэтому запись можно отдавать читателям без копирования,
+ * а обновление продукта - это атомарная замена одной записи на другую.
+ * <p>
+ * Стоимость хранится как {@link FixedPrice}: запись не держит объект {@link BigDecimal},
+ * а {@link #price()} создаёт его только при выдаче наружу
+ *
+ * @param uuid          идентификатор продукта
+ * @param name          название продукта
+ * @param description   описание продукта
+ * @param priceUnscaled немасштабированная стоимость продукта
+ * @param priceScale    масштаб стоимости, {@link FixedPrice#NO_SCALE} если стоимости нет
+ * @param created       время создания продукта
+ * @param version       номер версии, увеличивается при каждой замене записи
+ */
+public record ProductRecord(UUID uuid,
+                            String name,
+                            String description,
+                            long priceUnscaled,
+                            int priceScale,
+                            LocalDateTime created,
+                            long version) {
+
+    /**
+     * @param price стоимость продукта, может быть null
+     * @return запись со стоимостью в виде {@link FixedPrice}
+     * @throws IllegalArgumentException если стоимость не помещается в long
+     */
+    public static ProductRecord of(UUID uuid, String name, String description, BigDecimal price,
+                                   LocalDateTime created, long version) {
+        return new ProductRecord(uuid, name, description, FixedPrice.unscaled(price), FixedPrice.scale(price),
+                created, version);
+    }
+
+    /**
+     * @return стоимость продукта, null если её нет
+     */
+    public BigDecimal price() {
+        return FixedPrice.toBigDecimal(priceUnscaled, priceScale);
+    }
+
+    public boolean hasPrice() {
+        return priceScale != FixedPrice.NO_SCALE;
+    }
+
+    /**
+     * @param version версия новой записи
+     * @return та же запись с другой версией
+     */
+    public ProductRecord withVersion(long version) {
+        return new ProductRecord(uuid, name, description, priceUnscaled, priceScale, created, version);
+    }
+
+    /**
+     * Создаёт новый изменяемый продукт, не связанный с хранилищем
+     *
+     * @return продукт с данными записи
+     */
+    public Product toProduct() {
+        return new Product(uuid, name, description, price(), created, version);
+    }
+}
@@ -0,0 +1,313 @@
+package ru.clevertec.product.repository.storage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Function;
+
+/**
+ * Обратный индекс по триграммам названия и описания, а также по началам слов короче триграммы.
+ * <p>
+ * Продукту выдаётся целочисленный номер документа, список ключа - отсортированный массив {@code int[]} номеров,
+ * поэтому продукт стоит 4 байта в каждом своём ключе вместо узла конкурентного множества.
+ * Номера растут, поэтому добавление дописывает номер в конец массива, который делится с уже опубликованными
+ * снимками списка: читатель видит только свой размер. Изменение текста выдаёт продукту новый номер, а старый
+ * помечается удалённым и вычищается из списка, когда удалённых в нём становится больше половины.
+ * Когда выданных номеров вдвое больше живых, индекс перенумеровывается под исключительной блокировкой.
+ * <p>
+ * Поиск пересекает списки по всем ключам запроса, начиная с самого короткого, двоичным поиском, и проверяет
+ * оставшихся кандидатов по тексту записи: совпадение триграмм необходимо, но не достаточно для подстроки.
+ * Нормализованный текст в индексе не хранится. Поиск не блокирует запись, а продукт, удалённый или изменённый
+ * во время поиска, отсеивается по номеру документа
+ */
+public class SearchIndex {
+
+    private static final int MIN_RENUMBER_DOCUMENTS = 1 << 16;
+
+    private final StampedLock renumbering = new StampedLock();
+    private final Function<UUID, ProductRecord> records;
+    private volatile Documents documents = new Documents(16);
+
+    /**
+     * @param records текущая запись по идентификатору, null если записи нет
+     */
+    public SearchIndex(Function<UUID, ProductRecord> records) {
+        this.records = records;
+    }
+
+    /**
+     * Переносит запись в индексе, должен вызываться под блокировкой идентификатора записи.
+     * Изменения разных записей идут параллельно, список одного ключа меняется через {@code compute},
+     * поэтому пустой список, удаляемый одним продуктом, не может поглотить номер другого
+     *
+     * @param current текущая запись, null если записи не было
+     * @param updated новая запись, null при удалении
+     */
+    public void update(ProductRecord current, ProductRecord updated) {
+        if (current != null && updated != null && Objects.equals(current.name(), updated.name())
+                && Objects.equals(current.description(), updated.description())) {
+            return;
+        }
+        boolean renumber;
+        long stamp = renumbering.readLock();
+        try {
+            Documents target = documents;
+            Integer previous = current == null ? null : target.ids.get(current.uuid());
+            if (updated != null) {
+                target.add(updated.uuid(), grams(updated));
+            } else if (previous != null) {
+                target.ids.computeIfPresent(current.uuid(), ignored -> null);
+            }
+            if (previous != null) {
+                target.remove(previous, grams(current));
+            }
+            renumber = target.needsRenumbering();
+        } finally {
+            renumbering.unlockRead(stamp);
+        }
+        if (renumber) {
+            renumber();
+        }
+    }
+
+    /**
+     * @param query разобранный запрос
+     * @param limit максимальное количество результатов
+     * @return записи в порядке {@link TopMatches}, пустой список если запрос пустой
+     * @throws IllegalArgumentException если limit не положительный
+     */
+    public List<ProductRecord> search(SearchQuery query, int limit) {
+        TopMatches<ProductRecord> top = new TopMatches<>(query, limit);
+        if (query.isEmpty()) {
+            return List.of();
+        }
+        Documents source = documents;
+        List<Postings> lists = new ArrayList<>();
+        for (String word : query.words()) {
+            for (String gram : SearchQuery.grams(word)) {
+                Posting posting = source.postings.get(gram);
+                if (posting == null) {
+                    return List.of();
+                }
+                lists.add(posting.postings);
+            }
+        }
+        lists.sort(Comparator.comparingInt(Postings::size));
+        Postings smallest = lists.get(0);
+        for (int i = 0; i < smallest.size(); i++) {
+            int id = smallest.ids()[i];
+            if (containedInAll(id, lists)) {
+                UUID uuid = source.uuid(id);
+                Integer current = uuid == null ? null : source.ids.get(uuid);
+                ProductRecord record = current != null && current == id ? records.apply(uuid) : null;
+                if (record != null) {
+                    top.offer(record, uuid, record.name(), record.description());
+                }
+            }
+        }
+        return top.toList();
+    }
+
+    private static boolean containedInAll(int id, List<Postings> lists) {
+        for (int i = 1; i < lists.size(); i++) {
+            if (!lists.get(i).contains(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Set<String> grams(ProductRecord record) {
+        Set<String> grams = SearchQuery.indexGrams(SearchQuery.normalize(record.name()));
+        grams.addAll(SearchQuery.indexGrams(SearchQuery.normalize(record.description())));
+        return grams;
+    }
+
+    private void renumber() {
+        long stamp = renumbering.writeLock();
+        try {
+            if (documents.needsRenumbering()) {
+                documents = documents.renumbered();
+            }
+        } finally {
+            renumbering.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Номера документов и списки ключей. Номер выдаётся и освобождается под монитором таблицы номеров,
+     * списки меняются под {@code compute} своего ключа
+     */
+    private static final class Documents {
+
+        private final ConcurrentMap<String, Posting> postings = new ConcurrentHashMap<>();
+        private final UuidHashMap<Integer> ids = new UuidHashMap<>();
+        private final AtomicInteger live = new AtomicInteger();
+        private volatile UUID[] uuids;
+        private volatile int next;
+
+        private Documents(int capacity) {
+            this.uuids = new UUID[capacity];
+        }
+
+        private void add(UUID uuid, Set<String> grams) {
+            int id;
+            synchronized (this) {
+                id = next++;
+                if (id == uuids.length) {
+                    uuids = Arrays.copyOf(uuids, id + (id >> 1));
+                }
+                uuids[id] = uuid;
+            }
+            live.incrementAndGet();
+            for (String gram : grams) {
+                postings.compute(gram, (key, posting) -> {
+                    Posting target = posting == null ? new Posting() : posting;
+                    target.add(id);
+                    return target;
+                });
+            }
+            ids.compute(uuid, ignored -> id);
+        }
+
+        private void remove(int id, Set<String> grams) {
+            synchronized (this) {
+                uuids[id] = null;
+            }
+            live.decrementAndGet();
+            for (String gram : grams) {
+                postings.computeIfPresent(gram, (key, posting) -> posting.remove(this) ? posting : null);
+            }
+        }
+
+        private UUID uuid(int id) {
+            UUID[] table = uuids;
+            return id < table.length ? table[id] : null;
+        }
+
+        private boolean needsRenumbering() {
+            int issued = next;
+            return issued >= MIN_RENUMBER_DOCUMENTS && issued / 2 > live.get();
+        }
+
+        /**
+         * Перенумеровывает живые документы подряд с сохранением порядка, поэтому списки остаются
+         * отсортированными. Вызывается, когда изменения остановлены
+         */
+        private Documents renumbered() {
+            int[] renumbered = new int[next];
+            Documents target = new Documents(Math.max(16, live.get()));
+            for (int id = 0; id < next; id++) {
+                UUID uuid = uuids[id];
+                renumbered[id] = uuid == null ? -1 : target.next;
+                if (uuid != null) {
+                    int copy = target.next++;
+                    target.uuids[copy] = uuid;
+                    target.ids.compute(uuid, ignored -> copy);
+                }
+            }
+            target.live.set(target.next);
+            for (Map.Entry<String, Posting> entry : postings.entrySet()) {
+                Postings copy = entry.getValue().postings.renumbered(renumbered);
+                if (copy.size() > 0) {
+                    target.postings.put(entry.getKey(), new Posting(copy));
+                }
+            }
+            return target;
+        }
+    }
+
+    /**
+     * Список номеров одного ключа. Снимок {@link Postings} публикуется через volatile-поле,
+     * поэтому читатель не берёт блокировок
+     */
+    private static final class Posting {
+
+        private volatile Postings postings;
+        private int removed;
+
+        private Posting() {
+            this(new Postings(new int[1], 0));
+        }
+
+        private Posting(Postings postings) {
+            this.postings = postings;
+        }
+
+        private void add(int id) {
+            Postings current = postings;
+            int[] ids = current.ids();
+            int size = current.size();
+            if (size > 0 && ids[size - 1] > id) {
+                int at = -Arrays.binarySearch(ids, 0, size, id) - 1;
+                int[] copy = new int[grow(size)];
+                System.arraycopy(ids, 0, copy, 0, at);
+                copy[at] = id;
+                System.arraycopy(ids, at, copy, at + 1, size - at);
+                postings = new Postings(copy, size + 1);
+                return;
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, grow(size));
+            }
+            ids[size] = id;
+            postings = new Postings(ids, size + 1);
+        }
+
+        /**
+         * @return false если в списке не осталось живых номеров
+         */
+        private boolean remove(Documents documents) {
+            Postings current = postings;
+            if (++removed * 2 <= current.size()) {
+                return true;
+            }
+            int[] kept = new int[current.size()];
+            int size = 0;
+            for (int i = 0; i < current.size(); i++) {
+                int id = current.ids()[i];
+                if (documents.uuid(id) != null) {
+                    kept[size++] = id;
+                }
+            }
+            removed = 0;
+            postings = new Postings(Arrays.copyOf(kept, size), size);
+            return size > 0;
+        }
+
+        private static int grow(int size) {
+            return size + (size >> 1) + 1;
+        }
+    }
+
+    /**
+     * Неизменяемый снимок списка: первые size элементов массива, отсортированные по возрастанию
+     */
+    private record Postings(int[] ids, int size) {
+
+        private boolean contains(int id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+
+        private Postings renumbered(int[] renumbered) {
+            int[] copy = new int[size];
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                int id = renumbered[ids[i]];
+                if (id >= 0) {
+                    copy[count++] = id;
+                }
+            }
+            return new Postings(Arrays.copyOf(copy, count), count);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package ru.clevertec.product.repository.storage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Разобранный поисковый запрос: слова запроса в нормализованном виде и ранжирование по ним.
+ * <p>
+ * Нормализация одна для запроса и индекса: нижний регистр, ё заменяется на е, всё, кроме букв и цифр,
+ * разделяет слова. Слово запроса из трёх и больше символов ищется как подстрока, короткое - как начало слова,
+ * иначе одна буква совпадала бы почти со всем каталогом
+ */
+public final class SearchQuery {
+
+    static final int GRAM = 3;
+
+    private static final int NAME_WORD = 8;
+    private static final int NAME_PREFIX = 6;
+    private static final int NAME_SUBSTRING = 4;
+    private static final int DESCRIPTION_WORD = 3;
+    private static final int DESCRIPTION_PREFIX = 2;
+    private static final int DESCRIPTION_SUBSTRING = 1;
+
+    private final List<String> words;
+
+    private SearchQuery(List<String> words) {
+        this.words = words;
+    }
+
+    /**
+     * @param query текст запроса, null считается пустым
+     * @return запрос из различных нормализованных слов в порядке появления
+     */
+    public static SearchQuery parse(String query) {
+        return new SearchQuery(List.copyOf(new LinkedHashSet<>(words(normalize(query)))));
+    }
+
+    /**
+     * @return true, если в запросе нет ни одного слова
+     */
+    public boolean isEmpty() {
+        return words.isEmpty();
+    }
+
+    /**
+     * Оценка продукта: совпадение в названии весит больше совпадения в описании,
+     * совпадение целого слова или его начала - больше совпадения в середине слова
+     *
+     * @param name        название продукта
+     * @param description описание продукта
+     * @return сумма оценок по словам запроса, -1 если хотя бы одно слово не найдено
+     */
+    public int score(String name, String description) {
+        return scoreNormalized(normalize(name), normalize(description));
+    }
+
+    /**
+     * @see #score(String, String)
+     */
+    int scoreNormalized(String normalizedName, String normalizedDescription) {
+        int score = 0;
+        for (String word : words) {
+            int wordScore = Math.max(score(normalizedName, word, NAME_WORD, NAME_PREFIX, NAME_SUBSTRING),
+                    score(normalizedDescription, word, DESCRIPTION_WORD, DESCRIPTION_PREFIX, DESCRIPTION_SUBSTRING));
+            if (wordScore == 0) {
+                return -1;
+            }
+            score += wordScore;
+        }
+        return score;
+    }
+
+    List<String> words() {
+        return words;
+    }
+
+    /**
+     * @return ключи индекса, которые должны быть у продукта, подходящего под слово запроса
+     */
+    static List<String> grams(String word) {
+        if (word.length() < GRAM) {
+            return List.of(prefixGram(word));
+        }
+        List<String> grams = new ArrayList<>(word.length() - GRAM + 1);
+        for (int i = 0; i + GRAM <= word.length(); i++) {
+            grams.add(word.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    /**
+     * @param normalized текст после {@link #normalize(String)}
+     * @return все ключи индекса для текста: триграммы слов и их начала короче триграммы
+     */
+    static Set<String> indexGrams(String normalized) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (String word : words(normalized)) {
+            for (int length = 1; length < GRAM && length <= word.length(); length++) {
+                grams.add(prefixGram(word.substring(0, length)));
+            }
+            for (int i = 0; i + GRAM <= word.length(); i++) {
+                grams.add(word.substring(i, i + GRAM));
+            }
+        }
+        return grams;
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        char[] chars = text.toLowerCase(Locale.ROOT).toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            if (chars[i] == 'ё') {
+                chars[i] = 'е';
+            } else if (!Character.isLetterOrDigit(chars[i])) {
+                chars[i] = ' ';
+            }
+        }
+        return new String(chars);
+    }
+
+    private static List<String> words(String normalized) {
+        return Arrays.stream(normalized.split(" "))
+                .filter(word -> !word.isEmpty())
+                .toList();
+    }
+
+    /**
+     * Начало слова отличается от триграммы управляющим символом, который не переживает нормализацию
+     */
+    private static String prefixGram(String prefix) {
+        return '\u0001' + prefix;
+    }
+
+    private static int score(String text, String word, int whole, int prefix, int substring) {
+        int best = 0;
+        for (int from = text.indexOf(word); from >= 0; from = text.indexOf(word, from + 1)) {
+            boolean starts = from == 0 || text.charAt(from - 1) == ' ';
+            int end = from + word.length();
+            boolean ends = end == text.length() || text.charAt(end) == ' ';
+            int found = starts ? (ends ? whole : prefix) : (word.length() < GRAM ? 0 : substring);
+            best = Math.max(best, found);
+        }
+        return best;
+    }
+}
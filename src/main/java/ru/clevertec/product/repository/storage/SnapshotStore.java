@@ -0,0 +1,93 @@
+package ru.clevertec.product.repository.storage;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Компактный снимок всех записей хранилища в файле {@code snapshot.bin}.
+ * Снимок пишется во временный файл и атомарно переименовывается, поэтому существующий снимок всегда полный.
+ * Переименование фиксируется fsync каталога до возврата, только после этого можно удалять покрытые снимком сегменты журнала.
+ * Снимок - последовательность кадров {@link ProductCodec}: первый кадр - заголовок (удаление с нулевым идентификатором),
+ * все кадры несут номер последней записи журнала, которую покрывает снимок
+ */
+public final class SnapshotStore {
+
+    private static final String SNAPSHOT = "snapshot.bin";
+    private static final String TEMPORARY = "snapshot.tmp";
+
+    private SnapshotStore() {
+    }
+
+    /**
+     * Загружает снимок, если он есть
+     *
+     * @param directory каталог снимка
+     * @param consumer  получатель записей снимка
+     * @return номер последней записи журнала, покрытой снимком, 0 если снимка нет
+     * @throws IOException если снимок не удалось прочитать или он повреждён
+     */
+    public static long load(Path directory, Consumer<ProductRecord> consumer) throws IOException {
+        Path snapshot = directory.resolve(SNAPSHOT);
+        if (!Files.exists(snapshot)) {
+            return 0;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshot)))) {
+            LogEntry header = ProductCodec.decode(in);
+            if (header == null) {
+                throw new IOException("Snapshot header is missing");
+            }
+            LogEntry entry;
+            while ((entry = ProductCodec.decode(in)) != null) {
+                consumer.accept(entry.record());
+            }
+            return header.sequence();
+        }
+    }
+
+    /**
+     * Пишет новый снимок вместо старого
+     *
+     * @param directory каталог снимка
+     * @param sequence  номер последней записи журнала, покрытой снимком
+     * @param records   все записи хранилища
+     * @throws UncheckedIOException если снимок не удалось записать или переименование не удалось сбросить на диск
+     */
+    public static void write(Path directory, long sequence, Stream<ProductRecord> records) {
+        Path temporary = directory.resolve(TEMPORARY);
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16);
+            out.write(ProductCodec.encode(new LogEntry(sequence, new UUID(0, 0), null)));
+            records.forEach(record -> {
+                try {
+                    out.write(ProductCodec.encode(new LogEntry(sequence, record.uuid(), record)));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            out.flush();
+            channel.force(true);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        try {
+            Files.move(temporary, directory.resolve(SNAPSHOT), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            Directories.sync(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package ru.clevertec.product.repository.storage;
+
+import java.util.Comparator;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Вторичный отсортированный индекс по одному полю записи.
+ * Хранит пары (ключ, идентификатор) в {@link ConcurrentSkipListSet}, поэтому поиск диапазона
+ * занимает O(log n + k) и не блокирует писателей. Записи с ключом null в индекс не попадают.
+ * Один и тот же экземпляр ключа сравнивается по ссылке, поэтому интернированные строки сравниваются без обхода символов
+ *
+ * @param <K> тип ключа индекса
+ */
+public class SortedIndex<K> {
+
+    private static final UUID MIN_UUID = new UUID(Long.MIN_VALUE, Long.MIN_VALUE);
+    private static final UUID MAX_UUID = new UUID(Long.MAX_VALUE, Long.MAX_VALUE);
+
+    private final Function<ProductRecord, K> keyExtractor;
+    private final Comparator<? super K> comparator;
+    private final NavigableSet<Entry<K>> entries;
+
+    /**
+     * @param keyExtractor поле записи, по которому строится индекс
+     * @param comparator   порядок ключей
+     */
+    public SortedIndex(Function<ProductRecord, K> keyExtractor, Comparator<? super K> comparator) {
+        this.keyExtractor = keyExtractor;
+        this.comparator = comparator;
+        Comparator<Entry<K>> byKey = (first, second) -> first.key() == second.key()
+                ? 0
+                : comparator.compare(first.key(), second.key());
+        this.entries = new ConcurrentSkipListSet<>(byKey.thenComparing(Entry::uuid));
+    }
+
+    /**
+     * Переносит запись в индексе, должен вызываться под блокировкой идентификатора записи
+     *
+     * @param current текущая запись, null если записи не было
+     * @param updated новая запись, null при удалении
+     */
+    public void update(ProductRecord current, ProductRecord updated) {
+        K currentKey = current == null ? null : keyExtractor.apply(current);
+        K updatedKey = updated == null ? null : keyExtractor.apply(updated);
+        if (current != null && updated != null && Objects.equals(currentKey, updatedKey)) {
+            return;
+        }
+        if (currentKey != null) {
+            entries.remove(new Entry<>(currentKey, current.uuid()));
+        }
+        if (updatedKey != null) {
+            entries.add(new Entry<>(updatedKey, updated.uuid()));
+        }
+    }
+
+    /**
+     * Идентификаторы записей с ключами из диапазона в порядке возрастания ключа
+     *
+     * @param from          нижняя граница, null если не ограничена
+     * @param fromInclusive включать ли нижнюю границу
+     * @param to            верхняя граница, null если не ограничена
+     * @param toInclusive   включать ли верхнюю границу
+     * @return поток идентификаторов, пустой если диапазон пустой
+     */
+    public Stream<UUID> range(K from, boolean fromInclusive, K to, boolean toInclusive) {
+        if (from != null && to != null && isEmptyRange(comparator.compare(from, to), fromInclusive && toInclusive)) {
+            return Stream.empty();
+        }
+        NavigableSet<Entry<K>> range = entries;
+        if (from != null) {
+            range = range.tailSet(new Entry<>(from, fromInclusive ? MIN_UUID : MAX_UUID), fromInclusive);
+        }
+        if (to != null) {
+            range = range.headSet(new Entry<>(to, toInclusive ? MAX_UUID : MIN_UUID), toInclusive);
+        }
+        return range.stream()
+                .map(Entry::uuid);
+    }
+
+    /**
+     * Идентификаторы всех записей в порядке убывания ключа
+     *
+     * @return поток идентификаторов
+     */
+    public Stream<UUID> descending() {
+        return entries.descendingSet().stream()
+                .map(Entry::uuid);
+    }
+
+    private static boolean isEmptyRange(int comparison, boolean inclusive) {
+        return comparison > 0 || comparison == 0 && !inclusive;
+    }
+
+    private record Entry<K>(K key, UUID uuid) {
+    }
+}
@@ -0,0 +1,88 @@
+package ru.clevertec.product.repository.storage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.UUID;
+
+/**
+ * Отбирает лучшие совпадения с запросом кучей размера limit, не сортируя всех кандидатов.
+ * Порядок: большая оценка {@link SearchQuery#score}, при равной - более короткое название, затем идентификатор
+ *
+ * @param <T> тип найденного элемента
+ */
+public class TopMatches<T> {
+
+    private static final int MAX_INITIAL_CAPACITY = 1_024;
+
+    private final Comparator<Match<T>> order = Comparator.<Match<T>>comparingInt(Match::score)
+            .thenComparing(Comparator.<Match<T>>comparingInt(Match::nameLength).reversed())
+            .thenComparing(Match::uuid, Comparator.reverseOrder());
+    private final SearchQuery query;
+    private final int limit;
+    private final PriorityQueue<Match<T>> heap;
+
+    /**
+     * @param query разобранный запрос
+     * @param limit максимальное количество результатов
+     * @throws IllegalArgumentException если limit не положительный
+     */
+    public TopMatches(SearchQuery query, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Search limit must be positive");
+        }
+        this.query = query;
+        this.limit = limit;
+        this.heap = new PriorityQueue<>(Math.min(limit, MAX_INITIAL_CAPACITY) + 1, order);
+    }
+
+    /**
+     * Элемент попадёт в результат, если подходит под запрос и лучше худшего из отобранных
+     *
+     * @param item        найденный элемент
+     * @param uuid        его идентификатор
+     * @param name        его название
+     * @param description его описание
+     */
+    public void offer(T item, UUID uuid, String name, String description) {
+        offerNormalized(item, uuid, SearchQuery.normalize(name), SearchQuery.normalize(description));
+    }
+
+    /**
+     * @see #offer(Object, UUID, String, String)
+     */
+    void offerNormalized(T item, UUID uuid, String normalizedName, String normalizedDescription) {
+        int score = query.scoreNormalized(normalizedName, normalizedDescription);
+        if (score < 0 || heap.size() == limit && worse(score, normalizedName.length(), heap.peek())) {
+            return;
+        }
+        heap.offer(new Match<>(item, uuid, score, normalizedName.length()));
+        if (heap.size() > limit) {
+            heap.poll();
+        }
+    }
+
+    /**
+     * @return отобранные элементы от лучшего к худшему, после вызова отбор пуст
+     */
+    public List<T> toList() {
+        List<T> result = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            result.add(heap.poll().item());
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    /**
+     * Быстрая проверка без создания совпадения: кандидат хуже худшего из отобранных по оценке или длине названия
+     */
+    private static boolean worse(int score, int nameLength, Match<?> worst) {
+        return score < worst.score() || score == worst.score() && nameLength > worst.nameLength();
+    }
+
+    private record Match<T>(T item, UUID uuid, int score, int nameLength) {
+    }
+}
@@ -0,0 +1,90 @@
+package ru.clevertec.product.repository.storage;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Потокобезопасный фильтр Блума по идентификаторам продуктов.
+ * Отрицательный ответ {@link #mightContain(UUID)} точный, положительный может быть ложным
+ * с заданной вероятностью. Удаление не поддерживается: биты только добавляются
+ */
+public class UuidBloomFilter {
+
+    private static final double LN2 = Math.log(2);
+    private static final int MAX_HASHES = 16;
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+
+    /**
+     * @param expectedInsertions ожидаемое количество идентификаторов
+     * @param falsePositiveRate  допустимая доля ложноположительных ответов
+     * @throws IllegalArgumentException если параметры вне допустимых значений
+     */
+    public UuidBloomFilter(int expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions <= 0) {
+            throw new IllegalArgumentException("Expected insertions must be positive");
+        }
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("False positive rate must be between 0 and 1");
+        }
+        long optimalBits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (LN2 * LN2));
+        int words = (int) Math.max(1, (optimalBits + Long.SIZE - 1) / Long.SIZE);
+        this.bits = new AtomicLongArray(words);
+        this.bitCount = (long) words * Long.SIZE;
+        this.hashCount = (int) Math.max(1, Math.min(MAX_HASHES, Math.round((double) bitCount / expectedInsertions * LN2)));
+    }
+
+    /**
+     * Добавляет идентификатор, после возврата {@link #mightContain(UUID)} для него всегда true
+     *
+     * @param uuid идентификатор
+     */
+    public void add(UUID uuid) {
+        long first = firstHash(uuid);
+        long second = secondHash(uuid);
+        for (int i = 0; i < hashCount; i++) {
+            long index = Long.remainderUnsigned(first + i * second, bitCount);
+            int word = (int) (index >>> 6);
+            long mask = 1L << index;
+            if ((bits.get(word) & mask) == 0) {
+                bits.accumulateAndGet(word, mask, (current, bit) -> current | bit);
+            }
+        }
+    }
+
+    /**
+     * @param uuid идентификатор
+     * @return false если идентификатор точно не добавлялся
+     */
+    public boolean mightContain(UUID uuid) {
+        long first = firstHash(uuid);
+        long second = secondHash(uuid);
+        for (int i = 0; i < hashCount; i++) {
+            long index = Long.remainderUnsigned(first + i * second, bitCount);
+            if ((bits.get((int) (index >>> 6)) & 1L << index) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long firstHash(UUID uuid) {
+        return mix(uuid.getMostSignificantBits() ^ uuid.getLeastSignificantBits());
+    }
+
+    private static long secondHash(UUID uuid) {
+        return mix(uuid.getLeastSignificantBits() + 0x9E37_79B9_7F4A_7C15L * uuid.getMostSignificantBits()) | 1;
+    }
+
+    /**
+     * Финализатор SplitMix64, перемешивает биты, чтобы соседние идентификаторы
+     * (например, версии 7 с одной миллисекундой) попадали в разные слова
+     */
+    private static long mix(long value) {
+        value = (value ^ value >>> 30) * 0xBF58_476D_1CE4_E5B9L;
+        value = (value ^ value >>> 27) * 0x94D0_49BB_1331_11EBL;
+        return value ^ value >>> 31;
+    }
+}
@@ -0,0 +1,379 @@
+package ru.clevertec.product.repository.storage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+/**
+ * Потокобезопасная хеш-таблица с открытой адресацией, ключом которой служат две половины {@link UUID}.
+ * <p>
+ * Ключи хранятся в параллельных массивах long, значения - в массиве ссылок, поэтому на запись
+ * не создаётся ни узла, ни копии ключа, а поиск читает соседние ячейки массивов и ничего не выделяет.
+ * Коллизии разрешаются линейным пробированием, удаление сдвигает следующие ячейки назад.
+ * <p>
+ * Таблица разбита на сегменты по старшим битам хеша. Чтение сегмента идёт без блокировки и проверяется
+ * по {@link StampedLock}, запись блокирует только свой сегмент, как корзина {@link java.util.concurrent.ConcurrentHashMap}
+ *
+ * @param <V> тип значения, null значения не допускаются
+ */
+public class UuidHashMap<V> {
+
+    private static final int SEGMENT_BITS = 6;
+    private static final int MIN_CAPACITY = 16;
+
+    private final Segment<V>[] segments;
+
+    public UuidHashMap() {
+        this(0);
+    }
+
+    /**
+     * @param expectedSize ожидаемое количество записей, чтобы не расширять таблицу при заполнении
+     */
+    @SuppressWarnings("unchecked")
+    public UuidHashMap(int expectedSize) {
+        segments = new Segment[1 << SEGMENT_BITS];
+        int perSegment = expectedSize >>> SEGMENT_BITS;
+        Arrays.setAll(segments, i -> new Segment<>(perSegment));
+    }
+
+    /**
+     * @param uuid идентификатор
+     * @return значение или null, если его нет
+     */
+    public V get(UUID uuid) {
+        return get(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+    }
+
+    /**
+     * @param msb старшие биты идентификатора
+     * @param lsb младшие биты идентификатора
+     * @return значение или null, если его нет
+     */
+    public V get(long msb, long lsb) {
+        long hash = hash(msb, lsb);
+        return segmentFor(hash).get(msb, lsb, hash);
+    }
+
+    /**
+     * Атомарно заменяет значение под блокировкой сегмента
+     *
+     * @param uuid      идентификатор
+     * @param remapping новое значение по текущему (null если его нет), null удаляет запись
+     * @return новое значение
+     */
+    public V compute(UUID uuid, UnaryOperator<V> remapping) {
+        long msb = uuid.getMostSignificantBits();
+        long lsb = uuid.getLeastSignificantBits();
+        long hash = hash(msb, lsb);
+        return segmentFor(hash).compute(msb, lsb, hash, remapping, false);
+    }
+
+    /**
+     * Как {@link #compute}, но вызывает remapping только для существующей записи
+     *
+     * @param uuid      идентификатор
+     * @param remapping новое значение по текущему, null удаляет запись
+     * @return новое значение, null если записи не было
+     */
+    public V computeIfPresent(UUID uuid, UnaryOperator<V> remapping) {
+        long msb = uuid.getMostSignificantBits();
+        long lsb = uuid.getLeastSignificantBits();
+        long hash = hash(msb, lsb);
+        return segmentFor(hash).compute(msb, lsb, hash, remapping, true);
+    }
+
+    /**
+     * Как {@link #compute} для каждого элемента пачки, но пачка делится по сегментам: сегмент блокируется
+     * и расширяется один раз на все свои элементы. Элементы одного сегмента обрабатываются в порядке пачки,
+     * поэтому повторы одного идентификатора применяются по порядку. Атомарна замена каждой записи, а не пачки
+     *
+     * @param items     элементы пачки
+     * @param key       идентификатор элемента
+     * @param remapping новое значение по элементу и текущему значению (null если его нет), null удаляет запись
+     * @return новые значения в порядке пачки
+     */
+    @SuppressWarnings("unchecked")
+    public <T> List<V> computeAll(List<T> items, Function<? super T, UUID> key,
+                                  BiFunction<? super T, ? super V, ? extends V> remapping) {
+        int size = items.size();
+        long[] hashes = new long[size];
+        int[] starts = new int[segments.length + 1];
+        for (int i = 0; i < size; i++) {
+            UUID uuid = key.apply(items.get(i));
+            hashes[i] = hash(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+            starts[segmentIndex(hashes[i]) + 1]++;
+        }
+        for (int segment = 0; segment < segments.length; segment++) {
+            starts[segment + 1] += starts[segment];
+        }
+        int[] order = new int[size];
+        int[] next = Arrays.copyOf(starts, segments.length);
+        for (int i = 0; i < size; i++) {
+            order[next[segmentIndex(hashes[i])]++] = i;
+        }
+        Object[] results = new Object[size];
+        for (int segment = 0; segment < segments.length; segment++) {
+            if (starts[segment] < starts[segment + 1]) {
+                segments[segment].computeAll(items, key, remapping, hashes,
+                        Arrays.copyOfRange(order, starts[segment], starts[segment + 1]), results);
+            }
+        }
+        return (List<V>) Arrays.asList(results);
+    }
+
+    /**
+     * @return количество записей, без согласования между сегментами
+     */
+    public int size() {
+        return Arrays.stream(segments)
+                .mapToInt(Segment::size)
+                .sum();
+    }
+
+    /**
+     * Ленивый поток значений: сегмент копируется, когда поток доходит до него, поэтому каждая запись
+     * попадает в поток не более одного раза и писатели блокируются только на копирование одного сегмента
+     *
+     * @return поток значений
+     */
+    public Stream<V> values() {
+        return Arrays.stream(segments)
+                .flatMap(segment -> segment.values().stream());
+    }
+
+    private Segment<V> segmentFor(long hash) {
+        return segments[segmentIndex(hash)];
+    }
+
+    private static int segmentIndex(long hash) {
+        return (int) (hash >>> Long.SIZE - SEGMENT_BITS);
+    }
+
+    /**
+     * Финализатор SplitMix64: младшие биты выбирают ячейку, старшие - сегмент
+     */
+    private static long hash(long msb, long lsb) {
+        long h = msb ^ Long.rotateLeft(lsb, 32);
+        h = (h ^ h >>> 30) * 0xbf58476d1ce4e5b9L;
+        h = (h ^ h >>> 27) * 0x94d049bb133111ebL;
+        return h ^ h >>> 31;
+    }
+
+    private static final class Segment<V> {
+
+        private final StampedLock lock = new StampedLock();
+        private volatile Table table;
+        private int size;
+
+        private Segment(int expectedSize) {
+            this.table = new Table(capacityFor(expectedSize));
+        }
+
+        private V get(long msb, long lsb, long hash) {
+            long stamp = lock.tryOptimisticRead();
+            V value = table.get(msb, lsb, hash);
+            if (lock.validate(stamp)) {
+                return value;
+            }
+            stamp = lock.readLock();
+            try {
+                return table.get(msb, lsb, hash);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        private V compute(long msb, long lsb, long hash, UnaryOperator<V> remapping, boolean onlyIfPresent) {
+            long stamp = lock.writeLock();
+            try {
+                return computeLocked(msb, lsb, hash, remapping, onlyIfPresent);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        /**
+         * @param order номера элементов пачки, попавших в этот сегмент, в порядке пачки
+         */
+        private <T> void computeAll(List<T> items, Function<? super T, UUID> key,
+                                    BiFunction<? super T, ? super V, ? extends V> remapping,
+                                    long[] hashes, int[] order, Object[] results) {
+            long stamp = lock.writeLock();
+            try {
+                int capacity = capacityFor(size + order.length);
+                if (capacity > table.values.length) {
+                    table = table.grow(capacity);
+                }
+                for (int i : order) {
+                    T item = items.get(i);
+                    UUID uuid = key.apply(item);
+                    results[i] = computeLocked(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(),
+                            hashes[i], current -> remapping.apply(item, current), false);
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        private V computeLocked(long msb, long lsb, long hash, UnaryOperator<V> remapping, boolean onlyIfPresent) {
+            Table current = table;
+            int slot = current.find(msb, lsb, hash);
+            V value = slot < 0 ? null : current.value(slot);
+            if (value == null && onlyIfPresent) {
+                return null;
+            }
+            V updated = remapping.apply(value);
+            if (updated == value) {
+                return updated;
+            }
+            if (updated == null) {
+                current.remove(slot);
+                size--;
+            } else if (value != null) {
+                current.values[slot] = updated;
+            } else {
+                if ((long) (size + 1) * 10 > (long) current.values.length * 7) {
+                    current = current.grow(current.values.length << 1);
+                    table = current;
+                }
+                current.insert(msb, lsb, hash, updated);
+                size++;
+            }
+            return updated;
+        }
+
+        private int size() {
+            long stamp = lock.tryOptimisticRead();
+            int current = size;
+            if (lock.validate(stamp)) {
+                return current;
+            }
+            stamp = lock.readLock();
+            try {
+                return size;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private List<V> values() {
+            long stamp = lock.readLock();
+            try {
+                List<V> values = new ArrayList<>(size);
+                for (Object value : table.values) {
+                    if (value != null) {
+                        values.add((V) value);
+                    }
+                }
+                return values;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        private static int capacityFor(int expectedSize) {
+            long required = Math.max(MIN_CAPACITY, (long) Math.ceil(expectedSize / 0.7));
+            return (int) Math.min(Long.highestOneBit(required - 1) << 1, 1 << 30);
+        }
+    }
+
+    /**
+     * Массивы одной ёмкости заменяются целиком при расширении, поэтому читатель без блокировки
+     * никогда не видит массивы разной длины
+     */
+    private static final class Table {
+
+        private final long[] msbs;
+        private final long[] lsbs;
+        private final Object[] values;
+        private final int mask;
+
+        private Table(int capacity) {
+            this.msbs = new long[capacity];
+            this.lsbs = new long[capacity];
+            this.values = new Object[capacity];
+            this.mask = capacity - 1;
+        }
+
+        @SuppressWarnings("unchecked")
+        private <V> V get(long msb, long lsb, long hash) {
+            int slot = (int) hash & mask;
+            for (int probes = 0; probes <= mask; probes++, slot = slot + 1 & mask) {
+                Object value = values[slot];
+                if (value == null) {
+                    return null;
+                }
+                if (msbs[slot] == msb && lsbs[slot] == lsb) {
+                    return (V) value;
+                }
+            }
+            return null;
+        }
+
+        @SuppressWarnings("unchecked")
+        private <V> V value(int slot) {
+            return (V) values[slot];
+        }
+
+        /**
+         * @return ячейка ключа, или -(ячейка для вставки) - 1 если ключа нет
+         */
+        private int find(long msb, long lsb, long hash) {
+            int slot = (int) hash & mask;
+            while (values[slot] != null) {
+                if (msbs[slot] == msb && lsbs[slot] == lsb) {
+                    return slot;
+                }
+                slot = slot + 1 & mask;
+            }
+            return -slot - 1;
+        }
+
+        private void insert(long msb, long lsb, long hash, Object value) {
+            int slot = -find(msb, lsb, hash) - 1;
+            msbs[slot] = msb;
+            lsbs[slot] = lsb;
+            values[slot] = value;
+        }
+
+        private void remove(int slot) {
+            int free = slot;
+            int current = slot;
+            while (true) {
+                current = current + 1 & mask;
+                if (values[current] == null) {
+                    break;
+                }
+                int home = (int) hash(msbs[current], lsbs[current]) & mask;
+                boolean stays = free <= current
+                        ? free < home && home <= current
+                        : free < home || home <= current;
+                if (!stays) {
+                    msbs[free] = msbs[current];
+                    lsbs[free] = lsbs[current];
+                    values[free] = values[current];
+                    free = current;
+                }
+            }
+            values[free] = null;
+        }
+
+        private Table grow(int capacity) {
+            Table grown = new Table(capacity);
+            for (int slot = 0; slot < values.length; slot++) {
+                if (values[slot] != null) {
+                    grown.insert(msbs[slot], lsbs[slot], hash(msbs[slot], lsbs[slot]), values[slot]);
+                }
+            }
+            return grown;
+        }
+    }
+}
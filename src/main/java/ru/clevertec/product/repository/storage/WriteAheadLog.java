@@ -0,0 +1,467 @@
+package ru.clevertec.product.repository.storage;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Журнал упреждающей записи из сегментов {@code wal-<номер первой записи>.log}.
+ * <p>
+ * {@link #append} только получает номер, кодирует запись и ставит её в очередь, в файл пишет один фоновый поток:
+ * он забирает из очереди до {@link DurabilityConfig#groupCommitSize()} записей, пишет их одной операцией
+ * и делает один fsync на всю пачку (групповая фиксация).
+ * <p>
+ * Запись добавляется под общей блокировкой чтения {@link StampedLock}, поэтому писатели разных сегментов хранилища
+ * кодируют свои записи одновременно и друг друга не ждут. Из-за этого записи могут попасть в очередь не по порядку
+ * номеров, и фоновый поток пишет в файл только непрерывный ряд номеров. Закрытие и переключение сегмента берут
+ * блокировку записи и видят все записи, номер которых уже выдан.
+ * <p>
+ * В очереди не больше {@value #QUEUED_BATCHES} пачек: если fsync не успевает, {@link #append} ждёт места,
+ * и скорость записи хранилища ограничивается скоростью диска, а не растёт очередь в памяти. Потоки, которым нужна надёжность,
+ * ждут в {@link #awaitDurable(long)}, пока fsync не покроет их запись. Ожидание построено на
+ * {@link ReentrantLock}, а не на мониторе, поэтому виртуальный поток освобождает поток-носитель на время fsync
+ */
+public class WriteAheadLog implements AutoCloseable {
+
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final long IDLE_POLL_MILLIS = 100;
+    private static final int QUEUED_BATCHES = 4;
+
+    private final DurabilityConfig config;
+    private final BlockingQueue<Object> queue;
+    private final StampedLock appendLock = new StampedLock();
+    private final AtomicLong appended;
+    private final PriorityQueue<Frame> pending = new PriorityQueue<>((first, second) ->
+            Long.compare(first.sequence(), second.sequence()));
+    private final ReentrantLock durableLock = new ReentrantLock();
+    private final Condition durableChanged = durableLock.newCondition();
+    private final Thread writer;
+    private long durable;
+    private volatile boolean closed;
+    private volatile IOException failure;
+    private FileChannel channel;
+
+    /**
+     * Продолжает последний сегмент, если следующая запись может идти в нём, иначе открывает новый
+     * после последней восстановленной записи, поэтому перезапуск не оставляет пустых сегментов
+     *
+     * @param config       настройки журнала
+     * @param lastSequence номер последней записи, уже находящейся в журнале или снимке
+     * @throws UncheckedIOException если сегмент не удалось создать
+     */
+    public WriteAheadLog(DurabilityConfig config, long lastSequence) {
+        this.config = config;
+        this.queue = new LinkedBlockingQueue<>(config.groupCommitSize() * QUEUED_BATCHES);
+        this.appended = new AtomicLong(lastSequence);
+        this.durable = lastSequence;
+        try {
+            this.channel = openSegment(continuedSegmentStart(config.directory(), lastSequence));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.writer = new Thread(this::writeLoop, "product-wal-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Ставит изменение продукта в очередь на запись, ждёт места, если очередь заполнена.
+     * Порядок номеров совпадает с порядком в файле
+     *
+     * @param uuid   идентификатор продукта
+     * @param record новое состояние, null при удалении
+     * @return номер записи
+     * @throws IllegalArgumentException если запись не помещается в кадр, номер при этом не выдаётся
+     * @throws UncheckedIOException     если журнал закрыт или запись в файл уже завершилась ошибкой
+     */
+    public long append(UUID uuid, ProductRecord record) {
+        if (record != null) {
+            ProductCodec.requireFits(record.name(), record.description());
+        }
+        long stamp = appendLock.readLock();
+        try {
+            checkWritable();
+            long sequence = appended.incrementAndGet();
+            enqueue(new Frame(sequence, ProductCodec.encode(new LogEntry(sequence, uuid, record))));
+            return sequence;
+        } finally {
+            appendLock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Ждёт, пока fsync не покроет запись с переданным номером.
+     * Ничего не ждёт, если {@link DurabilityConfig#awaitDurability()} выключен
+     *
+     * @param sequence номер записи
+     * @throws UncheckedIOException если запись в файл завершилась ошибкой
+     */
+    public void awaitDurable(long sequence) {
+        if (!config.awaitDurability()) {
+            return;
+        }
+        durableLock.lock();
+        try {
+            while (durable < sequence && failure == null) {
+                durableChanged.await();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the log", e);
+        } finally {
+            durableLock.unlock();
+        }
+        if (failure != null) {
+            throw new UncheckedIOException("Write-ahead log failed", failure);
+        }
+    }
+
+    /**
+     * Закрывает текущий сегмент и начинает новый. Все записи, поставленные в очередь до вызова,
+     * остаются в старых сегментах
+     *
+     * @return номер последней записи в старых сегментах
+     */
+    public long rotate() {
+        CompletableFuture<Long> rotated = new CompletableFuture<>();
+        long stamp = appendLock.writeLock();
+        try {
+            checkWritable();
+            enqueue(new Rotation(appended.get(), rotated));
+        } finally {
+            appendLock.unlockWrite(stamp);
+        }
+        return rotated.join();
+    }
+
+    /**
+     * Удаляет сегменты, все записи которых не больше переданного номера
+     *
+     * @param sequence номер последней записи, покрытой снимком
+     * @throws UncheckedIOException если сегменты не удалось прочитать или удалить
+     */
+    public void deleteSegmentsUpTo(long sequence) {
+        try {
+            List<Path> segments = segments(config.directory());
+            for (int i = 0; i + 1 < segments.size(); i++) {
+                if (startOf(segments.get(i + 1)) <= sequence + 1) {
+                    Files.deleteIfExists(segments.get(i));
+                }
+            }
+            Directories.sync(config.directory());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Дописывает очередь, делает последний fsync и закрывает файл
+     */
+    @Override
+    public void close() {
+        long stamp = appendLock.writeLock();
+        try {
+            closed = true;
+        } finally {
+            appendLock.unlockWrite(stamp);
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Воспроизводит журнал по порядку. Оборванный или повреждённый кадр обрезается вместе со всеми
+     * последующими сегментами: записи после дыры нельзя применять
+     *
+     * @param directory каталог журнала
+     * @param after     номер последней записи, уже покрытой снимком
+     * @param consumer  получатель записей с номером больше after
+     * @return номер последней корректной записи журнала, но не меньше after
+     * @throws IOException если каталог не удалось прочитать
+     */
+    public static long replay(Path directory, long after, Consumer<LogEntry> consumer) throws IOException {
+        long last = after;
+        List<Path> segments = segments(directory);
+        for (int i = 0; i < segments.size(); i++) {
+            long valid = 0;
+            boolean torn = false;
+            try (CountingInputStream counting = new CountingInputStream(new BufferedInputStream(Files.newInputStream(segments.get(i))));
+                 DataInputStream in = new DataInputStream(counting)) {
+                while (true) {
+                    LogEntry entry = ProductCodec.decode(in);
+                    if (entry == null) {
+                        break;
+                    }
+                    valid = counting.count;
+                    if (entry.sequence() > after) {
+                        consumer.accept(entry);
+                    }
+                    last = Math.max(last, entry.sequence());
+                }
+            } catch (IOException e) {
+                torn = true;
+            }
+            if (torn) {
+                try (FileChannel file = FileChannel.open(segments.get(i), StandardOpenOption.WRITE)) {
+                    file.truncate(valid);
+                }
+                for (Path later : segments.subList(i + 1, segments.size())) {
+                    Files.deleteIfExists(later);
+                }
+                return last;
+            }
+        }
+        return last;
+    }
+
+    private void writeLoop() {
+        List<Object> batch = new ArrayList<>(config.groupCommitSize());
+        long syncIntervalNanos = config.syncInterval().toNanos();
+        long lastSync = System.nanoTime();
+        long written = durable;
+        try {
+            while (!closed || !queue.isEmpty()) {
+                boolean unsynced = written > durable;
+                long timeout = unsynced
+                        ? Math.max(0, syncIntervalNanos - (System.nanoTime() - lastSync))
+                        : TimeUnit.MILLISECONDS.toNanos(IDLE_POLL_MILLIS);
+                Object first = queue.poll(timeout, TimeUnit.NANOSECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, config.groupCommitSize() - 1);
+                    written = writeBatch(batch, written);
+                    batch.clear();
+                }
+                if (written > durable && System.nanoTime() - lastSync >= syncIntervalNanos) {
+                    channel.force(false);
+                    lastSync = System.nanoTime();
+                    markDurable(written);
+                }
+            }
+            channel.force(false);
+            markDurable(written);
+        } catch (IOException e) {
+            fail(e, batch);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail(new IOException("Log writer interrupted", e), batch);
+        } finally {
+            closeChannel();
+        }
+    }
+
+    /**
+     * Все записи с номером не больше номера переключения стоят в очереди раньше него,
+     * поэтому к переключению ряд номеров уже непрерывен
+     */
+    private long writeBatch(List<Object> batch, long written) throws IOException {
+        List<ByteBuffer> frames = new ArrayList<>(batch.size());
+        for (Object item : batch) {
+            if (item instanceof Frame frame) {
+                pending.add(frame);
+            } else if (item instanceof Rotation rotation) {
+                written = takeContiguous(frames, written);
+                writeFully(frames);
+                frames.clear();
+                channel.force(false);
+                markDurable(written);
+                channel.close();
+                channel = openSegment(rotation.sequence() + 1);
+                rotation.rotated().complete(rotation.sequence());
+            }
+        }
+        written = takeContiguous(frames, written);
+        writeFully(frames);
+        return written;
+    }
+
+    private long takeContiguous(List<ByteBuffer> frames, long written) {
+        while (!pending.isEmpty() && pending.peek().sequence() == written + 1) {
+            frames.add(ByteBuffer.wrap(pending.poll().bytes()));
+            written++;
+        }
+        return written;
+    }
+
+    private void writeFully(List<ByteBuffer> frames) throws IOException {
+        ByteBuffer[] buffers = frames.toArray(ByteBuffer[]::new);
+        long remaining = frames.stream().mapToLong(ByteBuffer::remaining).sum();
+        while (remaining > 0) {
+            remaining -= channel.write(buffers);
+        }
+    }
+
+    private void markDurable(long sequence) {
+        durableLock.lock();
+        try {
+            durable = sequence;
+            durableChanged.signalAll();
+        } finally {
+            durableLock.unlock();
+        }
+    }
+
+    private void fail(IOException e, List<Object> batch) {
+        failure = e;
+        Stream.concat(batch.stream(), queue.stream())
+                .filter(Rotation.class::isInstance)
+                .map(Rotation.class::cast)
+                .forEach(rotation -> rotation.rotated().completeExceptionally(e));
+        durableLock.lock();
+        try {
+            durableChanged.signalAll();
+        } finally {
+            durableLock.unlock();
+        }
+    }
+
+    /**
+     * Номер записи уже выдан, поэтому прерывание не отменяет постановку в очередь: иначе в журнале осталась бы дыра,
+     * после которой фоновый поток не пишет ничего. Флаг прерывания восстанавливается после постановки
+     */
+    private void enqueue(Object item) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    if (queue.offer(item, IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                        return;
+                    }
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+                if (failure != null) {
+                    throw new UncheckedIOException("Write-ahead log failed", failure);
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void checkWritable() {
+        if (failure != null) {
+            throw new UncheckedIOException("Write-ahead log failed", failure);
+        }
+        if (closed) {
+            throw new UncheckedIOException(new IOException("Write-ahead log is closed"));
+        }
+    }
+
+    private void closeChannel() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            if (failure == null) {
+                failure = e;
+            }
+        }
+    }
+
+    /**
+     * Новый сегмент попадает в каталог на диске до первой записи в него, иначе fsync записей сегмента
+     * не спасает их от потери вместе с самим файлом
+     */
+    private FileChannel openSegment(long firstSequence) throws IOException {
+        Files.createDirectories(config.directory());
+        FileChannel segment = FileChannel.open(config.directory().resolve(SEGMENT_PREFIX + firstSequence + SEGMENT_SUFFIX),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        try {
+            Directories.sync(config.directory());
+        } catch (IOException e) {
+            segment.close();
+            throw e;
+        }
+        return segment;
+    }
+
+    private static long continuedSegmentStart(Path directory, long lastSequence) throws IOException {
+        List<Path> segments = segments(directory);
+        if (!segments.isEmpty()) {
+            long start = startOf(segments.get(segments.size() - 1));
+            if (start <= lastSequence + 1) {
+                return start;
+            }
+        }
+        return lastSequence + 1;
+    }
+
+    private static List<Path> segments(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                    .filter(file -> file.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted((first, second) -> Long.compare(startOf(first), startOf(second)))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static long startOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private record Frame(long sequence, byte[] bytes) {
+    }
+
+    private record Rotation(long sequence, CompletableFuture<Long> rotated) {
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+
+        private long count;
+
+        private CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = super.read();
+            if (value >= 0) {
+                count++;
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package ru.clevertec.product.repository.storage;
+
+import java.time.Duration;
+
+/**
+ * Настройки отложенной записи
+ *
+ * @param capacity      максимальное количество продуктов с несохранёнными изменениями
+ * @param batchSize     количество продуктов, после которого буфер сбрасывается не дожидаясь интервала,
+ *                      и максимальный размер одной пачки записи
+ * @param flushInterval максимальное время, которое изменение ждёт в буфере
+ * @param offerTimeout  сколько запись нового продукта ждёт места в заполненном буфере
+ */
+public record WriteBehindConfig(int capacity,
+                                int batchSize,
+                                Duration flushInterval,
+                                Duration offerTimeout) {
+
+    public WriteBehindConfig {
+        if (capacity <= 0 || batchSize <= 0) {
+            throw new IllegalArgumentException("Capacity and batch size must be positive");
+        }
+        if (flushInterval == null || flushInterval.isNegative() || flushInterval.isZero()) {
+            throw new IllegalArgumentException("Flush interval must be positive");
+        }
+        if (offerTimeout == null || offerTimeout.isNegative()) {
+            throw new IllegalArgumentException("Offer timeout cannot be null or negative");
+        }
+    }
+
+    /**
+     * Настройки по умолчанию: до 65 536 продуктов в буфере, пачки по 1 024 продукта,
+     * сброс не реже раза в 100 мс, запись ждёт места до секунды
+     *
+     * @return настройки
+     */
+    public static WriteBehindConfig defaults() {
+        return new WriteBehindConfig(65_536, 1_024, Duration.ofMillis(100), Duration.ofSeconds(1));
+    }
+}
@@ -0,0 +1,64 @@
+package ru.clevertec.product.service;
+
+import ru.clevertec.product.data.InfoProductDto;
+import ru.clevertec.product.data.ProductDto;
+import ru.clevertec.product.exception.ProductNotFoundException;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Асинхронные операции над продуктами. Исключение синхронной операции завершает результат исключительно,
+ * а не выбрасывается из метода
+ */
+public interface AsyncProductService extends AutoCloseable {
+
+    /**
+     * Ищет продукт по идентификатору
+     *
+     * @param uuid идентификатор продукта
+     * @return найденный продукт или {@link ProductNotFoundException}, если не найден,
+     * {@link RejectedExecutionException}, если очередь операций переполнена
+     */
+    CompletableFuture<InfoProductDto> get(UUID uuid);
+
+    /**
+     * Возвращает все существующие продукты
+     *
+     * @return лист с информацией о продуктах
+     */
+    CompletableFuture<List<InfoProductDto>> getAll();
+
+    /**
+     * Создаёт новый продукт из DTO
+     *
+     * @param productDto DTO с информацией о создании
+     * @return идентификатор созданного продукта
+     */
+    CompletableFuture<UUID> create(ProductDto productDto);
+
+    /**
+     * Обновляет уже существующий продукт из информации полученной в DTO
+     *
+     * @param uuid       идентификатор продукта для обновления
+     * @param productDto DTO с информацией об обновлении
+     * @return завершается после обновления или {@link ProductNotFoundException}, если не найден
+     */
+    CompletableFuture<Void> update(UUID uuid, ProductDto productDto);
+
+    /**
+     * Удаляет существующий продукт
+     *
+     * @param uuid идентификатор продукта для удаления
+     * @return завершается после удаления
+     */
+    CompletableFuture<Void> delete(UUID uuid);
+
+    /**
+     * Перестаёт принимать операции и ждёт завершения уже принятых
+     */
+    @Override
+    void close();
+}
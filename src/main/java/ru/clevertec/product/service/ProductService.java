@@ -1,11 +1,17 @@
 package ru.clevertec.product.service;
 
 import ru.clevertec.product.data.InfoProductDto;
+import ru.clevertec.product.data.PriceStatistics;
 import ru.clevertec.product.data.ProductDto;
+import ru.clevertec.product.data.ProductQuery;
+import ru.clevertec.product.data.ProductQueryResult;
 import ru.clevertec.product.exception.ProductNotFoundException;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 public interface ProductService {
 
@@ -25,6 +31,59 @@ public interface ProductService {
      */
     List<InfoProductDto> getAll();
 
+    /**
+     * Возвращает страницу продуктов в порядке возрастания идентификаторов
+     *
+     * @param after идентификатор последнего продукта предыдущей страницы, null для первой страницы
+     * @param limit максимальный размер страницы
+     * @return лист с информацией о продуктах страницы
+     * @throws IllegalArgumentException если limit не положительный
+     */
+    List<InfoProductDto> getPage(UUID after, int limit);
+
+    /**
+     * Ленивый поток всех продуктов, продукты маппятся по мере чтения потока,
+     * поэтому память не зависит от размера каталога
+     *
+     * @return поток с информацией о продуктах
+     */
+    Stream<InfoProductDto> streamAll();
+
+    /**
+     * Ищет продукты по идентификаторам
+     *
+     * @param uuids идентификаторы продуктов
+     * @return лист с информацией о найденных продуктах, ненайденные пропускаются
+     */
+    List<InfoProductDto> getAll(Collection<UUID> uuids);
+
+    /**
+     * Ищет продукты по словам в названии и описании, совпадения в названии ранжируются выше
+     *
+     * @param query слова запроса
+     * @param limit максимальное количество продуктов
+     * @return лист с информацией о найденных продуктах от наиболее подходящих к наименее
+     * @throws IllegalArgumentException если limit не положительный
+     */
+    List<InfoProductDto> search(String query, int limit);
+
+    /**
+     * Возвращает статистику стоимостей продуктов в диапазоне включительно
+     *
+     * @param from нижняя граница стоимости, null если не ограничена
+     * @param to   верхняя граница стоимости, null если не ограничена, обе null - весь каталог
+     * @return количество, минимум, максимум, сумма и среднее стоимостей
+     */
+    PriceStatistics getPriceStatistics(BigDecimal from, BigDecimal to);
+
+    /**
+     * Отбирает продукты по условиям запроса за один параллельный проход по каталогу
+     *
+     * @param query условия, сортировка и лимит
+     * @return лучшие limit продуктов в порядке сортировки, количество и статистика стоимостей всех подходящих
+     */
+    ProductQueryResult query(ProductQuery query);
+
     /**
      * Создаёт новый продукт из DTO
      *
@@ -34,10 +93,21 @@ public interface ProductService {
     UUID create(ProductDto productDto);
 
     /**
-     * Обновляет уже существующий продукт из информации полученной в DTO
+     * Создаёт пачку новых продуктов из DTO, все продукты пачки получают одно время создания
+     *
+     * @param productDtos DTO с информацией о создании
+     * @return идентификаторы созданных продуктов в порядке передачи DTO
+     */
+    List<UUID> createAll(List<ProductDto> productDtos);
+
+    /**
+     * Обновляет уже существующий продукт из информации полученной в DTO.
+     * При конкурентном обновлении того же продукта повторяет попытку на свежей версии,
+     * поэтому ни одно обновление не теряется
      *
      * @param uuid       идентификатор продукта для обновления
      * @param productDto DTO с информацией об обновлении
+     * @throws ProductNotFoundException если не найден
      */
     void update(UUID uuid, ProductDto productDto);
 
@@ -47,4 +117,11 @@ public interface ProductService {
      * @param uuid идентификатор продукта для удаления
      */
     void delete(UUID uuid);
+
+    /**
+     * Удаляет существующие продукты
+     *
+     * @param uuids идентификаторы продуктов для удаления
+     */
+    void deleteAll(Collection<UUID> uuids);
 }
@@ -0,0 +1,17 @@
+package ru.clevertec.product.service;
+
+import ru.clevertec.product.data.InfoProductDto;
+
+import java.util.concurrent.Flow;
+
+public interface ReactiveProductService {
+
+    /**
+     * Публикует все продукты в порядке возрастания идентификаторов. Продукты читаются из хранилища
+     * пачками только под запрошенный подписчиком спрос, поэтому медленный подписчик не заставляет
+     * держать в памяти весь каталог. Каждая подписка читает каталог заново
+     *
+     * @return холодный издатель с информацией о продуктах
+     */
+    Flow.Publisher<InfoProductDto> getAll();
+}
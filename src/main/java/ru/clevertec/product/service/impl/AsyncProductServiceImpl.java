@@ -0,0 +1,138 @@
+package ru.clevertec.product.service.impl;
+
+import ru.clevertec.product.data.InfoProductDto;
+import ru.clevertec.product.data.ProductDto;
+import ru.clevertec.product.service.AsyncProductService;
+import ru.clevertec.product.service.ProductService;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Выполняет операции синхронного сервиса в отдельных потоках.
+ * <p>
+ * По умолчанию каждая операция получает свой виртуальный поток: блокирующее ожидание, например fsync журнала,
+ * освобождает поток-носитель, поэтому одновременно могут выполняться десятки тысяч операций.
+ * Если виртуальные потоки не подходят, например из-за библиотек, блокирующихся внутри {@code synchronized},
+ * -Dru.clevertec.product.asyncPlatformThreads=N переключает сервис на N платформенных потоков с ограниченной очередью.
+ * Операция, не поместившаяся в очередь, завершается {@link RejectedExecutionException}, а не ждёт
+ */
+public class AsyncProductServiceImpl implements AsyncProductService {
+
+    /**
+     * Количество платформенных потоков по умолчанию, 0 - виртуальные потоки
+     */
+    private static final int PLATFORM_THREADS = Integer.getInteger("ru.clevertec.product.asyncPlatformThreads", 0);
+    private static final int QUEUE_PER_PLATFORM_THREAD = 1_024;
+    private static final String THREAD_PREFIX = "product-async-";
+
+    private final ProductService delegate;
+    private final ExecutorService executor;
+
+    /**
+     * @param delegate синхронный сервис, операции которого выполняются асинхронно
+     */
+    public AsyncProductServiceImpl(ProductService delegate) {
+        this(delegate, PLATFORM_THREADS > 0
+                ? platformThreads(PLATFORM_THREADS, PLATFORM_THREADS * QUEUE_PER_PLATFORM_THREAD)
+                : virtualThreads());
+    }
+
+    /**
+     * @param delegate синхронный сервис, операции которого выполняются асинхронно
+     * @param executor исполнитель операций, закрывается вместе с сервисом
+     */
+    public AsyncProductServiceImpl(ProductService delegate, ExecutorService executor) {
+        this.delegate = delegate;
+        this.executor = executor;
+    }
+
+    /**
+     * @return исполнитель, запускающий каждую операцию в новом виртуальном потоке
+     */
+    public static ExecutorService virtualThreads() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual()
+                .name(THREAD_PREFIX, 0)
+                .factory());
+    }
+
+    /**
+     * @param threads       количество потоков
+     * @param queueCapacity максимальное количество операций, ожидающих свободного потока
+     * @return исполнитель на платформенных потоках, отклоняющий операции сверх очереди
+     * @throws IllegalArgumentException если threads или queueCapacity не положительные
+     */
+    public static ExecutorService platformThreads(int threads, int queueCapacity) {
+        return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform()
+                        .name(THREAD_PREFIX, 0)
+                        .daemon()
+                        .factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Override
+    public CompletableFuture<InfoProductDto> get(UUID uuid) {
+        return submit(() -> delegate.get(uuid));
+    }
+
+    @Override
+    public CompletableFuture<List<InfoProductDto>> getAll() {
+        return submit(delegate::getAll);
+    }
+
+    @Override
+    public CompletableFuture<UUID> create(ProductDto productDto) {
+        return submit(() -> delegate.create(productDto));
+    }
+
+    @Override
+    public CompletableFuture<Void> update(UUID uuid, ProductDto productDto) {
+        return submit(() -> {
+            delegate.update(uuid, productDto);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> delete(UUID uuid) {
+        return submit(() -> {
+            delegate.delete(uuid);
+            return null;
+        });
+    }
+
+    @Override
+    public void close() {
+        executor.close();
+    }
+
+    /**
+     * Результат завершается исключением синхронной операции как есть, без обёртки в
+     * {@link java.util.concurrent.CompletionException}
+     */
+    private <T> CompletableFuture<T> submit(Supplier<T> operation) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    result.complete(operation.get());
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,216 @@
+package ru.clevertec.product.service.impl;
+
+import ru.clevertec.product.data.InfoProductDto;
+import ru.clevertec.product.data.PriceStatistics;
+import ru.clevertec.product.data.ProductDto;
+import ru.clevertec.product.data.ProductQuery;
+import ru.clevertec.product.data.ProductQueryResult;
+import ru.clevertec.product.service.ProductService;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Кэширует результат {@link ProductService#get(UUID)} поверх другого сервиса.
+ * <p>
+ * Попадание в кэш - это один поиск в {@link ConcurrentHashMap} без блокировок и выделения памяти.
+ * Размер ограничен, вытеснение работает по алгоритму часов (second chance) - приближению LRU,
+ * которое не требует переупорядочивать записи при каждом чтении.
+ * <p>
+ * {@link #update} и {@link #delete} сбрасывают запись после изменения в нижележащем сервисе.
+ * Промах, прочитавший продукт до такого сброса, не оставляет в кэше устаревшее значение:
+ * счётчик сбросов проверяется после вставки
+ */
+public class CachingProductService implements ProductService {
+
+    private final ProductService delegate;
+    private final int maximumSize;
+    private final ConcurrentMap<UUID, Entry> entries = new ConcurrentHashMap<>();
+    private final Queue<Entry> clock = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param delegate    сервис, результаты которого кэшируются
+     * @param maximumSize максимальное количество продуктов в кэше
+     * @throws IllegalArgumentException если maximumSize не положительный
+     */
+    public CachingProductService(ProductService delegate, int maximumSize) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive");
+        }
+        this.delegate = delegate;
+        this.maximumSize = maximumSize;
+    }
+
+    @Override
+    public InfoProductDto get(UUID uuid) {
+        Entry cached = entries.get(uuid);
+        if (cached != null) {
+            cached.touch();
+            hits.increment();
+            return cached.value;
+        }
+        misses.increment();
+        long observed = invalidations.get();
+        InfoProductDto value = delegate.get(uuid);
+        Entry loaded = new Entry(uuid, value);
+        if (entries.putIfAbsent(uuid, loaded) == null) {
+            if (invalidations.get() != observed) {
+                entries.remove(uuid, loaded);
+                return value;
+            }
+            clock.offer(loaded);
+            queued.incrementAndGet();
+            evictIfNeeded();
+        }
+        return value;
+    }
+
+    @Override
+    public List<InfoProductDto> getAll() {
+        return delegate.getAll();
+    }
+
+    @Override
+    public List<InfoProductDto> getPage(UUID after, int limit) {
+        return delegate.getPage(after, limit);
+    }
+
+    @Override
+    public Stream<InfoProductDto> streamAll() {
+        return delegate.streamAll();
+    }
+
+    @Override
+    public List<InfoProductDto> getAll(Collection<UUID> uuids) {
+        return delegate.getAll(uuids);
+    }
+
+    @Override
+    public List<InfoProductDto> search(String query, int limit) {
+        return delegate.search(query, limit);
+    }
+
+    @Override
+    public PriceStatistics getPriceStatistics(BigDecimal from, BigDecimal to) {
+        return delegate.getPriceStatistics(from, to);
+    }
+
+    @Override
+    public ProductQueryResult query(ProductQuery query) {
+        return delegate.query(query);
+    }
+
+    @Override
+    public UUID create(ProductDto productDto) {
+        return delegate.create(productDto);
+    }
+
+    @Override
+    public List<UUID> createAll(List<ProductDto> productDtos) {
+        return delegate.createAll(productDtos);
+    }
+
+    @Override
+    public void update(UUID uuid, ProductDto productDto) {
+        try {
+            delegate.update(uuid, productDto);
+        } finally {
+            invalidate(uuid);
+        }
+    }
+
+    @Override
+    public void delete(UUID uuid) {
+        delegate.delete(uuid);
+        invalidate(uuid);
+    }
+
+    @Override
+    public void deleteAll(Collection<UUID> uuids) {
+        delegate.deleteAll(uuids);
+        uuids.forEach(this::invalidate);
+    }
+
+    /**
+     * Текущие счётчики кэша
+     *
+     * @return снимок счётчиков
+     */
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), entries.size());
+    }
+
+    private void invalidate(UUID uuid) {
+        invalidations.incrementAndGet();
+        entries.remove(uuid);
+    }
+
+    /**
+     * Проходит по часам не больше одного круга: запись, которую читали с прошлого прохода,
+     * получает второй шанс, запись, сброшенная при изменении, просто выбрасывается из очереди
+     */
+    private void evictIfNeeded() {
+        int budget = queued.get();
+        while (budget-- > 0 && (entries.size() > maximumSize || queued.get() > 2 * maximumSize)) {
+            Entry candidate = clock.poll();
+            if (candidate == null) {
+                return;
+            }
+            queued.decrementAndGet();
+            if (entries.get(candidate.uuid) != candidate) {
+                continue;
+            }
+            if (candidate.referenced || entries.size() <= maximumSize) {
+                candidate.referenced = false;
+                clock.offer(candidate);
+                queued.incrementAndGet();
+            } else if (entries.remove(candidate.uuid, candidate)) {
+                evictions.increment();
+            }
+        }
+    }
+
+    /**
+     * Счётчики кэша
+     *
+     * @param hits      количество попаданий
+     * @param misses    количество промахов
+     * @param evictions количество вытесненных продуктов
+     * @param size      текущее количество продуктов в кэше
+     */
+    public record Stats(long hits, long misses, long evictions, int size) {
+    }
+
+    private static final class Entry {
+
+        private final UUID uuid;
+        private final InfoProductDto value;
+        private volatile boolean referenced;
+
+        private Entry(UUID uuid, InfoProductDto value) {
+            this.uuid = uuid;
+            this.value = value;
+        }
+
+        private void touch() {
+            if (!referenced) {
+                referenced = true;
+            }
+        }
+    }
+}
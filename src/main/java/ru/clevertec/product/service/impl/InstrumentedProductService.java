@@ -0,0 +1,189 @@
+package ru.clevertec.product.service.impl;
+
+import ru.clevertec.product.data.InfoProductDto;
+import ru.clevertec.product.data.PriceStatistics;
+import ru.clevertec.product.data.ProductDto;
+import ru.clevertec.product.data.ProductQuery;
+import ru.clevertec.product.data.ProductQueryResult;
+import ru.clevertec.product.exception.ProductNotFoundException;
+import ru.clevertec.product.metrics.OperationMetrics;
+import ru.clevertec.product.metrics.ProductMetrics;
+import ru.clevertec.product.service.ProductService;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Замеряет задержку каждой операции другого сервиса и считает вызовы и ошибки.
+ * {@link ProductNotFoundException} считается промахом, а не ошибкой.
+ * <p>
+ * Если метрики выключены, вызов сразу уходит в нижележащий сервис без чтения часов.
+ * У {@link #streamAll()} замеряется только создание потока, а не его чтение
+ */
+public class InstrumentedProductService implements ProductService {
+
+    private static final String PREFIX = "service.";
+
+    private final ProductService delegate;
+    private final ProductMetrics metrics;
+    private final OperationMetrics get;
+    private final OperationMetrics getAll;
+    private final OperationMetrics getPage;
+    private final OperationMetrics streamAll;
+    private final OperationMetrics getAllById;
+    private final OperationMetrics search;
+    private final OperationMetrics getPriceStatistics;
+    private final OperationMetrics query;
+    private final OperationMetrics create;
+    private final OperationMetrics createAll;
+    private final OperationMetrics update;
+    private final OperationMetrics delete;
+    private final OperationMetrics deleteAll;
+
+    /**
+     * @param delegate сервис, операции которого замеряются
+     * @param metrics  реестр, в который пишутся метрики
+     */
+    public InstrumentedProductService(ProductService delegate, ProductMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+        this.get = metrics.operation(PREFIX + "get");
+        this.getAll = metrics.operation(PREFIX + "getAll");
+        this.getPage = metrics.operation(PREFIX + "getPage");
+        this.streamAll = metrics.operation(PREFIX + "streamAll");
+        this.getAllById = metrics.operation(PREFIX + "getAllById");
+        this.search = metrics.operation(PREFIX + "search");
+        this.getPriceStatistics = metrics.operation(PREFIX + "getPriceStatistics");
+        this.query = metrics.operation(PREFIX + "query");
+        this.create = metrics.operation(PREFIX + "create");
+        this.createAll = metrics.operation(PREFIX + "createAll");
+        this.update = metrics.operation(PREFIX + "update");
+        this.delete = metrics.operation(PREFIX + "delete");
+        this.deleteAll = metrics.operation(PREFIX + "deleteAll");
+    }
+
+    @Override
+    public InfoProductDto get(UUID uuid) {
+        return metrics.isEnabled()
+                ? measure(get, () -> delegate.get(uuid))
+                : delegate.get(uuid);
+    }
+
+    @Override
+    public List<InfoProductDto> getAll() {
+        return metrics.isEnabled()
+                ? measure(getAll, delegate::getAll)
+                : delegate.getAll();
+    }
+
+    @Override
+    public List<InfoProductDto> getPage(UUID after, int limit) {
+        return metrics.isEnabled()
+                ? measure(getPage, () -> delegate.getPage(after, limit))
+                : delegate.getPage(after, limit);
+    }
+
+    @Override
+    public Stream<InfoProductDto> streamAll() {
+        return metrics.isEnabled()
+                ? measure(streamAll, delegate::streamAll)
+                : delegate.streamAll();
+    }
+
+    @Override
+    public List<InfoProductDto> getAll(Collection<UUID> uuids) {
+        return metrics.isEnabled()
+                ? measure(getAllById, () -> delegate.getAll(uuids))
+                : delegate.getAll(uuids);
+    }
+
+    @Override
+    public List<InfoProductDto> search(String query, int limit) {
+        return metrics.isEnabled()
+                ? measure(search, () -> delegate.search(query, limit))
+                : delegate.search(query, limit);
+    }
+
+    @Override
+    public PriceStatistics getPriceStatistics(BigDecimal from, BigDecimal to) {
+        return metrics.isEnabled()
+                ? measure(getPriceStatistics, () -> delegate.getPriceStatistics(from, to))
+                : delegate.getPriceStatistics(from, to);
+    }
+
+    @Override
+    public ProductQueryResult query(ProductQuery query) {
+        return metrics.isEnabled()
+                ? measure(this.query, () -> delegate.query(query))
+                : delegate.query(query);
+    }
+
+    @Override
+    public UUID create(ProductDto productDto) {
+        return metrics.isEnabled()
+                ? measure(create, () -> delegate.create(productDto))
+                : delegate.create(productDto);
+    }
+
+    @Override
+    public List<UUID> createAll(List<ProductDto> productDtos) {
+        return metrics.isEnabled()
+                ? measure(createAll, () -> delegate.createAll(productDtos))
+                : delegate.createAll(productDtos);
+    }
+
+    @Override
+    public void update(UUID uuid, ProductDto productDto) {
+        if (!metrics.isEnabled()) {
+            delegate.update(uuid, productDto);
+            return;
+        }
+        measure(update, () -> {
+            delegate.update(uuid, productDto);
+            return null;
+        });
+    }
+
+    @Override
+    public void delete(UUID uuid) {
+        if (!metrics.isEnabled()) {
+            delegate.delete(uuid);
+            return;
+        }
+        measure(delete, () -> {
+            delegate.delete(uuid);
+            return null;
+        });
+    }
+
+    @Override
+    public void deleteAll(Collection<UUID> uuids) {
+        if (!metrics.isEnabled()) {
+            delegate.deleteAll(uuids);
+            return;
+        }
+        measure(deleteAll, () -> {
+            delegate.deleteAll(uuids);
+            return null;
+        });
+    }
+
+    private static <T> T measure(OperationMetrics operation, Supplier<T> action) {
+        long start = System.nanoTime();
+        try {
+            return action.get();
+        } catch (ProductNotFoundException e) {
+            operation.notFound();
+            throw e;
+        } catch (RuntimeException | Error e) {
+            operation.error();
+            throw e;
+        } finally {
+            operation.record(System.nanoTime() - start);
+        }
+    }
+}
@@ -2,23 +2,32 @@ package ru.clevertec.product.service.impl;
 
 import lombok.RequiredArgsConstructor;
 import ru.clevertec.product.data.InfoProductDto;
+import ru.clevertec.product.data.PriceStatistics;
 import ru.clevertec.product.data.ProductDto;
+import ru.clevertec.product.data.ProductQuery;
+import ru.clevertec.product.data.ProductQueryResult;
 import ru.clevertec.product.entity.Product;
 import ru.clevertec.product.exception.ProductNotFoundException;
+import ru.clevertec.product.generator.IdGenerator;
 import ru.clevertec.product.mapper.ProductMapper;
 import ru.clevertec.product.repository.ProductRepository;
 import ru.clevertec.product.service.ProductService;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @RequiredArgsConstructor
 public class ProductServiceImpl implements ProductService {
 
     private final ProductRepository productRepository;
     private final ProductMapper productMapper;
+    private final IdGenerator idGenerator;
 
     @Override
     public InfoProductDto get(UUID uuid) {
@@ -29,28 +38,94 @@ public class ProductServiceImpl implements ProductService {
 
     @Override
     public List<InfoProductDto> getAll() {
-        return productRepository.findAll().stream()
-                .map(productMapper::toInfoProductDto)
-                .collect(Collectors.toList());
+        return toInfoProductDtos(productRepository.findAll());
+    }
+
+    @Override
+    public List<InfoProductDto> getPage(UUID after, int limit) {
+        return toInfoProductDtos(productRepository.findPage(after, limit));
+    }
+
+    @Override
+    public Stream<InfoProductDto> streamAll() {
+        return productRepository.streamAll()
+                .map(productMapper::toInfoProductDto);
+    }
+
+    @Override
+    public List<InfoProductDto> getAll(Collection<UUID> uuids) {
+        return toInfoProductDtos(productRepository.findAllById(uuids));
+    }
+
+    @Override
+    public List<InfoProductDto> search(String query, int limit) {
+        return toInfoProductDtos(productRepository.search(query, limit));
+    }
+
+    @Override
+    public PriceStatistics getPriceStatistics(BigDecimal from, BigDecimal to) {
+        return productRepository.priceStatistics(from, to);
+    }
+
+    /**
+     * Сканирует {@link ProductRepository#streamAll()} параллельным потоком в общем {@link java.util.concurrent.ForkJoinPool},
+     * в DTO превращаются только попавшие в ответ продукты
+     */
+    @Override
+    public ProductQueryResult query(ProductQuery query) {
+        QueryAccumulator result = productRepository.streamAll()
+                .parallel()
+                .collect(QueryAccumulator.collector(query));
+        return new ProductQueryResult(toInfoProductDtos(result.top()), result.count(), result.priceStatistics());
     }
 
     @Override
     public UUID create(ProductDto productDto) {
-        Product product = productMapper.toProduct(productDto);
-        product.setCreated(LocalDateTime.now());
-        product.setUuid(UUID.randomUUID());
+        Product product = newProduct(productDto, LocalDateTime.now());
         return productRepository.save(product).getUuid();
     }
 
+    @Override
+    public List<UUID> createAll(List<ProductDto> productDtos) {
+        LocalDateTime created = LocalDateTime.now();
+        List<Product> products = productDtos.stream()
+                .map(productDto -> newProduct(productDto, created))
+                .collect(Collectors.toList());
+        return productRepository.saveAll(products).stream()
+                .map(Product::getUuid)
+                .collect(Collectors.toList());
+    }
+
     @Override
     public void update(UUID uuid, ProductDto productDto) {
-        Product product = productRepository.findById(uuid).orElseThrow(() -> new ProductNotFoundException(uuid));
-        productMapper.merge(product, productDto);
-        productRepository.save(product);
+        while (true) {
+            Product product = productRepository.findById(uuid).orElseThrow(() -> new ProductNotFoundException(uuid));
+            productMapper.merge(product, productDto);
+            if (productRepository.compareAndSave(product).isPresent()) {
+                return;
+            }
+            Thread.onSpinWait();
+        }
     }
 
     @Override
     public void delete(UUID uuid) {
         productRepository.delete(uuid);
     }
+
+    @Override
+    public void deleteAll(Collection<UUID> uuids) {
+        productRepository.deleteAll(uuids);
+    }
+
+    private List<InfoProductDto> toInfoProductDtos(List<Product> products) {
+        return products.isEmpty() ? new ArrayList<>() : productMapper.toInfoProductDtoList(products);
+    }
+
+    private Product newProduct(ProductDto productDto, LocalDateTime created) {
+        Product product = productMapper.toProduct(productDto);
+        product.setCreated(created);
+        product.setUuid(idGenerator.generate());
+        return product;
+    }
 }
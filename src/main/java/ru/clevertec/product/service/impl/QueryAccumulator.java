@@ -0,0 +1,179 @@
+package ru.clevertec.product.service.impl;
+
+import ru.clevertec.product.data.PriceStatistics;
+import ru.clevertec.product.data.ProductQuery;
+import ru.clevertec.product.entity.Product;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collector;
+
+/**
+ * Результат {@link ProductQuery} по части продуктов: лучшие limit продуктов в куче и агрегаты всех подходящих.
+ * <p>
+ * Каждая задача параллельного потока заполняет свой аккумулятор, затем аккумуляторы сливаются,
+ * поэтому сканирование не берёт блокировок. В куче не больше limit продуктов, худший на вершине: продукт хуже
+ * вершины полной кучи отбрасывается одним сравнением, и полная сортировка не нужна.
+ * Не потокобезопасен: один аккумулятор заполняется одним потоком
+ */
+final class QueryAccumulator {
+
+    private final Predicate<Product> filter;
+    private final Comparator<Product> order;
+    private final int limit;
+    private final PriorityQueue<Product> top;
+    private long count;
+    private long priced;
+    private BigDecimal min;
+    private BigDecimal max;
+    private BigDecimal sum = BigDecimal.ZERO;
+
+    private QueryAccumulator(Predicate<Product> filter, Comparator<Product> order, int limit) {
+        this.filter = filter;
+        this.order = order;
+        this.limit = limit;
+        this.top = new PriorityQueue<>(order.reversed());
+    }
+
+    /**
+     * @param query условия, сортировка и лимит
+     * @return коллектор, пригодный для параллельного потока
+     */
+    static Collector<Product, QueryAccumulator, QueryAccumulator> collector(ProductQuery query) {
+        Predicate<Product> filter = filter(query);
+        Comparator<Product> order = order(query);
+        return Collector.of(() -> new QueryAccumulator(filter, order, query.limit()), QueryAccumulator::add,
+                QueryAccumulator::combine, Collector.Characteristics.UNORDERED);
+    }
+
+    /**
+     * @return не больше limit лучших продуктов в порядке сортировки
+     */
+    List<Product> top() {
+        List<Product> products = new ArrayList<>(top);
+        products.sort(order);
+        return products;
+    }
+
+    /**
+     * @return количество всех подходящих продуктов
+     */
+    long count() {
+        return count;
+    }
+
+    /**
+     * @return статистика стоимостей всех подходящих продуктов
+     */
+    PriceStatistics priceStatistics() {
+        return priced == 0
+                ? new PriceStatistics(0, null, null, BigDecimal.ZERO, null)
+                : new PriceStatistics(priced, min, max, sum, sum.divide(BigDecimal.valueOf(priced), MathContext.DECIMAL128));
+    }
+
+    private void add(Product product) {
+        if (!filter.test(product)) {
+            return;
+        }
+        count++;
+        if (product.getPrice() != null) {
+            addPrices(1, product.getPrice(), product.getPrice(), product.getPrice());
+        }
+        offer(product);
+    }
+
+    private QueryAccumulator combine(QueryAccumulator other) {
+        count += other.count;
+        if (other.priced != 0) {
+            addPrices(other.priced, other.min, other.max, other.sum);
+        }
+        other.top.forEach(this::offer);
+        return this;
+    }
+
+    private void addPrices(long priced, BigDecimal min, BigDecimal max, BigDecimal sum) {
+        this.priced += priced;
+        this.min = this.min == null || min.compareTo(this.min) < 0 ? min : this.min;
+        this.max = this.max == null || max.compareTo(this.max) > 0 ? max : this.max;
+        this.sum = this.sum.add(sum);
+    }
+
+    private void offer(Product product) {
+        if (top.size() < limit) {
+            top.add(product);
+        } else if (order.compare(product, top.peek()) < 0) {
+            top.poll();
+            top.add(product);
+        }
+    }
+
+    private static Predicate<Product> filter(ProductQuery query) {
+        Predicate<Product> filter = product -> true;
+        if (query.nameContains() != null) {
+            filter = filter.and(product -> containsIgnoreCase(product.getName(), query.nameContains()));
+        }
+        if (query.descriptionContains() != null) {
+            filter = filter.and(product -> containsIgnoreCase(product.getDescription(), query.descriptionContains()));
+        }
+        if (query.priceFrom() != null || query.priceTo() != null) {
+            filter = filter.and(product -> between(product.getPrice(), query.priceFrom(), query.priceTo()));
+        }
+        if (query.createdFrom() != null || query.createdTo() != null) {
+            filter = filter.and(product -> between(product.getCreated(), query.createdFrom(), query.createdTo()));
+        }
+        return filter;
+    }
+
+    private static Comparator<Product> order(ProductQuery query) {
+        Comparator<Product> byKey = switch (query.sortBy()) {
+            case ID -> null;
+            case NAME -> by(Product::getName, query.descending());
+            case PRICE -> by(Product::getPrice, query.descending());
+            case CREATED -> by(Product::getCreated, query.descending());
+        };
+        Comparator<Product> byUuid = query.sortBy() == ProductQuery.SortKey.ID && query.descending()
+                ? Comparator.comparing(Product::getUuid, Comparator.reverseOrder())
+                : Comparator.comparing(Product::getUuid);
+        return byKey == null ? byUuid : byKey.thenComparing(byUuid);
+    }
+
+    private static <T extends Comparable<? super T>> Comparator<Product> by(Function<Product, T> key, boolean descending) {
+        return Comparator.comparing(key, Comparator.nullsLast(descending
+                ? Comparator.<T>reverseOrder()
+                : Comparator.<T>naturalOrder()));
+    }
+
+    private static <T extends Comparable<? super T>> boolean between(T value, T from, T to) {
+        return value != null
+                && (from == null || value.compareTo(from) >= 0)
+                && (to == null || value.compareTo(to) <= 0);
+    }
+
+    /**
+     * Сравнивает окна текста с подстрокой без создания строк в нижнем регистре,
+     * окно проверяется целиком только если совпал первый символ
+     */
+    private static boolean containsIgnoreCase(String text, String part) {
+        if (text == null) {
+            return false;
+        }
+        if (part.isEmpty()) {
+            return true;
+        }
+        char lower = Character.toLowerCase(part.charAt(0));
+        char upper = Character.toUpperCase(part.charAt(0));
+        for (int i = 0, last = text.length() - part.length(); i <= last; i++) {
+            char c = text.charAt(i);
+            if ((c == lower || c == upper) && text.regionMatches(true, i + 1, part, 1, part.length() - 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
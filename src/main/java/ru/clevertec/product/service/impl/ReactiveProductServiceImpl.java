@@ -0,0 +1,175 @@
+package ru.clevertec.product.service.impl;
+
+import ru.clevertec.product.data.InfoProductDto;
+import ru.clevertec.product.entity.Product;
+import ru.clevertec.product.mapper.ProductMapper;
+import ru.clevertec.product.repository.ProductRepository;
+import ru.clevertec.product.service.ReactiveProductService;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Читает каталог страницами {@link ProductRepository#findPage(UUID, int)} по мере спроса подписчика.
+ * <p>
+ * Подписка держит в памяти не больше одной страницы продуктов, в DTO продукт превращается перед самой
+ * отправкой. Сигналы подписчику отправляет одна задача исполнителя за раз, поэтому {@code request}
+ * из {@code onNext} не вызывает рекурсию. Страницы идут по идентификаторам, а не по снимку:
+ * продукт, созданный позади уже прочитанной страницы, в эту подписку не попадёт
+ */
+public class ReactiveProductServiceImpl implements ReactiveProductService {
+
+    public static final int DEFAULT_CHUNK_SIZE = 256;
+
+    private final ProductRepository productRepository;
+    private final ProductMapper productMapper;
+    private final Executor executor;
+    private final int chunkSize;
+
+    /**
+     * Отправляет сигналы из виртуальных потоков страницами по {@link #DEFAULT_CHUNK_SIZE} продуктов
+     *
+     * @param productRepository хранилище продуктов
+     * @param productMapper     маппер продуктов в DTO
+     */
+    public ReactiveProductServiceImpl(ProductRepository productRepository, ProductMapper productMapper) {
+        this(productRepository, productMapper, Thread::startVirtualThread, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param productRepository хранилище продуктов
+     * @param productMapper     маппер продуктов в DTO
+     * @param executor          исполнитель, из которого отправляются сигналы подписчику
+     * @param chunkSize         размер страницы, читаемой из хранилища за раз
+     * @throws IllegalArgumentException если chunkSize не положительный
+     */
+    public ReactiveProductServiceImpl(ProductRepository productRepository, ProductMapper productMapper,
+                                      Executor executor, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        this.productRepository = productRepository;
+        this.productMapper = productMapper;
+        this.executor = executor;
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public Flow.Publisher<InfoProductDto> getAll() {
+        return subscriber -> {
+            Objects.requireNonNull(subscriber, "Subscriber must not be null");
+            subscriber.onSubscribe(new PageSubscription(subscriber));
+        };
+    }
+
+    /**
+     * Состояние страницы меняет только задача, выполняющая {@link #run()}: счётчик {@code wip}
+     * не даёт запустить вторую, пока первая не закончит, и заставляет первую повторить проход,
+     * если спрос вырос во время отправки
+     */
+    private final class PageSubscription implements Flow.Subscription, Runnable {
+
+        private final Flow.Subscriber<? super InfoProductDto> subscriber;
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile IllegalArgumentException invalidRequest;
+        private List<Product> page = List.of();
+        private int position;
+        private UUID after;
+        private boolean exhausted;
+
+        private PageSubscription(Flow.Subscriber<? super InfoProductDto> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException("Demand must be positive: " + n);
+            } else {
+                requested.accumulateAndGet(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            schedule();
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            do {
+                if (cancelled) {
+                    page = List.of();
+                    return;
+                }
+                if (invalidRequest != null) {
+                    terminate(invalidRequest);
+                    return;
+                }
+                try {
+                    long demand = requested.get();
+                    long emitted = 0;
+                    while (emitted != demand && !cancelled) {
+                        if (position < page.size()) {
+                            subscriber.onNext(productMapper.toInfoProductDto(page.get(position++)));
+                            emitted++;
+                        } else if (exhausted) {
+                            break;
+                        } else {
+                            nextPage();
+                        }
+                    }
+                    if (position == page.size() && exhausted && !cancelled) {
+                        terminate(null);
+                        return;
+                    }
+                    if (emitted != 0 && demand != Long.MAX_VALUE) {
+                        requested.addAndGet(-emitted);
+                    }
+                } catch (RuntimeException e) {
+                    terminate(e);
+                    return;
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void nextPage() {
+            page = productRepository.findPage(after, chunkSize);
+            position = 0;
+            exhausted = page.size() < chunkSize;
+            if (!page.isEmpty()) {
+                after = page.get(page.size() - 1).getUuid();
+            }
+        }
+
+        /**
+         * Завершает подписку, счётчик {@code wip} не сбрасывается, поэтому задача больше не запустится
+         */
+        private void terminate(Throwable error) {
+            cancelled = true;
+            page = List.of();
+            if (error == null) {
+                subscriber.onComplete();
+            } else {
+                subscriber.onError(error);
+            }
+        }
+
+        private void schedule() {
+            if (wip.getAndIncrement() == 0) {
+                executor.execute(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package ru.clevertec.product.exception;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProductNotFoundExceptionTest {
+
+    private static final UUID UUID_VALUE = UUID.fromString("3ecb77f7-0114-47a7-ada7-3ec685d202a7");
+
+    @Test
+    void shouldKeepMessageFormatWhenStackless() {
+        // Given & When
+        ProductNotFoundException exception = new ProductNotFoundException(UUID_VALUE, false);
+
+        // Then
+        assertAll("stackless test",
+                () -> assertEquals(String.format("Product with uuid: %s not found", UUID_VALUE), exception.getMessage()),
+                () -> assertEquals(0, exception.getStackTrace().length, "Stack trace should not be filled"),
+                () -> assertEquals(UUID_VALUE, exception.getUuid()));
+    }
+
+    @Test
+    void shouldFillStackTraceByDefault() {
+        // Given & When
+        ProductNotFoundException exception = new ProductNotFoundException(UUID_VALUE, true);
+
+        // Then
+        assertAll("stack trace test",
+                () -> assertEquals(String.format("Product with uuid: %s not found", UUID_VALUE), exception.getMessage()),
+                () -> assertTrue(exception.getStackTrace().length > 0, "Stack trace should be filled"));
+    }
+}
@@ -0,0 +1,105 @@
+package ru.clevertec.product.generator.impl;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import ru.clevertec.product.generator.IdGenerator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimeOrderedIdGeneratorTest {
+
+    @ParameterizedTest
+    @ValueSource(longs = {0L, 1_697_366_040_000L, 0xFFFF_FFFF_FFFFL >>> 1})
+    void shouldGenerateVersion7UuidWithGivenTimestamp(long millis) {
+        // Given
+        IdGenerator generator = new TimeOrderedIdGenerator(() -> millis);
+
+        // When
+        UUID uuid = generator.generate();
+
+        // Then
+        assertAll("uuid v7 test",
+                () -> assertEquals(7, uuid.version(), "Version should be 7"),
+                () -> assertEquals(2, uuid.variant(), "Variant should be IETF"),
+                () -> assertEquals(millis, TimeOrderedIdGenerator.timestampOf(uuid), "Timestamp should be encoded"));
+    }
+
+    @Test
+    void shouldGenerateIncreasingUuidsWhenClockDoesNotMove() {
+        // Given
+        IdGenerator generator = new TimeOrderedIdGenerator(() -> 1_000L);
+        List<UUID> uuids = new ArrayList<>();
+
+        // When
+        for (int i = 0; i < 10_000; i++) {
+            uuids.add(generator.generate());
+        }
+
+        // Then
+        assertTrue(isStrictlyIncreasing(uuids), "Uuids of one thread should be strictly increasing");
+    }
+
+    @Test
+    void shouldGenerateIncreasingUuidsWhenClockMovesBackwards() {
+        // Given
+        AtomicLong millis = new AtomicLong(5_000L);
+        IdGenerator generator = new TimeOrderedIdGenerator(() -> millis.getAndAdd(-1));
+        List<UUID> uuids = new ArrayList<>();
+
+        // When
+        for (int i = 0; i < 100; i++) {
+            uuids.add(generator.generate());
+        }
+
+        // Then
+        assertTrue(isStrictlyIncreasing(uuids), "Uuids should not go back with the clock");
+    }
+
+    @Test
+    void shouldGenerateUniqueUuidsFromManyThreads() throws Exception {
+        // Given
+        IdGenerator generator = new TimeOrderedIdGenerator();
+        Set<UUID> uuids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+
+        // When
+        for (int i = 0; i < 8; i++) {
+            futures.add(executor.submit(() -> {
+                for (int j = 0; j < 10_000; j++) {
+                    uuids.add(generator.generate());
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(1, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        // Then
+        assertEquals(80_000, uuids.size(), "Every generated uuid should be unique");
+    }
+
+    private static boolean isStrictlyIncreasing(List<UUID> uuids) {
+        for (int i = 1; i < uuids.size(); i++) {
+            if (uuids.get(i - 1).compareTo(uuids.get(i)) >= 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,80 @@
+package ru.clevertec.product.interner.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class WeakStringInternerTest {
+
+    private WeakStringInterner interner;
+
+    @BeforeEach
+    void setUp() {
+        interner = new WeakStringInterner();
+    }
+
+    @Test
+    void shouldReturnSameInstanceForEqualStrings() {
+        // Given
+        String first = new String("Молоко");
+        String second = new String("Молоко");
+
+        // When
+        String internedFirst = interner.intern(first);
+        String internedSecond = interner.intern(second);
+
+        // Then
+        assertAll("intern test", () -> assertSame(first, internedFirst, "First string should become canonical"),
+                () -> assertSame(first, internedSecond, "Equal string should be replaced by canonical one"),
+                () -> assertEquals(1, interner.size()));
+    }
+
+    @Test
+    void shouldReturnNullWhenStringIsNull() {
+        // Given & When & Then
+        assertNull(interner.intern(null));
+    }
+
+    @Test
+    void shouldReturnSingleInstanceWhenInternedConcurrently() throws Exception {
+        // Given
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        Set<String> canonical = ConcurrentHashMap.newKeySet();
+        List<Future<?>> workers = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            workers.add(executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < 10_000; j++) {
+                    canonical.add(interner.intern(new String("Описание " + j % 10)));
+                }
+                return null;
+            }));
+        }
+
+        // When
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get(1, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        // Then
+        assertEquals(10, canonical.stream().map(System::identityHashCode).distinct().count(),
+                "Every distinct text should have exactly one instance");
+    }
+}
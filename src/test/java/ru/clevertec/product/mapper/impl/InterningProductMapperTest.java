@@ -0,0 +1,94 @@
+package ru.clevertec.product.mapper.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.clevertec.product.data.InfoProductDto;
+import ru.clevertec.product.data.ProductDto;
+import ru.clevertec.product.entity.Product;
+import ru.clevertec.product.interner.impl.WeakStringInterner;
+import ru.clevertec.product.mapper.ProductMapper;
+import ru.clevertec.product.utils.ProductTestData;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class InterningProductMapperTest {
+
+    @Mock
+    private ProductMapper delegate;
+
+    private InterningProductMapper productMapper;
+
+    @BeforeEach
+    void setUp() {
+        productMapper = new InterningProductMapper(delegate, new WeakStringInterner());
+    }
+
+    @Test
+    void toProduct_ShouldShareTextOfEqualProducts() {
+        //Given
+        ProductDto productDto = ProductTestData.builder().build().buildProductDto();
+        when(delegate.toProduct(productDto))
+                .thenReturn(ProductTestData.builder().withName(new String("Молоко")).build().buildProduct())
+                .thenReturn(ProductTestData.builder().withName(new String("Молоко")).build().buildProduct());
+
+        //When
+        Product first = productMapper.toProduct(productDto);
+        Product second = productMapper.toProduct(productDto);
+
+        //Then
+        assertAll("intern test", () -> assertSame(first.getName(), second.getName()),
+                () -> assertSame(first.getDescription(), second.getDescription()));
+    }
+
+    @Test
+    void merge_ShouldReplaceMergedTextWithInternedOne() {
+        //Given
+        ProductDto productDto = ProductTestData.builder().withName("Кефир").build().buildProductDto();
+        Product product = ProductTestData.builder().withName(new String("Кефир")).build().buildProduct();
+        when(delegate.toProduct(productDto)).thenReturn(ProductTestData.builder().withName("Кефир").build().buildProduct());
+        when(delegate.merge(product, productDto)).thenReturn(product);
+        String interned = productMapper.toProduct(productDto).getName();
+
+        //When
+        Product merged = productMapper.merge(product, productDto);
+
+        //Then
+        assertSame(interned, merged.getName());
+    }
+
+    @Test
+    void toInfoProductDto_ShouldDelegate() {
+        //Given
+        Product product = ProductTestData.builder().build().buildProduct();
+        InfoProductDto expected = ProductTestData.builder().build().buildInfoProductDto();
+        when(delegate.toInfoProductDto(product)).thenReturn(expected);
+
+        //When
+        InfoProductDto result = productMapper.toInfoProductDto(product);
+
+        //Then
+        assertSame(expected, result);
+    }
+
+    @Test
+    void toInfoProductDtoList_ShouldDelegate() {
+        //Given
+        List<Product> products = List.of(ProductTestData.builder().build().buildProduct());
+        List<InfoProductDto> expected = List.of(ProductTestData.builder().build().buildInfoProductDto());
+        when(delegate.toInfoProductDtoList(products)).thenReturn(expected);
+
+        //When
+        List<InfoProductDto> result = productMapper.toInfoProductDtoList(products);
+
+        //Then
+        assertSame(expected, result);
+    }
+}
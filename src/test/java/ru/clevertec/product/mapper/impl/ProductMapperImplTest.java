@@ -2,7 +2,8 @@ package ru.clevertec.product.mapper.impl;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mapstruct.factory.Mappers;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
 import ru.clevertec.product.data.InfoProductDto;
 import ru.clevertec.product.data.ProductDto;
 import ru.clevertec.product.entity.Product;
@@ -10,8 +11,19 @@ import ru.clevertec.product.mapper.ProductMapper;
 import ru.clevertec.product.utils.ProductTestData;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 class ProductMapperImplTest {
 
@@ -19,7 +31,7 @@ class ProductMapperImplTest {
 
     @BeforeEach
     void setUp() {
-        productMapper = Mappers.getMapper(ProductMapper.class);
+        productMapper = new ProductMapperImpl();
     }
 
     @Test
@@ -87,4 +99,68 @@ class ProductMapperImplTest {
                 .hasFieldOrPropertyWithValue(Product.Fields.price, expectedDto.price())
                 .hasFieldOrPropertyWithValue(Product.Fields.created, expectedProduct.getCreated());
     }
-}
\ No newline at end of file
+
+    @Test
+    void merge_ShouldKeepUnchangedFieldsAndIdentity() {
+        //Given
+        String name = new String("Молоко");
+        LocalDateTime created = LocalDateTime.of(2023, 10, 15, 12, 34);
+        Product product = ProductTestData.builder()
+                .withName(name)
+                .withCreated(created)
+                .build()
+                .buildProduct();
+        product.setVersion(3);
+        UUID uuid = product.getUuid();
+
+        ProductDto productDto = ProductTestData.builder()
+                .withName(new String("Молоко"))
+                .withPrice(BigDecimal.valueOf(5))
+                .build()
+                .buildProductDto();
+
+        //When
+        Product merged = productMapper.merge(product, productDto);
+
+        //Then
+        assertAll("merge test", () -> assertSame(product, merged),
+                () -> assertSame(name, merged.getName(), "Equal name should not be replaced"),
+                () -> assertEquals(BigDecimal.valueOf(5), merged.getPrice()),
+                () -> assertSame(uuid, merged.getUuid()),
+                () -> assertSame(created, merged.getCreated()),
+                () -> assertEquals(3, merged.getVersion()));
+    }
+
+    @Test
+    void shouldReturnNullOrTargetWhenSourceIsNull() {
+        //Given
+        Product product = ProductTestData.builder()
+                .build()
+                .buildProduct();
+
+        //When & Then
+        assertAll("null test", () -> assertNull(productMapper.toProduct(null)),
+                () -> assertNull(productMapper.toInfoProductDto(null)),
+                () -> assertNull(productMapper.toInfoProductDtoList(null)),
+                () -> assertSame(product, productMapper.merge(product, null)));
+    }
+
+    @ParameterizedTest
+    @MethodSource("lists")
+    void toInfoProductDtoList_ShouldMapProductsInOrder(Function<List<Product>, List<Product>> listFactory) {
+        //Given
+        List<Product> products = listFactory.apply(List.of(
+                ProductTestData.builder().withUuid(UUID.randomUUID()).withName("Первый").build().buildProduct(),
+                ProductTestData.builder().withUuid(UUID.randomUUID()).withName("Второй").build().buildProduct()));
+
+        //When
+        List<InfoProductDto> result = productMapper.toInfoProductDtoList(products);
+
+        //Then
+        assertEquals(products.stream().map(productMapper::toInfoProductDto).toList(), result);
+    }
+
+    static Stream<Function<List<Product>, List<Product>>> lists() {
+        return Stream.of(ArrayList::new, LinkedList::new);
+    }
+}
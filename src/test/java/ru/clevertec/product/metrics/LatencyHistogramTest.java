@@ -0,0 +1,82 @@
+package ru.clevertec.product.metrics;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LatencyHistogramTest {
+
+    @ParameterizedTest
+    @ValueSource(longs = {0, 63, 64, 1_000, 123_456_789, Long.MAX_VALUE})
+    void shouldKeepValueWithinItsBucket(long value) {
+        // Given
+        int index = LatencyHistogram.index(value);
+
+        // When
+        long highest = LatencyHistogram.highestEquivalent(index);
+
+        // Then
+        assertAll("bucket test", () -> assertThat(highest).isGreaterThanOrEqualTo(value),
+                () -> assertThat(highest - value).isLessThanOrEqualTo(value / 32),
+                () -> assertEquals(index, LatencyHistogram.index(highest), "Highest value should stay in the bucket"));
+    }
+
+    @Test
+    void shouldReturnPercentilesWithinRelativeError() {
+        // Given
+        LatencyHistogram histogram = new LatencyHistogram();
+        IntStream.rangeClosed(1, 100_000)
+                .forEach(i -> histogram.record(i * 1_000L));
+
+        // When
+        long[] percentiles = histogram.percentiles(50, 99, 100);
+
+        // Then
+        assertAll("percentile test", () -> assertThat(percentiles[0]).isBetween(50_000_000L, 50_000_000L + 50_000_000L / 32),
+                () -> assertThat(percentiles[1]).isBetween(99_000_000L, 99_000_000L + 99_000_000L / 32),
+                () -> assertEquals(100_000_000L, percentiles[2], "Percentile should not exceed the maximum"),
+                () -> assertThat(histogram.mean()).isCloseTo(50_000_500.0, within(0.001)));
+    }
+
+    @Test
+    void shouldReturnZerosWhenNothingIsRecorded() {
+        // Given
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1_000);
+
+        // When
+        histogram.reset();
+
+        // Then
+        assertAll("empty histogram test", () -> assertArrayEquals(new long[2], histogram.percentiles(50, 99)),
+                () -> assertEquals(0, histogram.count()),
+                () -> assertEquals(0, histogram.max()),
+                () -> assertEquals(0, histogram.mean()));
+    }
+
+    @Test
+    void shouldNotLoseValuesRecordedConcurrently() {
+        // Given
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        // When
+        CompletableFuture.allOf(IntStream.range(0, 8)
+                        .mapToObj(thread -> CompletableFuture.runAsync(() -> IntStream.range(0, 100_000)
+                                .forEach(i -> histogram.record(i & 1023))))
+                        .toArray(CompletableFuture[]::new))
+                .join();
+
+        // Then
+        assertAll("concurrent record test", () -> assertEquals(800_000, histogram.count()),
+                () -> assertEquals(1023, histogram.max()));
+    }
+}
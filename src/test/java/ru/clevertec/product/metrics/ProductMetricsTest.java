@@ -0,0 +1,92 @@
+package ru.clevertec.product.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import javax.management.Attribute;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.TabularData;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ProductMetricsTest {
+
+    @Test
+    void shouldReturnSameOperationMetricsForSameName() {
+        // Given
+        ProductMetrics metrics = new ProductMetrics();
+        OperationMetrics operation = metrics.operation("service.get");
+
+        // When
+        operation.record(1_000);
+        operation.notFound();
+
+        // Then
+        assertAll("operation test", () -> assertSame(operation, metrics.operation("service.get")),
+                () -> assertEquals(1, metrics.snapshot().operations().get("service.get").calls()),
+                () -> assertEquals(1, metrics.snapshot().operations().get("service.get").notFound()));
+    }
+
+    @Test
+    void shouldSortOperationsAndReadGaugesOnSnapshot() {
+        // Given
+        ProductMetrics metrics = new ProductMetrics();
+        long[] size = {1};
+        metrics.operation("repository.save");
+        metrics.operation("repository.findById");
+        metrics.gauge("repository.size", () -> size[0]);
+        size[0] = 2;
+
+        // When
+        MetricsSnapshot snapshot = metrics.snapshot();
+
+        // Then
+        assertAll("snapshot test", () -> assertEquals(List.of("repository.findById", "repository.save"),
+                        List.copyOf(snapshot.operations().keySet())),
+                () -> assertEquals(Map.of("repository.size", 2L), snapshot.gauges()));
+    }
+
+    @Test
+    void shouldClearOperationsOnReset() {
+        // Given
+        ProductMetrics metrics = new ProductMetrics();
+        metrics.operation("service.get").record(1_000);
+        metrics.operation("service.get").error();
+
+        // When
+        metrics.reset();
+
+        // Then
+        assertEquals(new OperationSnapshot(0, 0, 0, 0, 0, 0, 0, 0, 0), metrics.getOperations().get("service.get"));
+    }
+
+    @Test
+    void shouldExposeMetricsThroughJmx() throws Exception {
+        // Given
+        ProductMetrics metrics = new ProductMetrics();
+        metrics.operation("service.get").record(1_000);
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = metrics.registerMBean(ProductMetrics.OBJECT_NAME + ",name=test");
+
+        try {
+            // When
+            server.setAttribute(name, new Attribute("Enabled", false));
+            TabularData operations = (TabularData) server.getAttribute(name, "Operations");
+
+            // Then
+            assertAll("jmx test", () -> assertFalse(metrics.isEnabled()),
+                    () -> assertEquals(1, operations.size()),
+                    () -> assertThrows(IllegalStateException.class,
+                            () -> metrics.registerMBean(ProductMetrics.OBJECT_NAME + ",name=test")));
+        } finally {
+            metrics.unregisterMBean(name);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package ru.clevertec.product.repository.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import ru.clevertec.product.entity.Product;
+import ru.clevertec.product.repository.storage.DurabilityConfig;
+import ru.clevertec.product.utils.ProductTestData;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DurableProductRepositoryTest {
+
+    @TempDir
+    Path directory;
+
+    private DurabilityConfig config;
+
+    @BeforeEach
+    void setUp() {
+        config = DurabilityConfig.of(directory);
+    }
+
+    @Test
+    void shouldRecoverSavedUpdatedAndDeletedProductsAfterRestart() {
+        // Given
+        Product kept = ProductTestData.builder().withUuid(UUID.randomUUID()).build().buildProduct();
+        Product deleted = ProductTestData.builder().withUuid(UUID.randomUUID()).build().buildProduct();
+        try (DurableProductRepository repository = new DurableProductRepository(config)) {
+            repository.saveAll(List.of(kept, deleted));
+            Product stored = repository.findById(kept.getUuid()).orElseThrow();
+            stored.setPrice(BigDecimal.valueOf(42.5));
+            repository.compareAndSave(stored);
+            repository.delete(deleted.getUuid());
+        }
+
+        // When
+        try (DurableProductRepository recovered = new DurableProductRepository(config)) {
+
+            // Then
+            Product product = recovered.findById(kept.getUuid()).orElseThrow();
+            assertAll("recovery test",
+                    () -> assertEquals(BigDecimal.valueOf(42.5), product.getPrice()),
+                    () -> assertEquals(2, product.getVersion(), "Version should be recovered"),
+                    () -> assertEquals(kept.getCreated(), product.getCreated()),
+                    () -> assertFalse(recovered.findById(deleted.getUuid()).isPresent(), "Deleted product should stay deleted"),
+                    () -> assertEquals(List.of(product), recovered.findByNamePrefix(kept.getName()), "Indexes should be rebuilt"));
+        }
+    }
+
+    @Test
+    void shouldRecoverFromSnapshotAndLogTail() throws IOException {
+        // Given
+        Product beforeSnapshot = ProductTestData.builder().withUuid(UUID.randomUUID()).build().buildProduct();
+        Product afterSnapshot = ProductTestData.builder().withUuid(UUID.randomUUID()).withName("AfterName").build().buildProduct();
+        try (DurableProductRepository repository = new DurableProductRepository(config)) {
+            repository.save(beforeSnapshot);
+            repository.snapshot();
+            repository.save(afterSnapshot);
+        }
+
+        // When
+        try (DurableProductRepository recovered = new DurableProductRepository(config)) {
+
+            // Then
+            assertThat(recovered.findAll()).containsExactlyInAnyOrder(beforeSnapshot, afterSnapshot);
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(1, files.filter(file -> file.toString().endsWith(".log")).count(),
+                    "Segments covered by the snapshot should be deleted");
+        }
+    }
+
+    @Test
+    void shouldRejectProductLargerThanLogFrameAndRecoverLaterProducts() {
+        // Given
+        Product oversized = ProductTestData.builder().withUuid(UUID.randomUUID())
+                .withDescription("Я".repeat(1 << 19)).build().buildProduct();
+        Product batched = ProductTestData.builder().withUuid(UUID.randomUUID()).build().buildProduct();
+        Product later = ProductTestData.builder().withUuid(UUID.randomUUID()).withName("LaterName").build().buildProduct();
+        try (DurableProductRepository repository = new DurableProductRepository(config)) {
+
+            // When
+            assertAll("oversized product test",
+                    () -> assertThrows(IllegalArgumentException.class, () -> repository.save(oversized)),
+                    () -> assertThrows(IllegalArgumentException.class, () -> repository.saveAll(List.of(batched, oversized))),
+                    () -> assertEquals(0, repository.count(), "Batch with oversized product should not be saved partially"));
+            repository.save(later);
+        }
+
+        // Then
+        try (DurableProductRepository recovered = new DurableProductRepository(config)) {
+            assertEquals(List.of(later), recovered.findAll(), "Products after the rejected one should be recovered");
+        }
+    }
+
+    @Test
+    void shouldIgnoreTornFrameAtTheEndOfLog() throws IOException {
+        // Given
+        Product expected = ProductTestData.builder().build().buildProduct();
+        try (DurableProductRepository repository = new DurableProductRepository(config)) {
+            repository.save(expected);
+        }
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.filter(file -> file.toString().endsWith(".log")).findFirst().orElseThrow();
+        }
+        Files.write(segment, new byte[]{0, 0, 0, 64, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        // When
+        try (DurableProductRepository recovered = new DurableProductRepository(config)) {
+            recovered.save(ProductTestData.builder().withUuid(UUID.randomUUID()).build().buildProduct());
+        }
+
+        // Then
+        try (DurableProductRepository recovered = new DurableProductRepository(config)) {
+            assertAll("torn tail test",
+                    () -> assertTrue(recovered.findById(expected.getUuid()).isPresent()),
+                    () -> assertEquals(2, recovered.findAll().size(), "Writes after recovery should be replayed too"));
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void shouldTakeSnapshotAutomaticallyWhenThresholdIsReached(boolean awaitDurability) {
+        // Given
+        DurabilityConfig small = new DurabilityConfig(directory, 16, Duration.ofMillis(5), awaitDurability, 10);
+
+        // When
+        try (DurableProductRepository repository = new DurableProductRepository(small)) {
+            for (int i = 0; i < 50; i++) {
+                repository.save(ProductTestData.builder().withUuid(UUID.randomUUID()).build().buildProduct());
+            }
+        }
+
+        // Then
+        assertTrue(Files.exists(directory.resolve("snapshot.bin")), "Snapshot should be taken in background");
+        try (DurableProductRepository recovered = new DurableProductRepository(small)) {
+            assertEquals(50, recovered.findAll().size());
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package ru.clevertec.product.repository.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.clevertec.product.entity.Product;
+import ru.clevertec.product.repository.ProductRepository;
+import ru.clevertec.product.utils.ProductTestData;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FilteringProductRepositoryTest {
+
+    private ProductRepository delegate;
+    private FilteringProductRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        delegate = new InMemoryProductRepository();
+        repository = new FilteringProductRepository(delegate, 1_000, 0.01);
+    }
+
+    @Test
+    void shouldFindProductSavedThroughFilter() {
+        // Given
+        Product expected = ProductTestData.builder().build().buildProduct();
+
+        // When
+        repository.save(expected);
+
+        // Then
+        assertAll("filter test", () -> assertEquals(expected, repository.findById(expected.getUuid()).orElse(null)),
+                () -> assertEquals(0, repository.rejectedCount(), "Saved product should pass the filter"));
+    }
+
+    @Test
+    void shouldFindProductsThatExistedBeforeFilterWasCreated() {
+        // Given
+        Product expected = delegate.save(ProductTestData.builder().build().buildProduct());
+
+        // When
+        FilteringProductRepository filtering = new FilteringProductRepository(delegate, 1_000, 0.01);
+
+        // Then
+        assertTrue(filtering.findById(expected.getUuid()).isPresent(), "Existing product should be in the filter");
+    }
+
+    @Test
+    void shouldRejectMostUnknownUuidsWithoutCallingDelegate() {
+        // Given
+        repository.saveAll(IntStream.range(0, 1_000)
+                .mapToObj(i -> ProductTestData.builder().withUuid(UUID.randomUUID()).build().buildProduct())
+                .toList());
+
+        // When
+        long found = IntStream.range(0, 10_000)
+                .mapToObj(i -> repository.findById(UUID.randomUUID()))
+                .filter(Optional::isPresent)
+                .count();
+
+        // Then
+        assertAll("negative lookup test", () -> assertEquals(0, found),
+                () -> assertTrue(repository.rejectedCount() > 9_500, "At most a few percent of misses should reach the delegate"));
+    }
+
+    @Test
+    void shouldKeepFindingProductsWhenFilterIsRebuilt() {
+        // Given
+        Product kept = ProductTestData.builder().withUuid(UUID.randomUUID()).build().buildProduct();
+        Product deleted = ProductTestData.builder().withUuid(UUID.randomUUID()).build().buildProduct();
+        repository.saveAll(List.of(kept, deleted));
+        repository.delete(deleted.getUuid());
+
+        // When
+        repository.rebuild();
+
+        // Then
+        assertAll("rebuild test", () -> assertTrue(repository.findById(kept.getUuid()).isPresent()),
+                () -> assertFalse(repository.findById(deleted.getUuid()).isPresent()),
+                () -> assertEquals(List.of(kept), repository.findAllById(List.of(kept.getUuid(), deleted.getUuid()))));
+    }
+}
@@ -0,0 +1,168 @@
+package ru.clevertec.product.repository.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.clevertec.product.entity.Product;
+import ru.clevertec.product.repository.ProductRepository;
+import ru.clevertec.product.utils.ProductTestData;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InMemoryProductRepositoryStressTest {
+
+    private static final int THREADS = 8;
+    private static final int PRODUCTS_PER_THREAD = 2_000;
+
+    private ProductRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new InMemoryProductRepository();
+    }
+
+    @Test
+    void shouldKeepOnlyNotDeletedProductsWhenHammeredFromManyThreads() throws Exception {
+        // Given
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<UUID>>> writers = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            writers.add(executor.submit(writer(start)));
+        }
+        Future<Integer> reader = executor.submit(reader(start));
+
+        // When
+        start.countDown();
+        Set<UUID> expected = new HashSet<>();
+        for (Future<List<UUID>> writer : writers) {
+            expected.addAll(writer.get(1, TimeUnit.MINUTES));
+        }
+        int snapshots = reader.get(1, TimeUnit.MINUTES);
+        executor.shutdown();
+
+        // Then
+        List<Product> allProducts = repository.findAll();
+        Set<UUID> actual = new HashSet<>();
+        allProducts.forEach(product -> actual.add(product.getUuid()));
+        assertAll("stress test",
+                () -> assertTrue(snapshots > 0, "Reader should take at least one snapshot"),
+                () -> assertEquals(THREADS * PRODUCTS_PER_THREAD / 2, allProducts.size(), "Every odd product should be deleted"),
+                () -> assertEquals(allProducts.size(), actual.size(), "Snapshot should not contain duplicates"),
+                () -> assertEquals(expected, actual, "Only not deleted products should remain"),
+                () -> assertTrue(expected.stream().allMatch(uuid -> repository.findById(uuid).isPresent()), "Every remaining product should be found"));
+    }
+
+    @Test
+    void shouldKeepSingleEntryWhenSameProductIsSavedConcurrently() throws Exception {
+        // Given
+        UUID uuid = UUID.fromString("c249fc5b-4a25-4212-83ca-2c6ec0d57d0b");
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            writers.add(executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < PRODUCTS_PER_THREAD; j++) {
+                    repository.save(ProductTestData.builder().withUuid(uuid).build().buildProduct());
+                }
+                return null;
+            }));
+        }
+
+        // When
+        start.countDown();
+        for (Future<?> writer : writers) {
+            writer.get(1, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        // Then
+        assertAll("same product test",
+                () -> assertEquals(1, repository.findAll().size(), "Product should be stored once"),
+                () -> assertTrue(repository.findById(uuid).isPresent(), "Product should be found"));
+    }
+
+    @Test
+    void shouldNotLoseUpdatesWhenSameProductIsComparedAndSavedConcurrently() throws Exception {
+        // Given
+        Product stored = repository.save(ProductTestData.builder().withPrice(BigDecimal.ZERO).build().buildProduct());
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            writers.add(executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < PRODUCTS_PER_THREAD; j++) {
+                    Optional<Product> saved;
+                    do {
+                        Product product = repository.findById(stored.getUuid()).orElseThrow();
+                        product.setPrice(product.getPrice().add(BigDecimal.ONE));
+                        saved = repository.compareAndSave(product);
+                    } while (saved.isEmpty());
+                }
+                return null;
+            }));
+        }
+
+        // When
+        start.countDown();
+        for (Future<?> writer : writers) {
+            writer.get(1, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        // Then
+        Product result = repository.findById(stored.getUuid()).orElseThrow();
+        assertAll("lost update test",
+                () -> assertEquals(BigDecimal.valueOf(THREADS * PRODUCTS_PER_THREAD), result.getPrice(), "Every increment should be applied"),
+                () -> assertEquals(THREADS * PRODUCTS_PER_THREAD + 1, result.getVersion(), "Every increment should create a version"));
+    }
+
+    private Callable<List<UUID>> writer(CountDownLatch start) {
+        return () -> {
+            start.await();
+            List<UUID> kept = new ArrayList<>();
+            for (int i = 0; i < PRODUCTS_PER_THREAD; i++) {
+                Product product = repository.save(ProductTestData.builder()
+                        .withUuid(UUID.randomUUID())
+                        .build()
+                        .buildProduct());
+                if (i % 2 == 0) {
+                    kept.add(product.getUuid());
+                } else {
+                    repository.delete(product.getUuid());
+                }
+            }
+            return kept;
+        };
+    }
+
+    private Callable<Integer> reader(CountDownLatch start) {
+        return () -> {
+            start.await();
+            int snapshots = 0;
+            while (snapshots < 200) {
+                List<Product> snapshot = repository.findAll();
+                snapshot.forEach(product -> repository.findById(product.getUuid()));
+                snapshots++;
+            }
+            return snapshots;
+        };
+    }
+}
@@ -2,9 +2,16 @@ package ru.clevertec.product.repository.impl;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import ru.clevertec.product.data.PriceStatistics;
 import ru.clevertec.product.entity.Product;
 import ru.clevertec.product.exception.ProductCanNotBeNull;
+import ru.clevertec.product.interner.impl.WeakStringInterner;
 import ru.clevertec.product.repository.ProductRepository;
+import ru.clevertec.product.repository.storage.ChangeEvent;
+import ru.clevertec.product.repository.storage.ChangeLog;
 import ru.clevertec.product.utils.ProductTestData;
 
 import java.math.BigDecimal;
@@ -18,6 +25,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -119,4 +127,477 @@ class InMemoryProductRepositoryTest {
         // Then
         assertTrue(allProducts.isEmpty(), "When no products are saved, an empty list should be returned");
     }
+
+    @Test
+    void shouldNotExposeStoredProductWhenFoundProductIsModified() {
+        // Given
+        Product expected = ProductTestData.builder().build().buildProduct();
+        repository.save(expected);
+
+        // When
+        repository.findById(expected.getUuid()).ifPresent(product -> product.setName("ChangedName"));
+
+        // Then
+        assertEquals(expected.getName(), repository.findById(expected.getUuid()).map(Product::getName).orElse(null),
+                "Stored product should not change without save");
+    }
+
+    @Test
+    void shouldNotExposeStoredProductWhenSavedProductIsModified() {
+        // Given
+        Product expected = ProductTestData.builder().build().buildProduct();
+        repository.save(expected);
+
+        // When
+        expected.setPrice(BigDecimal.valueOf(999));
+
+        // Then
+        assertEquals(BigDecimal.valueOf(100), repository.findById(expected.getUuid()).map(Product::getPrice).orElse(null),
+                "Stored product should keep the state it was saved with");
+    }
+
+    @Test
+    void shouldIncreaseVersionWhenProductIsSaved() {
+        // Given
+        Product expected = ProductTestData.builder().build().buildProduct();
+
+        // When
+        Product first = repository.save(expected);
+        Product second = repository.save(expected);
+
+        // Then
+        assertAll("version test", () -> assertEquals(1, first.getVersion(), "First save should create version 1"),
+                () -> assertEquals(2, second.getVersion(), "Second save should increase version"));
+    }
+
+    @Test
+    void shouldSaveProductWhenVersionMatches() {
+        // Given
+        Product stored = repository.save(ProductTestData.builder().build().buildProduct());
+        stored.setName("NewName");
+
+        // When
+        Optional<Product> saved = repository.compareAndSave(stored);
+
+        // Then
+        assertAll("compare and save test", () -> assertTrue(saved.isPresent(), "Product should be saved"),
+                () -> assertEquals(2, saved.get().getVersion(), "Version should be increased"),
+                () -> assertEquals("NewName", repository.findById(stored.getUuid()).map(Product::getName).orElse(null)));
+    }
+
+    @Test
+    void shouldRejectProductWhenVersionIsStale() {
+        // Given
+        Product stored = repository.save(ProductTestData.builder().build().buildProduct());
+        Product concurrent = repository.findById(stored.getUuid()).orElseThrow();
+        concurrent.setName("Concurrent");
+        repository.compareAndSave(concurrent);
+        stored.setName("Stale");
+
+        // When
+        Optional<Product> saved = repository.compareAndSave(stored);
+
+        // Then
+        assertAll("stale version test", () -> assertFalse(saved.isPresent(), "Stale product should not be saved"),
+                () -> assertEquals("Concurrent", repository.findById(stored.getUuid()).map(Product::getName).orElse(null)));
+    }
+
+    @Test
+    void shouldRejectProductWhenItWasDeleted() {
+        // Given
+        Product stored = repository.save(ProductTestData.builder().build().buildProduct());
+        repository.delete(stored.getUuid());
+
+        // When
+        Optional<Product> saved = repository.compareAndSave(stored);
+
+        // Then
+        assertFalse(saved.isPresent(), "Deleted product should not be resurrected");
+    }
+
+    @Test
+    void shouldSaveAllProductsAndFindThemById() {
+        // Given
+        Product expected1 = ProductTestData.builder().build().buildProduct();
+        Product expected2 = ProductTestData.builder().withUuid(UUID.fromString("ebc3c5b1-aeaa-44f5-8d8a-bfcc53de36e6"))
+                .withName("ProductName1").build().buildProduct();
+
+        // When
+        repository.saveAll(List.of(expected1, expected2));
+        List<Product> found = repository.findAllById(List.of(expected2.getUuid(),
+                UUID.fromString("3ecb77f7-0114-47a7-ada7-3ec685d202a7"), expected1.getUuid()));
+
+        // Then
+        assertEquals(List.of(expected2, expected1), found, "Found products should keep the order of given uuids");
+    }
+
+    @Test
+    void shouldApplyRepeatedProductOfBatchInOrder() {
+        // Given
+        UUID uuid = UUID.fromString("ebc3c5b1-aeaa-44f5-8d8a-bfcc53de36e6");
+        Product first = ProductTestData.builder().withUuid(uuid).withName("Первый").build().buildProduct();
+        Product second = ProductTestData.builder().withUuid(uuid).withName("Второй").build().buildProduct();
+
+        // When
+        List<Product> saved = repository.saveAll(List.of(first, second));
+
+        // Then
+        assertAll("repeated product test",
+                () -> assertEquals(List.of(1L, 2L), saved.stream().map(Product::getVersion).toList()),
+                () -> assertEquals("Второй", repository.findById(uuid).orElseThrow().getName()),
+                () -> assertEquals(1, repository.count()));
+    }
+
+    @Test
+    void shouldNotSaveAnyProductWhenBatchContainsNull() {
+        // Given
+        Product expected = ProductTestData.builder().build().buildProduct();
+
+        // When
+        assertThrows(ProductCanNotBeNull.class, () -> repository.saveAll(Arrays.asList(expected, null)));
+
+        // Then
+        assertTrue(repository.findAll().isEmpty(), "Batch with null should not be saved partially");
+    }
+
+    @Test
+    void shouldDeleteAllGivenProducts() {
+        // Given
+        Product expected1 = ProductTestData.builder().build().buildProduct();
+        Product expected2 = ProductTestData.builder().withUuid(UUID.fromString("ebc3c5b1-aeaa-44f5-8d8a-bfcc53de36e6"))
+                .build().buildProduct();
+        repository.saveAll(List.of(expected1, expected2));
+
+        // When
+        repository.deleteAll(List.of(expected1.getUuid()));
+
+        // Then
+        assertEquals(List.of(expected2), repository.findAll(), "Only not deleted product should remain");
+    }
+
+    @Test
+    void shouldCountProductsWithoutDeletedOnes() {
+        // Given
+        Product expected1 = ProductTestData.builder().build().buildProduct();
+        Product expected2 = ProductTestData.builder().withUuid(UUID.fromString("ebc3c5b1-aeaa-44f5-8d8a-bfcc53de36e6"))
+                .build().buildProduct();
+        repository.saveAll(List.of(expected1, expected2, expected1));
+
+        // When
+        repository.delete(expected2.getUuid());
+
+        // Then
+        assertEquals(1, repository.count(), "Updated product should be counted once and deleted one not at all");
+    }
+
+    @Test
+    void shouldReturnPagesInUuidOrder() {
+        // Given
+        List<UUID> uuids = List.of(UUID.fromString("00000000-0000-7000-8000-000000000001"),
+                UUID.fromString("00000000-0000-7000-8000-000000000002"),
+                UUID.fromString("00000000-0000-7000-8000-000000000003"));
+        repository.saveAll(List.of(ProductTestData.builder().withUuid(uuids.get(2)).build().buildProduct(),
+                ProductTestData.builder().withUuid(uuids.get(0)).build().buildProduct(),
+                ProductTestData.builder().withUuid(uuids.get(1)).build().buildProduct()));
+
+        // When
+        List<Product> first = repository.findPage(null, 2);
+        List<Product> second = repository.findPage(first.get(first.size() - 1).getUuid(), 2);
+
+        // Then
+        assertAll("paging test",
+                () -> assertEquals(uuids.subList(0, 2), first.stream().map(Product::getUuid).toList()),
+                () -> assertEquals(uuids.subList(2, 3), second.stream().map(Product::getUuid).toList()),
+                () -> assertTrue(repository.findPage(uuids.get(2), 2).isEmpty(), "Page after the last product should be empty"));
+    }
+
+    @Test
+    void shouldSkipDeletedProductsWhenPaging() {
+        // Given
+        Product expected1 = ProductTestData.builder().build().buildProduct();
+        Product expected2 = ProductTestData.builder().withUuid(UUID.fromString("ebc3c5b1-aeaa-44f5-8d8a-bfcc53de36e6"))
+                .build().buildProduct();
+        repository.saveAll(List.of(expected1, expected2));
+        repository.delete(expected1.getUuid());
+
+        // When
+        List<Product> page = repository.findPage(null, 10);
+
+        // Then
+        assertEquals(List.of(expected2), page, "Deleted product should not be in the page");
+    }
+
+    @Test
+    void shouldThrowExceptionWhenPageLimitIsNotPositive() {
+        // Given & When & Then
+        assertThrows(IllegalArgumentException.class, () -> repository.findPage(null, 0));
+    }
+
+    @Test
+    void shouldStreamAllSavedProducts() {
+        // Given
+        Product expected = ProductTestData.builder().build().buildProduct();
+        repository.save(expected);
+
+        // When
+        List<Product> streamed = repository.streamAll().toList();
+
+        // Then
+        assertEquals(List.of(expected), streamed, "Stream should contain saved product");
+    }
+
+    @ParameterizedTest
+    @CsvSource({"Молоко, 2", "Мол, 3", "Молоко Д, 1", "Хлеб, 0", "'', 3"})
+    void shouldFindProductsByNamePrefix(String prefix, int expectedCount) {
+        // Given
+        repository.saveAll(List.of(
+                ProductTestData.builder().withUuid(UUID.randomUUID()).withName("Молоко").build().buildProduct(),
+                ProductTestData.builder().withUuid(UUID.randomUUID()).withName("Молоко Д").build().buildProduct(),
+                ProductTestData.builder().withUuid(UUID.randomUUID()).withName("Молот").build().buildProduct()));
+
+        // When
+        List<Product> found = repository.findByNamePrefix(prefix);
+
+        // Then
+        assertAll("name prefix test", () -> assertEquals(expectedCount, found.size()),
+                () -> assertTrue(found.stream().allMatch(product -> product.getName().startsWith(prefix))));
+    }
+
+    @Test
+    void shouldFindProductByNewNameOnlyWhenNameIsUpdated() {
+        // Given
+        Product expected = repository.save(ProductTestData.builder().withName("Молоко").build().buildProduct());
+        expected.setName("Кефир");
+
+        // When
+        repository.save(expected);
+
+        // Then
+        assertAll("reindex test", () -> assertTrue(repository.findByNamePrefix("Молоко").isEmpty(), "Old name should be unindexed"),
+                () -> assertEquals(List.of(expected), repository.findByNamePrefix("Кеф"), "New name should be indexed"));
+    }
+
+    @Test
+    void shouldRankProductsMatchedByNameAboveProductsMatchedByDescription() {
+        // Given
+        Product inDescription = ProductTestData.builder().withUuid(UUID.randomUUID()).withName("Кефир")
+                .withDescription("Из молока").build().buildProduct();
+        Product inName = ProductTestData.builder().withUuid(UUID.randomUUID()).withName("Молоко пастеризованное")
+                .withDescription("Свежее").build().buildProduct();
+        Product exactName = ProductTestData.builder().withUuid(UUID.randomUUID()).withName("Молоко")
+                .withDescription("Свежее").build().buildProduct();
+        repository.saveAll(List.of(inDescription, inName, exactName,
+                ProductTestData.builder().withUuid(UUID.randomUUID()).withName("Хлеб").build().buildProduct()));
+
+        // When
+        List<Product> found = repository.search("МОЛОК", 10);
+
+        // Then
+        assertAll("search test", () -> assertEquals(List.of(exactName, inName, inDescription), found),
+                () -> assertEquals(List.of(exactName), repository.search("молок", 1)),
+                () -> assertEquals(List.of(inName), repository.search("молоко пастер", 10)));
+    }
+
+    @ParameterizedTest
+    @CsvSource({"ежик, 1", "ЁЖИК, 1", "еж, 1", "жи, 0", "'  ,, ', 0", "ежевика, 0"})
+    void shouldNormalizeQueryAndMatchShortWordsOnlyAtWordStart(String query, int expectedCount) {
+        // Given
+        repository.save(ProductTestData.builder().withName("Ёжик").withDescription("Игрушка").build().buildProduct());
+
+        // When
+        List<Product> found = repository.search(query, 10);
+
+        // Then
+        assertEquals(expectedCount, found.size());
+    }
+
+    @Test
+    void shouldFindProductByNewTextOnlyWhenProductIsRenamedOrDeleted() {
+        // Given
+        Product renamed = repository.save(ProductTestData.builder().withUuid(UUID.randomUUID()).withName("Молоко")
+                .withDescription("Свежее").build().buildProduct());
+        Product deleted = repository.save(ProductTestData.builder().withUuid(UUID.randomUUID()).withName("Кефир")
+                .withDescription("Свежий").build().buildProduct());
+        renamed.setName("Сливки");
+
+        // When
+        repository.save(renamed);
+        repository.delete(deleted.getUuid());
+
+        // Then
+        assertAll("search reindex test", () -> assertTrue(repository.search("молоко", 10).isEmpty()),
+                () -> assertEquals(List.of(renamed), repository.search("сливки свеж", 10)),
+                () -> assertTrue(repository.search("кефир", 10).isEmpty()),
+                () -> assertThrows(IllegalArgumentException.class, () -> repository.search("сливки", 0)));
+    }
+
+    @Test
+    void shouldFindProductsByPriceBetweenInPriceOrder() {
+        // Given
+        Product cheap = ProductTestData.builder().withUuid(UUID.randomUUID()).withPrice(BigDecimal.valueOf(10)).build().buildProduct();
+        Product middle = ProductTestData.builder().withUuid(UUID.randomUUID()).withPrice(new BigDecimal("20.50")).build().buildProduct();
+        Product expensive = ProductTestData.builder().withUuid(UUID.randomUUID()).withPrice(BigDecimal.valueOf(30)).build().buildProduct();
+        repository.saveAll(List.of(expensive, cheap, middle));
+
+        // When
+        List<Product> bounded = repository.findByPriceBetween(BigDecimal.valueOf(10), new BigDecimal("20.5"));
+        List<Product> unbounded = repository.findByPriceBetween(new BigDecimal("20.50"), null);
+
+        // Then
+        assertAll("price range test", () -> assertEquals(List.of(cheap, middle), bounded),
+                () -> assertEquals(List.of(middle, expensive), unbounded),
+                () -> assertTrue(repository.findByPriceBetween(BigDecimal.valueOf(30), BigDecimal.ONE).isEmpty()));
+    }
+
+    @Test
+    void shouldCountPriceStatisticsOverCatalogAndRange() {
+        // Given
+        repository.saveAll(List.of(
+                ProductTestData.builder().withUuid(UUID.randomUUID()).withPrice(BigDecimal.valueOf(10)).build().buildProduct(),
+                ProductTestData.builder().withUuid(UUID.randomUUID()).withPrice(new BigDecimal("20.50")).build().buildProduct(),
+                ProductTestData.builder().withUuid(UUID.randomUUID()).withPrice(new BigDecimal("30.0")).build().buildProduct(),
+                ProductTestData.builder().withUuid(UUID.randomUUID()).withPrice(null).build().buildProduct()));
+
+        // When
+        PriceStatistics catalog = repository.priceStatistics(null, null);
+        PriceStatistics range = repository.priceStatistics(new BigDecimal("20.5"), null);
+
+        // Then
+        assertAll("price statistics test",
+                () -> assertEquals(new PriceStatistics(3, BigDecimal.valueOf(10), new BigDecimal("30.0"),
+                        new BigDecimal("60.50"), new BigDecimal("20.16666666666666666666666666666667")), catalog),
+                () -> assertEquals(new PriceStatistics(2, new BigDecimal("20.50"), new BigDecimal("30.0"),
+                        new BigDecimal("50.50"), new BigDecimal("25.25")), range),
+                () -> assertEquals(new PriceStatistics(0, null, null, BigDecimal.ZERO, null),
+                        repository.priceStatistics(BigDecimal.valueOf(31), null)));
+    }
+
+    @Test
+    void shouldReindexPriceWhenOnlyScaleIsChanged() {
+        // Given
+        Product expected = repository.save(ProductTestData.builder().withPrice(new BigDecimal("20.5")).build().buildProduct());
+        expected.setPrice(new BigDecimal("20.50"));
+
+        // When
+        repository.save(expected);
+
+        // Then
+        assertAll("price scale test", () -> assertEquals(List.of(expected), repository.findByPriceBetween(null, null)),
+                () -> assertEquals(new BigDecimal("20.50"), repository.priceStatistics(null, null).sum()));
+    }
+
+    @Test
+    void shouldNotSaveAnyProductWhenPriceDoesNotFitIntoLong() {
+        // Given
+        Product valid = ProductTestData.builder().withUuid(UUID.randomUUID()).build().buildProduct();
+        Product tooExpensive = ProductTestData.builder().withUuid(UUID.randomUUID())
+                .withPrice(new BigDecimal("99999999999999999999.99")).build().buildProduct();
+
+        // When & Then
+        assertAll("price range test",
+                () -> assertThrows(IllegalArgumentException.class, () -> repository.saveAll(List.of(valid, tooExpensive))),
+                () -> assertTrue(repository.findAll().isEmpty(), "Batch should not be saved partially"));
+    }
+
+    @Test
+    void shouldNotFindDeletedProductByIndexes() {
+        // Given
+        Product expected = repository.save(ProductTestData.builder().build().buildProduct());
+
+        // When
+        repository.delete(expected.getUuid());
+
+        // Then
+        assertAll("delete unindex test", () -> assertTrue(repository.findByNamePrefix(expected.getName()).isEmpty()),
+                () -> assertTrue(repository.findByPriceBetween(null, null).isEmpty()));
+    }
+
+    @Test
+    void shouldFindProductsCreatedBetweenInCreationOrder() {
+        // Given
+        Product first = ProductTestData.builder().withUuid(UUID.randomUUID())
+                .withCreated(LocalDateTime.of(2023, 10, 1, 10, 0)).build().buildProduct();
+        Product second = ProductTestData.builder().withUuid(UUID.randomUUID())
+                .withCreated(LocalDateTime.of(2023, 10, 2, 10, 0)).build().buildProduct();
+        Product third = ProductTestData.builder().withUuid(UUID.randomUUID())
+                .withCreated(LocalDateTime.of(2023, 10, 3, 10, 0)).build().buildProduct();
+        repository.saveAll(List.of(third, first, second));
+
+        // When
+        List<Product> found = repository.findCreatedBetween(LocalDateTime.of(2023, 10, 1, 10, 0),
+                LocalDateTime.of(2023, 10, 2, 10, 0));
+
+        // Then
+        assertAll("created range test", () -> assertEquals(List.of(first, second), found),
+                () -> assertEquals(List.of(second, third), repository.findCreatedBetween(LocalDateTime.of(2023, 10, 2, 0, 0), null)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 5})
+    void shouldFindNewestProducts(int limit) {
+        // Given
+        List<Product> expected = List.of(
+                ProductTestData.builder().withUuid(UUID.randomUUID()).withCreated(LocalDateTime.of(2023, 10, 3, 10, 0)).build().buildProduct(),
+                ProductTestData.builder().withUuid(UUID.randomUUID()).withCreated(LocalDateTime.of(2023, 10, 2, 10, 0)).build().buildProduct(),
+                ProductTestData.builder().withUuid(UUID.randomUUID()).withCreated(LocalDateTime.of(2023, 10, 1, 10, 0)).build().buildProduct());
+        repository.saveAll(List.of(expected.get(1), expected.get(2), expected.get(0)));
+
+        // When
+        List<Product> newest = repository.findNewest(limit);
+
+        // Then
+        assertEquals(expected.subList(0, Math.min(limit, expected.size())), newest, "Products should go from newest to oldest");
+    }
+
+    @Test
+    void shouldNotFindDeletedProductAmongNewest() {
+        // Given
+        Product expected = repository.save(ProductTestData.builder().build().buildProduct());
+
+        // When
+        repository.delete(expected.getUuid());
+
+        // Then
+        assertTrue(repository.findNewest(10).isEmpty(), "Deleted product should be unindexed");
+    }
+
+    @Test
+    void shouldPublishEveryChangeToChangeLogInOrder() {
+        // Given
+        ChangeLog changeLog = new ChangeLog(16);
+        ((InMemoryProductRepository) repository).addListener(changeLog);
+        Product product = repository.save(ProductTestData.builder().withName("Молоко").build().buildProduct());
+        product.setName("Кефир");
+
+        // When
+        repository.save(product);
+        repository.delete(product.getUuid());
+        repository.delete(product.getUuid());
+
+        // Then
+        List<ChangeEvent> events = changeLog.read(1, 10);
+        assertAll("change log test", () -> assertEquals(List.of(ChangeEvent.Type.CREATED, ChangeEvent.Type.UPDATED,
+                        ChangeEvent.Type.DELETED), events.stream().map(ChangeEvent::type).toList()),
+                () -> assertEquals(List.of(1L, 2L, 3L), events.stream().map(ChangeEvent::sequence).toList()),
+                () -> assertEquals("Молоко", events.get(1).before().name()),
+                () -> assertEquals("Кефир", events.get(1).after().name()),
+                () -> assertTrue(events.stream().allMatch(event -> event.uuid().equals(product.getUuid()))));
+    }
+
+    @Test
+    void shouldStoreEqualTextsOnceWhenInternerIsGiven() {
+        // Given
+        ProductRepository interning = new InMemoryProductRepository(new WeakStringInterner());
+        Product first = interning.save(ProductTestData.builder().withUuid(UUID.randomUUID())
+                .withName(new String("Молоко")).withDescription(new String("Свежее")).build().buildProduct());
+
+        // When
+        Product second = interning.save(ProductTestData.builder().withUuid(UUID.randomUUID())
+                .withName(new String("Молоко")).withDescription(new String("Свежее")).build().buildProduct());
+
+        // Then
+        assertAll("intern test", () -> assertSame(first.getName(), second.getName()),
+                () -> assertSame(first.getDescription(), second.getDescription()),
+                () -> assertEquals(2, interning.findByNamePrefix("Молоко").size()));
+    }
 }
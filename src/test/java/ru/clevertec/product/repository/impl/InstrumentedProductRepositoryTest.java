@@ -0,0 +1,84 @@
+package ru.clevertec.product.repository.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.clevertec.product.entity.Product;
+import ru.clevertec.product.exception.ProductCanNotBeNull;
+import ru.clevertec.product.metrics.OperationSnapshot;
+import ru.clevertec.product.metrics.ProductMetrics;
+import ru.clevertec.product.utils.ProductTestData;
+
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InstrumentedProductRepositoryTest {
+
+    private ProductMetrics metrics;
+    private InstrumentedProductRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        metrics = new ProductMetrics();
+        repository = new InstrumentedProductRepository(new InMemoryProductRepository(), metrics);
+    }
+
+    @Test
+    void shouldCountFoundAndMissingProducts() {
+        // Given
+        Product expected = repository.save(ProductTestData.builder().build().buildProduct());
+
+        // When
+        repository.findById(expected.getUuid());
+        repository.findById(UUID.randomUUID());
+
+        // Then
+        OperationSnapshot snapshot = metrics.snapshot().operations().get("repository.findById");
+        assertAll("instrumented find test", () -> assertEquals(2, snapshot.calls()),
+                () -> assertEquals(1, snapshot.notFound()),
+                () -> assertEquals(1, metrics.snapshot().operations().get("repository.save").calls()));
+    }
+
+    @Test
+    void shouldPublishRepositorySize() {
+        // Given
+        Product expected = ProductTestData.builder().build().buildProduct();
+
+        // When
+        repository.save(expected);
+
+        // Then
+        assertEquals(Map.of("repository.size", 1L), metrics.snapshot().gauges());
+    }
+
+    @Test
+    void shouldCountErrorAndRethrowIt() {
+        // Given
+        Product product = null;
+
+        // When
+        assertThrows(ProductCanNotBeNull.class, () -> repository.save(product));
+
+        // Then
+        OperationSnapshot snapshot = metrics.snapshot().operations().get("repository.save");
+        assertAll("instrumented error test", () -> assertEquals(1, snapshot.calls()),
+                () -> assertEquals(1, snapshot.errors()));
+    }
+
+    @Test
+    void shouldNotRecordAnythingWhenMetricsAreDisabled() {
+        // Given
+        metrics.setEnabled(false);
+
+        // When
+        repository.findById(UUID.randomUUID());
+
+        // Then
+        assertTrue(metrics.snapshot().operations().values().stream().allMatch(operation -> operation.calls() == 0),
+                "Disabled metrics should not record calls");
+    }
+}
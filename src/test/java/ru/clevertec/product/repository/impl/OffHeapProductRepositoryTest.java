@@ -0,0 +1,292 @@
+package ru.clevertec.product.repository.impl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import ru.clevertec.product.data.PriceStatistics;
+import ru.clevertec.product.entity.Product;
+import ru.clevertec.product.exception.ProductCanNotBeNull;
+import ru.clevertec.product.repository.ProductRepository;
+import ru.clevertec.product.utils.ProductTestData;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OffHeapProductRepositoryTest {
+
+    private static final int CHUNK_SIZE = 4096;
+
+    private OffHeapProductRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new OffHeapProductRepository(null, CHUNK_SIZE);
+    }
+
+    @AfterEach
+    void tearDown() {
+        repository.close();
+    }
+
+    @Test
+    void shouldReturnSavedProductWithAllFields() {
+        // Given
+        Product expected = ProductTestData.builder().withName("Молоко").withPrice(new BigDecimal("20.50")).build().buildProduct();
+        repository.save(expected);
+
+        // When
+        Optional<Product> foundProduct = repository.findById(expected.getUuid());
+
+        // Then
+        assertThat(foundProduct).hasValueSatisfying(product -> assertAll("off-heap product test",
+                () -> assertEquals(expected, product),
+                () -> assertEquals(new BigDecimal("20.50"), product.getPrice(), "Price scale should be kept"),
+                () -> assertEquals(1, product.getVersion())));
+    }
+
+    @Test
+    void shouldKeepNullFields() {
+        // Given
+        Product expected = new Product(UUID.randomUUID(), null, null, null, null, 0);
+
+        // When
+        repository.save(expected);
+
+        // Then
+        assertEquals(Optional.of(expected), repository.findById(expected.getUuid()));
+    }
+
+    @Test
+    void shouldTruncateCreationTimeToMicroseconds() {
+        // Given
+        Product product = ProductTestData.builder().withCreated(LocalDateTime.of(2023, 10, 15, 12, 34, 56, 123_456_789))
+                .build().buildProduct();
+
+        // When
+        Product saved = repository.save(product);
+
+        // Then
+        assertEquals(LocalDateTime.of(2023, 10, 15, 12, 34, 56, 123_456_000), saved.getCreated());
+    }
+
+    @Test
+    void shouldRejectPriceThatDoesNotFitIntoLong() {
+        // Given
+        Product product = ProductTestData.builder().withPrice(new BigDecimal("99999999999999999999.99")).build().buildProduct();
+
+        // When & Then
+        assertAll("price range test",
+                () -> assertThrows(IllegalArgumentException.class, () -> repository.save(product)),
+                () -> assertFalse(repository.findById(product.getUuid()).isPresent()));
+    }
+
+    @Test
+    void shouldNotSaveBatchPartiallyWhenProductDoesNotFitIntoChunk() {
+        // Given
+        List<Product> batch = List.of(
+                ProductTestData.builder().withUuid(UUID.randomUUID()).build().buildProduct(),
+                ProductTestData.builder().withUuid(UUID.randomUUID()).withDescription("Я".repeat(CHUNK_SIZE)).build().buildProduct());
+
+        // When
+        assertThrows(IllegalArgumentException.class, () -> repository.saveAll(batch));
+
+        // Then
+        assertEquals(0, repository.count());
+    }
+
+    @Test
+    void shouldThrowExceptionWhenTryingToSaveNullProduct() {
+        // Given & When & Then
+        assertThrows(ProductCanNotBeNull.class, () -> repository.saveAll(Arrays.asList(ProductTestData.builder().build().buildProduct(), null)));
+        assertTrue(repository.findAll().isEmpty(), "Batch with null should not be saved partially");
+    }
+
+    @Test
+    void shouldSaveProductOnlyWhenVersionMatches() {
+        // Given
+        Product stored = repository.save(ProductTestData.builder().build().buildProduct());
+        Product stale = repository.findById(stored.getUuid()).orElseThrow();
+        stored.setName("Кефир");
+        repository.compareAndSave(stored);
+        stale.setName("Творог");
+
+        // When
+        Optional<Product> rejected = repository.compareAndSave(stale);
+
+        // Then
+        assertAll("version test", () -> assertFalse(rejected.isPresent(), "Stale product should be rejected"),
+                () -> assertEquals("Кефир", repository.findById(stored.getUuid()).orElseThrow().getName()),
+                () -> assertEquals(2, repository.findById(stored.getUuid()).orElseThrow().getVersion()));
+    }
+
+    @Test
+    void shouldFindManyProductsAcrossChunksAndAfterDeletes() {
+        // Given
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            products.add(ProductTestData.builder().withUuid(UUID.randomUUID()).withName("Продукт " + i).build().buildProduct());
+        }
+        repository.saveAll(products);
+        List<Product> deleted = products.subList(0, 2_500);
+
+        // When
+        repository.deleteAll(deleted.stream().map(Product::getUuid).toList());
+
+        // Then
+        assertAll("index test",
+                () -> assertEquals(2_500, repository.findAll().size()),
+                () -> assertTrue(deleted.stream().noneMatch(product -> repository.findById(product.getUuid()).isPresent())),
+                () -> assertEquals(products.subList(2_500, 5_000), repository.findAllById(products.subList(2_500, 5_000).stream()
+                        .map(Product::getUuid).toList())));
+    }
+
+    @Test
+    void shouldReturnPagesInUuidOrder() {
+        // Given
+        List<UUID> uuids = List.of(UUID.fromString("80000000-0000-7000-8000-000000000001"),
+                UUID.fromString("00000000-0000-7000-8000-000000000002"),
+                UUID.fromString("00000000-0000-7000-8000-000000000003"));
+        uuids.forEach(uuid -> repository.save(ProductTestData.builder().withUuid(uuid).build().buildProduct()));
+
+        // When
+        List<Product> first = repository.findPage(null, 2);
+        List<Product> second = repository.findPage(first.get(first.size() - 1).getUuid(), 2);
+
+        // Then
+        assertAll("paging test",
+                () -> assertEquals(List.of(uuids.get(0), uuids.get(1)), first.stream().map(Product::getUuid).toList()),
+                () -> assertEquals(List.of(uuids.get(2)), second.stream().map(Product::getUuid).toList()));
+    }
+
+    @ParameterizedTest
+    @CsvSource({"Молоко, 2", "Мол, 3", "Молоко Д, 1", "Хлеб, 0", "'', 3"})
+    void shouldFindProductsByNamePrefix(String prefix, int expectedCount) {
+        // Given
+        repository.saveAll(List.of(
+                ProductTestData.builder().withUuid(UUID.randomUUID()).withName("Молоко").build().buildProduct(),
+                ProductTestData.builder().withUuid(UUID.randomUUID()).withName("Молоко Д").build().buildProduct(),
+                ProductTestData.builder().withUuid(UUID.randomUUID()).withName("Молот").build().buildProduct()));
+
+        // When
+        List<Product> found = repository.findByNamePrefix(prefix);
+
+        // Then
+        assertAll("name prefix test", () -> assertEquals(expectedCount, found.size()),
+                () -> assertTrue(found.stream().allMatch(product -> product.getName().startsWith(prefix))));
+    }
+
+    @Test
+    void shouldSearchProductsInSameOrderAsInMemoryRepository() {
+        // Given
+        List<Product> products = List.of(
+                ProductTestData.builder().withUuid(UUID.randomUUID()).withName("Кефир").withDescription("Из молока").build().buildProduct(),
+                ProductTestData.builder().withUuid(UUID.randomUUID()).withName("Молоко пастеризованное").build().buildProduct(),
+                ProductTestData.builder().withUuid(UUID.randomUUID()).withName("Молоко").build().buildProduct(),
+                ProductTestData.builder().withUuid(UUID.randomUUID()).withName("Хлеб").build().buildProduct());
+        ProductRepository inMemory = new InMemoryProductRepository();
+        inMemory.saveAll(products);
+        repository.saveAll(products);
+
+        // When
+        List<Product> found = repository.search("молок", 10);
+
+        // Then
+        assertAll("search test", () -> assertEquals(3, found.size()),
+                () -> assertEquals(inMemory.search("молок", 10).stream().map(Product::getUuid).toList(),
+                        found.stream().map(Product::getUuid).toList()));
+    }
+
+    @Test
+    void shouldFindProductsByPriceAndCreationTime() {
+        // Given
+        Product first = ProductTestData.builder().withUuid(UUID.randomUUID()).withPrice(BigDecimal.valueOf(30))
+                .withCreated(LocalDateTime.of(2023, 10, 1, 10, 0)).build().buildProduct();
+        Product second = ProductTestData.builder().withUuid(UUID.randomUUID()).withPrice(new BigDecimal("20.50"))
+                .withCreated(LocalDateTime.of(2023, 10, 2, 10, 0)).build().buildProduct();
+        Product third = ProductTestData.builder().withUuid(UUID.randomUUID()).withPrice(BigDecimal.valueOf(10))
+                .withCreated(LocalDateTime.of(2023, 10, 3, 10, 0)).build().buildProduct();
+        repository.saveAll(List.of(third, first, second));
+
+        // When
+        List<Product> byPrice = repository.findByPriceBetween(BigDecimal.valueOf(10), new BigDecimal("20.5"));
+        List<Product> byCreated = repository.findCreatedBetween(LocalDateTime.of(2023, 10, 1, 10, 0, 0, 1), null);
+
+        // Then
+        assertAll("scan test", () -> assertEquals(List.of(third, second), byPrice),
+                () -> assertEquals(List.of(second, third), byCreated),
+                () -> assertEquals(List.of(third, second), repository.findNewest(2)));
+    }
+
+    @Test
+    void shouldCountPriceStatisticsFromRecords() {
+        // Given
+        repository.saveAll(List.of(
+                ProductTestData.builder().withUuid(UUID.randomUUID()).withPrice(BigDecimal.valueOf(10)).build().buildProduct(),
+                ProductTestData.builder().withUuid(UUID.randomUUID()).withPrice(new BigDecimal("20.50")).build().buildProduct(),
+                ProductTestData.builder().withUuid(UUID.randomUUID()).withPrice(new BigDecimal("30.0")).build().buildProduct(),
+                ProductTestData.builder().withUuid(UUID.randomUUID()).withPrice(null).build().buildProduct()));
+
+        // When
+        PriceStatistics statistics = repository.priceStatistics(new BigDecimal("10.00"), new BigDecimal("99999999999999999999.99"));
+
+        // Then
+        assertEquals(new PriceStatistics(3, BigDecimal.valueOf(10), new BigDecimal("30.0"), new BigDecimal("60.50"),
+                new BigDecimal("20.16666666666666666666666666666667")), statistics);
+    }
+
+    @Test
+    void shouldReclaimSpaceOfOverwrittenProductsWhenCompacted() {
+        // Given
+        Product product = ProductTestData.builder().build().buildProduct();
+        for (int i = 0; i < 1_000; i++) {
+            product.setDescription("Описание " + i);
+            repository.save(product);
+        }
+        long used = repository.usedBytes();
+
+        // When
+        repository.compact();
+
+        // Then
+        assertAll("compaction test", () -> assertTrue(repository.usedBytes() < used, "Garbage should be reclaimed"),
+                () -> assertTrue(used <= 2L * CHUNK_SIZE, "Compaction should also run on its own"),
+                () -> assertEquals(Optional.of(product), repository.findById(product.getUuid())),
+                () -> assertEquals(1_000, repository.findById(product.getUuid()).orElseThrow().getVersion()));
+    }
+
+    @Test
+    void shouldDeleteMappedFilesWhenClosed(@TempDir Path directory) throws IOException {
+        // Given
+        Product expected = ProductTestData.builder().build().buildProduct();
+        OffHeapProductRepository mapped = new OffHeapProductRepository(directory, CHUNK_SIZE);
+        mapped.save(expected);
+        assertEquals(Optional.of(expected), mapped.findById(expected.getUuid()));
+
+        // When
+        mapped.close();
+
+        // Then
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(0, files.count(), "Chunk files should be deleted");
+        }
+    }
+}
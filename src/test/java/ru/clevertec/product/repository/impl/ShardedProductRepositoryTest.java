@@ -0,0 +1,218 @@
+package ru.clevertec.product.repository.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import ru.clevertec.product.entity.Product;
+import ru.clevertec.product.exception.ProductCanNotBeNull;
+import ru.clevertec.product.interner.StringInterner;
+import ru.clevertec.product.repository.storage.ChangeLog;
+import ru.clevertec.product.utils.ProductTestData;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShardedProductRepositoryTest {
+
+    private static final String[] NAMES = {"Молоко", "Молочный коктейль", "Кефир", "Сыр", "Сырок", "Хлеб"};
+    private static final LocalDateTime START = LocalDateTime.of(2023, 10, 1, 0, 0);
+
+    private ShardedProductRepository repository;
+    private InMemoryProductRepository expected;
+    private List<Product> products;
+
+    @BeforeEach
+    void setUp() {
+        repository = new ShardedProductRepository(5);
+        expected = new InMemoryProductRepository();
+        products = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            products.add(ProductTestData.builder()
+                    .withUuid(UUID.randomUUID())
+                    .withName(NAMES[i % NAMES.length] + " " + i % 17)
+                    .withDescription("Описание " + i % 7)
+                    .withPrice(BigDecimal.valueOf(i % 113, 1))
+                    .withCreated(i % 10 == 0 ? null : START.plusMinutes(i % 61))
+                    .build().buildProduct());
+        }
+        repository.saveAll(products.stream().map(ShardedProductRepositoryTest::copy).toList());
+        expected.saveAll(products.stream().map(ShardedProductRepositoryTest::copy).toList());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, -1})
+    void shouldThrowIllegalArgumentExceptionWhenShardCountIsNotPositive(int shardCount) {
+        // Given
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+
+        // When, Then
+        assertThrows(IllegalArgumentException.class,
+                () -> new ShardedProductRepository(shardCount, StringInterner.none(), pool));
+    }
+
+    @Test
+    void shouldFindEveryProductSavedIntoAnyShard() {
+        // Given
+        List<UUID> uuids = products.stream().map(Product::getUuid).toList();
+
+        // When
+        long count = repository.count();
+
+        // Then
+        assertAll("routing test", () -> assertEquals(products.size(), count),
+                () -> assertTrue(uuids.stream().allMatch(uuid -> repository.findById(uuid).isPresent())),
+                () -> assertEquals(new HashSet<>(uuids), new HashSet<>(uuids(repository.findAll()))),
+                () -> assertEquals(products.size(), repository.streamAll().count()));
+    }
+
+    @Test
+    void shouldReturnSavedProductsInOrderOfBatch() {
+        // Given
+        List<Product> batch = List.of(
+                ProductTestData.builder().withUuid(null).withName("Первый").build().buildProduct(),
+                ProductTestData.builder().withUuid(UUID.randomUUID()).withName("Второй").build().buildProduct(),
+                ProductTestData.builder().withUuid(null).withName("Третий").build().buildProduct());
+
+        // When
+        List<Product> saved = repository.saveAll(batch);
+
+        // Then
+        assertAll("saveAll order test",
+                () -> assertEquals(List.of("Первый", "Второй", "Третий"), saved.stream().map(Product::getName).toList()),
+                () -> assertTrue(saved.stream().allMatch(product -> repository.findById(product.getUuid()).isPresent())));
+    }
+
+    @Test
+    void shouldNotSaveAnyProductWhenBatchContainsInvalidPrice() {
+        // Given
+        List<Product> batch = List.of(
+                ProductTestData.builder().withUuid(UUID.randomUUID()).build().buildProduct(),
+                ProductTestData.builder().withUuid(UUID.randomUUID())
+                        .withPrice(new BigDecimal("1234567890123456789012")).build().buildProduct());
+
+        // When
+        assertThrows(IllegalArgumentException.class, () -> repository.saveAll(batch));
+
+        // Then
+        assertEquals(products.size(), repository.count());
+    }
+
+    @Test
+    void shouldThrowProductCanNotBeNullWhenBatchContainsNull() {
+        // Given
+        List<Product> batch = Arrays.asList(ProductTestData.builder().build().buildProduct(), null);
+
+        // When, Then
+        assertThrows(ProductCanNotBeNull.class, () -> repository.saveAll(batch));
+    }
+
+    @Test
+    void shouldFindProductsByIdInOrderOfGivenIds() {
+        // Given
+        List<UUID> uuids = new ArrayList<>(uuids(products.subList(0, 50)));
+        uuids.add(UUID.randomUUID());
+        uuids.add(null);
+        uuids.add(products.get(7).getUuid());
+
+        // When
+        List<Product> actual = repository.findAllById(uuids);
+
+        // Then
+        assertEquals(uuids(expected.findAllById(uuids)), uuids(actual));
+    }
+
+    @Test
+    void shouldMergeSortedQueriesInSameOrderAsSingleRepository() {
+        // Given
+        BigDecimal from = new BigDecimal("2.5");
+        BigDecimal to = new BigDecimal("7");
+        UUID after = products.get(3).getUuid();
+
+        // When, Then
+        assertAll("merge test",
+                () -> assertEquals(uuids(expected.findPage(after, 40)), uuids(repository.findPage(after, 40))),
+                () -> assertEquals(uuids(expected.findByNamePrefix("Мол")), uuids(repository.findByNamePrefix("Мол"))),
+                () -> assertEquals(uuids(expected.findByPriceBetween(from, to)),
+                        uuids(repository.findByPriceBetween(from, to))),
+                () -> assertEquals(uuids(expected.findCreatedBetween(START.plusMinutes(5), START.plusMinutes(20))),
+                        uuids(repository.findCreatedBetween(START.plusMinutes(5), START.plusMinutes(20)))),
+                () -> assertEquals(uuids(expected.findNewest(25)), uuids(repository.findNewest(25))),
+                () -> assertEquals(uuids(expected.search("сыр 1", 10)), uuids(repository.search("сыр 1", 10))));
+    }
+
+    @Test
+    void shouldCombinePriceStatisticsOfAllShards() {
+        // Given
+        BigDecimal from = new BigDecimal("1");
+        BigDecimal to = new BigDecimal("9.9");
+
+        // When, Then
+        assertAll("statistics test",
+                () -> assertEquals(expected.priceStatistics(from, to), repository.priceStatistics(from, to)),
+                () -> assertEquals(expected.priceStatistics(null, null), repository.priceStatistics(null, null)),
+                () -> assertEquals(0, repository.priceStatistics(new BigDecimal("100"), null).count()));
+    }
+
+    @Test
+    void shouldDeleteProductsFromTheirShards() {
+        // Given
+        List<UUID> uuids = uuids(products.subList(0, 100));
+
+        // When
+        repository.deleteAll(uuids);
+        repository.delete(products.get(100).getUuid());
+
+        // Then
+        assertAll("delete test", () -> assertEquals(products.size() - 101, repository.count()),
+                () -> assertThat(repository.findAllById(uuids)).isEmpty());
+    }
+
+    @Test
+    void shouldRejectStaleCompareAndSave() {
+        // Given
+        Product product = repository.findById(products.get(0).getUuid()).orElseThrow();
+
+        // When
+        boolean first = repository.compareAndSave(copy(product)).isPresent();
+        boolean second = repository.compareAndSave(copy(product)).isPresent();
+
+        // Then
+        assertAll("compare and save test", () -> assertTrue(first), () -> assertFalse(second));
+    }
+
+    @Test
+    void shouldPublishChangesOfAllShardsToListener() {
+        // Given
+        ChangeLog changeLog = new ChangeLog(1_024);
+        repository.addListener(changeLog);
+
+        // When
+        repository.deleteAll(uuids(products.subList(0, 20)));
+
+        // Then
+        assertEquals(20, changeLog.read(1, 100).size());
+    }
+
+    private static List<UUID> uuids(List<Product> products) {
+        return products.stream().map(Product::getUuid).toList();
+    }
+
+    private static Product copy(Product product) {
+        return new Product(product.getUuid(), product.getName(), product.getDescription(), product.getPrice(),
+                product.getCreated(), product.getVersion());
+    }
+}
@@ -0,0 +1,168 @@
+package ru.clevertec.product.repository.impl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.clevertec.product.entity.Product;
+import ru.clevertec.product.repository.storage.WriteBehindConfig;
+import ru.clevertec.product.utils.ProductTestData;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class WriteBehindProductRepositoryTest {
+
+    private static final WriteBehindConfig CONFIG = new WriteBehindConfig(16, 8, Duration.ofMinutes(1),
+            Duration.ofMillis(50));
+
+    private InMemoryProductRepository delegate;
+    private WriteBehindProductRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        delegate = spy(new InMemoryProductRepository());
+        repository = new WriteBehindProductRepository(delegate, CONFIG);
+    }
+
+    @AfterEach
+    void tearDown() {
+        repository.close();
+    }
+
+    @Test
+    void shouldCoalesceRepeatedSavesOfSameProductIntoOneWrite() {
+        // Given
+        UUID uuid = UUID.randomUUID();
+        for (int i = 0; i < 5; i++) {
+            repository.save(ProductTestData.builder().withUuid(uuid).withName("Молоко " + i).build().buildProduct());
+        }
+
+        // When
+        repository.flush();
+
+        // Then
+        assertAll("coalesce test", () -> verify(delegate, times(1)).saveAll(argThat(products -> products.size() == 1)),
+                () -> assertEquals("Молоко 4", delegate.findById(uuid).orElseThrow().getName()),
+                () -> assertEquals(1, delegate.findById(uuid).orElseThrow().getVersion()));
+    }
+
+    @Test
+    void shouldSeeOwnWritesBeforeTheyAreFlushed() {
+        // Given
+        Product saved = repository.save(ProductTestData.builder().withUuid(UUID.randomUUID()).build().buildProduct());
+        Product deleted = repository.save(ProductTestData.builder().withUuid(UUID.randomUUID()).build().buildProduct());
+
+        // When
+        repository.delete(deleted.getUuid());
+
+        // Then
+        assertAll("read your writes test", () -> assertEquals(Optional.of(saved), repository.findById(saved.getUuid())),
+                () -> assertFalse(repository.findById(deleted.getUuid()).isPresent()),
+                () -> assertEquals(List.of(saved), repository.findAllById(List.of(deleted.getUuid(), saved.getUuid()))),
+                () -> assertFalse(delegate.findById(saved.getUuid()).isPresent(), "Write should still be buffered"),
+                () -> assertEquals(List.of(saved.getUuid()), repository.findAll().stream().map(Product::getUuid).toList(),
+                        "Query should flush the buffer first"));
+    }
+
+    @Test
+    void shouldRejectProductReadBeforeCoalescedWrite() {
+        // Given
+        Product saved = repository.save(ProductTestData.builder().withUuid(UUID.randomUUID()).build().buildProduct());
+        Product first = repository.findById(saved.getUuid()).orElseThrow();
+        Product stale = repository.findById(saved.getUuid()).orElseThrow();
+        first.setPrice(BigDecimal.TEN);
+        stale.setPrice(BigDecimal.ONE);
+
+        // When
+        Optional<Product> updated = repository.compareAndSave(first);
+        repository.flush();
+        Optional<Product> rejected = repository.compareAndSave(stale);
+
+        // Then
+        assertAll("compare and save test", () -> assertTrue(updated.isPresent()),
+                () -> assertTrue(updated.get().getVersion() > saved.getVersion()),
+                () -> assertFalse(rejected.isPresent(), "Product read before the coalesced write should be rejected"),
+                () -> assertEquals(BigDecimal.TEN, repository.findById(saved.getUuid()).orElseThrow().getPrice()));
+    }
+
+    @Test
+    void shouldNotLoseConcurrentUpdatesWhileFlushing() throws InterruptedException {
+        // Given
+        UUID uuid = repository.save(ProductTestData.builder().withUuid(UUID.randomUUID()).withPrice(BigDecimal.ZERO)
+                .build().buildProduct()).getUuid();
+        int threads = 4;
+        int increments = 1_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        // When
+        for (int thread = 0; thread < threads; thread++) {
+            executor.execute(() -> {
+                for (int i = 0; i < increments; i++) {
+                    Optional<Product> saved;
+                    do {
+                        Product product = repository.findById(uuid).orElseThrow();
+                        product.setPrice(product.getPrice().add(BigDecimal.ONE));
+                        saved = repository.compareAndSave(product);
+                        if (i % 100 == 0) {
+                            repository.flush();
+                        }
+                    } while (saved.isEmpty());
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+        repository.close();
+
+        // Then
+        assertEquals(BigDecimal.valueOf((long) threads * increments), delegate.findById(uuid).orElseThrow().getPrice());
+    }
+
+    @Test
+    void shouldRejectNewProductWhenBufferIsFullAndDrainItOnClose() throws InterruptedException {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await();
+            return invocation.callRealMethod();
+        }).when(delegate).saveAll(anyCollection());
+        WriteBehindProductRepository bounded = new WriteBehindProductRepository(delegate,
+                new WriteBehindConfig(2, 2, Duration.ofMillis(10), Duration.ofMillis(50)));
+        bounded.save(ProductTestData.builder().withUuid(UUID.randomUUID()).build().buildProduct());
+        Product hot = bounded.save(ProductTestData.builder().withUuid(UUID.randomUUID()).build().buildProduct());
+
+        // When
+        RejectedExecutionException thrown = assertThrows(RejectedExecutionException.class,
+                () -> bounded.save(ProductTestData.builder().withUuid(UUID.randomUUID()).build().buildProduct()));
+        hot.setName("Кефир");
+        bounded.save(hot);
+        release.countDown();
+        bounded.close();
+
+        // Then
+        assertAll("backpressure test", () -> assertEquals("Write-behind buffer is full", thrown.getMessage()),
+                () -> assertEquals(2, delegate.count()),
+                () -> assertEquals("Кефир", delegate.findById(hot.getUuid()).orElseThrow().getName()),
+                () -> assertThrows(IllegalStateException.class, () -> bounded.save(hot)));
+    }
+}
@@ -0,0 +1,108 @@
+package ru.clevertec.product.repository.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import ru.clevertec.product.exception.ChangesExpiredException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChangeLogTest {
+
+    @ParameterizedTest
+    @CsvSource({"1, 1", "2, 2", "3, 4", "1000, 1024", "1024, 1024"})
+    void shouldRoundCapacityUpToPowerOfTwo(int capacity, int expected) {
+        // Given & When
+        ChangeLog log = new ChangeLog(capacity);
+
+        // Then
+        assertEquals(expected, log.capacity());
+    }
+
+    @Test
+    void shouldReadChangesFromGivenSequenceUpToLimit() {
+        // Given
+        ChangeLog log = new ChangeLog(8);
+        ProductRecord created = record(0);
+        ProductRecord updated = created.withVersion(1);
+        log.onChange(null, created);
+        log.onChange(created, updated);
+        log.onChange(updated, null);
+
+        // When
+        List<ChangeEvent> first = log.read(1, 2);
+        List<ChangeEvent> rest = log.read(3, 10);
+
+        // Then
+        assertAll("read test", () -> assertEquals(List.of(ChangeEvent.of(1, null, created),
+                        ChangeEvent.of(2, created, updated)), first),
+                () -> assertEquals(List.of(ChangeEvent.of(3, updated, null)), rest),
+                () -> assertEquals(List.of(ChangeEvent.Type.CREATED, ChangeEvent.Type.UPDATED),
+                        first.stream().map(ChangeEvent::type).toList()),
+                () -> assertEquals(ChangeEvent.Type.DELETED, rest.get(0).type()),
+                () -> assertTrue(log.read(4, 10).isEmpty(), "No changes should be read after the last one"),
+                () -> assertEquals(4, log.nextSequence()));
+    }
+
+    @Test
+    void shouldThrowExceptionWhenReaderFallsBehindCapacity() {
+        // Given
+        ChangeLog log = new ChangeLog(4);
+        for (int i = 0; i < 10; i++) {
+            log.onChange(null, record(i));
+        }
+
+        // When
+        ChangesExpiredException thrown = assertThrows(ChangesExpiredException.class, () -> log.read(1, 10));
+
+        // Then
+        assertAll("expired test", () -> assertEquals(1, thrown.getSequence()),
+                () -> assertEquals(7, thrown.getFirstAvailable()),
+                () -> assertEquals(LongStream.rangeClosed(7, 10).boxed().toList(),
+                        log.read(thrown.getFirstAvailable(), 10).stream().map(ChangeEvent::sequence).toList()),
+                () -> assertThrows(IllegalArgumentException.class, () -> log.read(0, 10)),
+                () -> assertThrows(IllegalArgumentException.class, () -> log.read(7, 0)));
+    }
+
+    @Test
+    void shouldGiveEveryConcurrentChangeItsOwnSequence() throws InterruptedException {
+        // Given
+        int writers = 8;
+        int changesPerWriter = 10_000;
+        ChangeLog log = new ChangeLog(writers * changesPerWriter);
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+
+        // When
+        for (int writer = 0; writer < writers; writer++) {
+            executor.execute(() -> {
+                for (int i = 0; i < changesPerWriter; i++) {
+                    log.onChange(null, record(i));
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+        List<Long> sequences = new ArrayList<>();
+        for (long next = 1; next < log.nextSequence(); next = sequences.get(sequences.size() - 1) + 1) {
+            log.read(next, 1_000).forEach(event -> sequences.add(event.sequence()));
+        }
+
+        // Then
+        assertEquals(LongStream.rangeClosed(1, (long) writers * changesPerWriter).boxed().toList(), sequences);
+    }
+
+    private static ProductRecord record(int i) {
+        return ProductRecord.of(UUID.randomUUID(), "Продукт " + i, "Описание", null, null, 0);
+    }
+}
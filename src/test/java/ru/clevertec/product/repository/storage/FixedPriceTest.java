@@ -0,0 +1,48 @@
+package ru.clevertec.product.repository.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FixedPriceTest {
+
+    @ParameterizedTest
+    @CsvSource({"20.5, 20.50", "10, 20.50", "-1, 0.001", "922337203685477580.7, 9223372036854775807",
+            "-922337203685477580.8, -9223372036854775808", "1E+30, 9223372036854775807", "0, 0E-40", "1E-30, 1E+30"})
+    void shouldCompareLikeBigDecimal(BigDecimal first, BigDecimal second) {
+        // Given
+        int expected = Integer.signum(first.compareTo(second));
+
+        // When
+        int compared = FixedPrice.compare(FixedPrice.unscaled(first), first.scale(),
+                FixedPrice.unscaled(second), second.scale());
+        int reversed = FixedPrice.compare(FixedPrice.unscaled(second), second.scale(),
+                FixedPrice.unscaled(first), first.scale());
+
+        // Then
+        assertAll("compare test", () -> assertEquals(expected, Integer.signum(compared)),
+                () -> assertEquals(-expected, Integer.signum(reversed)));
+    }
+
+    @Test
+    void shouldKeepScaleWhenConvertedBack() {
+        // Given
+        BigDecimal price = new BigDecimal("20.50");
+
+        // When
+        BigDecimal converted = FixedPrice.toBigDecimal(FixedPrice.unscaled(price), FixedPrice.scale(price));
+
+        // Then
+        assertAll("conversion test", () -> assertEquals(price, converted),
+                () -> assertNull(FixedPrice.toBigDecimal(FixedPrice.unscaled(null), FixedPrice.scale(null))),
+                () -> assertThrows(IllegalArgumentException.class,
+                        () -> FixedPrice.unscaled(new BigDecimal("99999999999999999999.99"))));
+    }
+}
@@ -0,0 +1,81 @@
+package ru.clevertec.product.repository.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SearchIndexTest {
+
+    private Map<UUID, ProductRecord> records;
+    private SearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        records = new HashMap<>();
+        index = new SearchIndex(records::get);
+    }
+
+    @Test
+    void shouldFindProductByNewTextOnlyAfterRename() {
+        // Given
+        UUID uuid = UUID.randomUUID();
+        put(record(uuid, "Молоко"));
+
+        // When
+        put(record(uuid, "Кефир"));
+
+        // Then
+        assertAll("rename test", () -> assertTrue(search("молоко").isEmpty()),
+                () -> assertEquals(List.of(uuid), search("кефир")));
+    }
+
+    @Test
+    void shouldNotFindDeletedProduct() {
+        // Given
+        UUID uuid = UUID.randomUUID();
+        put(record(uuid, "Молоко"));
+
+        // When
+        index.update(records.remove(uuid), null);
+
+        // Then
+        assertTrue(search("мол").isEmpty());
+    }
+
+    @Test
+    void shouldFindEveryProductOnceAfterRenumbering() {
+        // Given
+        List<UUID> uuids = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+
+        // When
+        for (int i = 0; i < 100_000; i++) {
+            put(record(uuids.get(i % uuids.size()), i % 2 == 0 ? "Молоко " + i : "Кефир " + i));
+        }
+
+        // Then
+        assertAll("renumbering test", () -> assertEquals(1, search("молоко").size()),
+                () -> assertEquals(2, search("кефир").size()),
+                () -> assertEquals(List.of(uuids.get(1)), search("кефир 99997")));
+    }
+
+    private void put(ProductRecord record) {
+        index.update(records.put(record.uuid(), record), record);
+    }
+
+    private List<UUID> search(String query) {
+        return index.search(SearchQuery.parse(query), 10).stream().map(ProductRecord::uuid).toList();
+    }
+
+    private static ProductRecord record(UUID uuid, String name) {
+        return ProductRecord.of(uuid, name, "Описание", BigDecimal.ONE, null, 0);
+    }
+}
@@ -0,0 +1,42 @@
+package ru.clevertec.product.repository.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SearchQueryTest {
+
+    @ParameterizedTest
+    @CsvSource({"молоко, 8", "мол, 6", "лок, 4", "свежее, 3", "свеж, 2", "веж, 1", "ол, -1", "хлеб, -1",
+            "молоко свежее, 11", "Ёлки, 3"})
+    void shouldScoreNameMatchesAboveDescriptionMatches(String query, int expected) {
+        // Given
+        SearchQuery parsed = SearchQuery.parse(query);
+
+        // When
+        int score = parsed.score("Молоко", "Свежее, с ёлки");
+
+        // Then
+        assertEquals(expected, score);
+    }
+
+    @Test
+    void shouldParseDistinctNormalizedWords() {
+        // Given
+        String query = "  Ёж, ЕЖ-молоко!  ";
+
+        // When
+        SearchQuery parsed = SearchQuery.parse(query);
+
+        // Then
+        assertAll("parse test", () -> assertEquals(List.of("еж", "молоко"), parsed.words()),
+                () -> assertTrue(SearchQuery.parse(null).isEmpty()),
+                () -> assertTrue(SearchQuery.parse(" ,.; ").isEmpty()));
+    }
+}
@@ -0,0 +1,129 @@
+package ru.clevertec.product.repository.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class UuidHashMapTest {
+
+    private UuidHashMap<String> map;
+
+    @BeforeEach
+    void setUp() {
+        map = new UuidHashMap<>();
+    }
+
+    @Test
+    void shouldFindValueByBothHalvesOfUuid() {
+        // Given
+        UUID uuid = UUID.fromString("c249fc5b-4a25-4212-83ca-2c6ec0d57d0b");
+        map.compute(uuid, current -> "value");
+
+        // When
+        String found = map.get(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+
+        // Then
+        assertAll("lookup test", () -> assertEquals("value", found),
+                () -> assertNull(map.get(UUID.fromString("ebc3c5b1-aeaa-44f5-8d8a-bfcc53de36e6"))));
+    }
+
+    @Test
+    void shouldRemoveValueWhenRemappingReturnsNull() {
+        // Given
+        UUID uuid = UUID.randomUUID();
+        map.compute(uuid, current -> "value");
+
+        // When
+        map.computeIfPresent(uuid, current -> null);
+
+        // Then
+        assertAll("remove test", () -> assertNull(map.get(uuid)), () -> assertEquals(0, map.size()),
+                () -> assertNull(map.computeIfPresent(uuid, current -> "unexpected"), "Absent key should not be remapped"));
+    }
+
+    @Test
+    void shouldKeepAllEntriesWhenGrowingAndShiftingOnRemove() {
+        // Given
+        List<UUID> uuids = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            UUID uuid = new UUID(i % 7, i);
+            uuids.add(uuid);
+            map.compute(uuid, current -> uuid.toString());
+        }
+
+        // When
+        uuids.subList(0, 50_000).forEach(uuid -> map.computeIfPresent(uuid, current -> null));
+
+        // Then
+        assertAll("growth test", () -> assertEquals(50_000, map.size()),
+                () -> assertThat(uuids.subList(0, 50_000)).allMatch(uuid -> map.get(uuid) == null),
+                () -> assertThat(uuids.subList(50_000, 100_000)).allMatch(uuid -> uuid.toString().equals(map.get(uuid))),
+                () -> assertEquals(50_000, map.values().count()));
+    }
+
+    @Test
+    void shouldComputeBatchInOrderOfItems() {
+        // Given
+        List<UUID> uuids = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            uuids.add(new UUID(i % 7, i));
+        }
+        uuids.add(uuids.get(0));
+        map.compute(uuids.get(1), current -> "old");
+
+        // When
+        List<String> computed = map.computeAll(uuids, uuid -> uuid,
+                (uuid, current) -> current == null ? uuid.toString() : current + "+");
+
+        // Then
+        assertAll("batch compute test", () -> assertEquals(10_000, map.size()),
+                () -> assertEquals(uuids.get(0) + "+", map.get(uuids.get(0))),
+                () -> assertEquals("old+", computed.get(1)),
+                () -> assertEquals(uuids.get(9_999).toString(), computed.get(9_999)),
+                () -> assertEquals(uuids.get(0) + "+", computed.get(10_000)));
+    }
+
+    @Test
+    void shouldApplyEveryRemappingWhenComputedConcurrently() throws Exception {
+        // Given
+        UuidHashMap<Integer> counters = new UuidHashMap<>();
+        UUID uuid = UUID.randomUUID();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            writers.add(executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < 10_000; j++) {
+                    counters.compute(uuid, current -> current == null ? 1 : current + 1);
+                    counters.compute(UUID.randomUUID(), current -> 0);
+                }
+                return null;
+            }));
+        }
+
+        // When
+        start.countDown();
+        for (Future<?> writer : writers) {
+            writer.get(1, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        // Then
+        assertAll("concurrent compute test", () -> assertEquals(80_000, counters.get(uuid)),
+                () -> assertEquals(80_001, counters.size()));
+    }
+}
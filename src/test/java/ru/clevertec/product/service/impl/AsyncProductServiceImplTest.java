@@ -0,0 +1,121 @@
+package ru.clevertec.product.service.impl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.clevertec.product.data.InfoProductDto;
+import ru.clevertec.product.data.ProductDto;
+import ru.clevertec.product.exception.ProductNotFoundException;
+import ru.clevertec.product.service.ProductService;
+import ru.clevertec.product.utils.ProductTestData;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AsyncProductServiceImplTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    @Mock
+    private ProductService delegate;
+
+    private AsyncProductServiceImpl asyncService;
+
+    @BeforeEach
+    void setUp() {
+        asyncService = new AsyncProductServiceImpl(delegate, AsyncProductServiceImpl.virtualThreads());
+    }
+
+    @AfterEach
+    void tearDown() {
+        asyncService.close();
+    }
+
+    @Test
+    public void shouldGetProductOnVirtualThread() {
+        //Given
+        InfoProductDto expected = ProductTestData.builder()
+                .build()
+                .buildInfoProductDto();
+        AtomicBoolean virtual = new AtomicBoolean();
+        when(delegate.get(expected.uuid()))
+                .thenAnswer(invocation -> {
+                    virtual.set(Thread.currentThread().isVirtual());
+                    return expected;
+                });
+
+        //When
+        CompletableFuture<InfoProductDto> actual = asyncService.get(expected.uuid());
+
+        //Then
+        assertAll("async get test",
+                () -> assertThat(actual).succeedsWithin(TIMEOUT).isEqualTo(expected),
+                () -> assertTrue(virtual.get(), "Operation should run on a virtual thread"));
+    }
+
+    @Test
+    public void shouldCompleteExceptionallyWithOriginalException() {
+        //Given
+        UUID uuid = UUID.randomUUID();
+        ProductDto productDto = ProductTestData.builder()
+                .build()
+                .buildProductDto();
+        doAnswer(invocation -> {
+            throw new ProductNotFoundException(uuid);
+        }).when(delegate).update(uuid, productDto);
+
+        //When
+        CompletableFuture<Throwable> failure = asyncService.update(uuid, productDto)
+                .handle((ignored, throwable) -> throwable);
+
+        //Then
+        assertThat(failure).succeedsWithin(TIMEOUT)
+                .isInstanceOf(ProductNotFoundException.class);
+    }
+
+    @Test
+    public void shouldRejectOperationWhenPlatformQueueIsFull() throws InterruptedException {
+        //Given
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        UUID uuid = UUID.randomUUID();
+        doAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return null;
+        }).when(delegate).delete(uuid);
+        AsyncProductServiceImpl bounded = new AsyncProductServiceImpl(delegate,
+                AsyncProductServiceImpl.platformThreads(1, 1));
+        CompletableFuture<Void> running = bounded.delete(uuid);
+        started.await();
+        CompletableFuture<Void> queued = bounded.delete(uuid);
+
+        //When
+        CompletableFuture<Void> rejected = bounded.delete(uuid);
+
+        //Then
+        release.countDown();
+        bounded.close();
+        assertAll("bounded queue test",
+                () -> assertThat(rejected).failsWithin(TIMEOUT)
+                        .withThrowableOfType(ExecutionException.class)
+                        .withCauseInstanceOf(RejectedExecutionException.class),
+                () -> assertThat(running).succeedsWithin(TIMEOUT),
+                () -> assertThat(queued).succeedsWithin(TIMEOUT));
+    }
+}
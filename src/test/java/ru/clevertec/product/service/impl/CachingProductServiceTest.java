@@ -0,0 +1,156 @@
+package ru.clevertec.product.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.clevertec.product.data.InfoProductDto;
+import ru.clevertec.product.data.ProductDto;
+import ru.clevertec.product.exception.ProductNotFoundException;
+import ru.clevertec.product.service.ProductService;
+import ru.clevertec.product.utils.ProductTestData;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CachingProductServiceTest {
+
+    private static final int MAXIMUM_SIZE = 2;
+
+    @Mock
+    private ProductService delegate;
+
+    private CachingProductService cachingService;
+
+    @BeforeEach
+    void setUp() {
+        cachingService = new CachingProductService(delegate, MAXIMUM_SIZE);
+    }
+
+    @Test
+    public void shouldCallDelegateOnceWhenSameProductIsRequestedTwice() {
+        //Given
+        InfoProductDto expected = ProductTestData.builder()
+                .build()
+                .buildInfoProductDto();
+        when(delegate.get(expected.uuid()))
+                .thenReturn(expected);
+
+        //When
+        InfoProductDto first = cachingService.get(expected.uuid());
+        InfoProductDto second = cachingService.get(expected.uuid());
+
+        //Then
+        assertAll("cache hit test",
+                () -> assertEquals(expected, first),
+                () -> assertEquals(expected, second),
+                () -> assertEquals(new CachingProductService.Stats(1, 1, 0, 1), cachingService.stats()));
+        verify(delegate).get(expected.uuid());
+    }
+
+    @Test
+    public void shouldReloadProductWhenItWasUpdated() {
+        //Given
+        InfoProductDto expected = ProductTestData.builder()
+                .build()
+                .buildInfoProductDto();
+        InfoProductDto updated = ProductTestData.builder()
+                .withName("New name")
+                .build()
+                .buildInfoProductDto();
+        ProductDto productDto = ProductTestData.builder()
+                .withName("New name")
+                .build()
+                .buildProductDto();
+        when(delegate.get(expected.uuid()))
+                .thenReturn(expected, updated);
+        cachingService.get(expected.uuid());
+
+        //When
+        cachingService.update(expected.uuid(), productDto);
+
+        //Then
+        assertEquals(updated, cachingService.get(expected.uuid()));
+        verify(delegate).update(expected.uuid(), productDto);
+        verify(delegate, times(2)).get(expected.uuid());
+    }
+
+    @Test
+    public void shouldReloadProductWhenItWasDeleted() {
+        //Given
+        InfoProductDto expected = ProductTestData.builder()
+                .build()
+                .buildInfoProductDto();
+        when(delegate.get(expected.uuid()))
+                .thenReturn(expected)
+                .thenThrow(new ProductNotFoundException(expected.uuid()));
+        cachingService.get(expected.uuid());
+
+        //When
+        cachingService.delete(expected.uuid());
+
+        //Then
+        assertThrows(ProductNotFoundException.class, () -> cachingService.get(expected.uuid()));
+        verify(delegate).delete(expected.uuid());
+    }
+
+    @Test
+    public void shouldNotCacheMissingProduct() {
+        //Given
+        UUID uuid = UUID.fromString("3ecb77f7-0114-47a7-ada7-3ec685d202a7");
+        when(delegate.get(uuid))
+                .thenThrow(new ProductNotFoundException(uuid));
+
+        //When
+        assertThrows(ProductNotFoundException.class, () -> cachingService.get(uuid));
+
+        //Then
+        assertEquals(0, cachingService.stats().size());
+    }
+
+    @Test
+    public void shouldEvictNotRecentlyUsedProductWhenCacheIsFull() {
+        //Given
+        List<InfoProductDto> products = List.of(
+                ProductTestData.builder().withUuid(UUID.randomUUID()).build().buildInfoProductDto(),
+                ProductTestData.builder().withUuid(UUID.randomUUID()).build().buildInfoProductDto(),
+                ProductTestData.builder().withUuid(UUID.randomUUID()).build().buildInfoProductDto());
+        when(delegate.get(any(UUID.class)))
+                .thenAnswer(invocation -> products.stream()
+                        .filter(product -> product.uuid().equals(invocation.getArgument(0)))
+                        .findFirst()
+                        .orElseThrow());
+        cachingService.get(products.get(0).uuid());
+        cachingService.get(products.get(1).uuid());
+        cachingService.get(products.get(0).uuid());
+
+        //When
+        cachingService.get(products.get(2).uuid());
+        cachingService.get(products.get(0).uuid());
+
+        //Then
+        CachingProductService.Stats stats = cachingService.stats();
+        assertAll("eviction test",
+                () -> assertEquals(MAXIMUM_SIZE, stats.size()),
+                () -> assertEquals(1, stats.evictions()),
+                () -> assertTrue(stats.hits() >= 2, "Recently used product should stay cached"));
+        verify(delegate).get(products.get(0).uuid());
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenMaximumSizeIsNotPositive() {
+        //Given & When & Then
+        assertThrows(IllegalArgumentException.class, () -> new CachingProductService(delegate, 0));
+    }
+}
@@ -0,0 +1,108 @@
+package ru.clevertec.product.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.clevertec.product.data.InfoProductDto;
+import ru.clevertec.product.data.ProductDto;
+import ru.clevertec.product.exception.ProductNotFoundException;
+import ru.clevertec.product.metrics.OperationSnapshot;
+import ru.clevertec.product.metrics.ProductMetrics;
+import ru.clevertec.product.service.ProductService;
+import ru.clevertec.product.utils.ProductTestData;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class InstrumentedProductServiceTest {
+
+    @Mock
+    private ProductService delegate;
+
+    private ProductMetrics metrics;
+    private InstrumentedProductService instrumentedService;
+
+    @BeforeEach
+    void setUp() {
+        metrics = new ProductMetrics();
+        instrumentedService = new InstrumentedProductService(delegate, metrics);
+    }
+
+    @Test
+    public void shouldCountCallAndReturnDelegateResult() {
+        //Given
+        InfoProductDto expected = ProductTestData.builder()
+                .build()
+                .buildInfoProductDto();
+        when(delegate.get(expected.uuid()))
+                .thenReturn(expected);
+
+        //When
+        InfoProductDto actual = instrumentedService.get(expected.uuid());
+
+        //Then
+        OperationSnapshot snapshot = metrics.snapshot().operations().get("service.get");
+        assertAll("instrumented get test",
+                () -> assertEquals(expected, actual),
+                () -> assertEquals(1, snapshot.calls()),
+                () -> assertEquals(0, snapshot.notFound()),
+                () -> assertEquals(snapshot.maxNanos(), snapshot.p50Nanos()));
+    }
+
+    @Test
+    public void shouldCountNotFoundProductAsMissNotError() {
+        //Given
+        UUID uuid = UUID.randomUUID();
+        ProductDto productDto = ProductTestData.builder()
+                .build()
+                .buildProductDto();
+        doThrow(new ProductNotFoundException(uuid))
+                .when(delegate).update(uuid, productDto);
+
+        //When
+        assertThrows(ProductNotFoundException.class, () -> instrumentedService.update(uuid, productDto));
+
+        //Then
+        OperationSnapshot snapshot = metrics.snapshot().operations().get("service.update");
+        assertAll("instrumented not found test",
+                () -> assertEquals(1, snapshot.calls()),
+                () -> assertEquals(1, snapshot.notFound()),
+                () -> assertEquals(0, snapshot.errors()));
+    }
+
+    @Test
+    public void shouldCountErrorWhenDelegateFails() {
+        //Given
+        when(delegate.getPage(null, 0))
+                .thenThrow(new IllegalArgumentException("Page limit must be positive"));
+
+        //When
+        assertThrows(IllegalArgumentException.class, () -> instrumentedService.getPage(null, 0));
+
+        //Then
+        assertEquals(1, metrics.snapshot().operations().get("service.getPage").errors());
+    }
+
+    @Test
+    public void shouldOnlyDelegateWhenMetricsAreDisabled() {
+        //Given
+        UUID uuid = UUID.randomUUID();
+        metrics.setEnabled(false);
+
+        //When
+        instrumentedService.delete(uuid);
+
+        //Then
+        verify(delegate).delete(uuid);
+        assertEquals(0, metrics.snapshot().operations().get("service.delete").calls());
+    }
+}
@@ -7,21 +7,32 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import ru.clevertec.product.data.InfoProductDto;
+import ru.clevertec.product.data.PriceStatistics;
 import ru.clevertec.product.data.ProductDto;
+import ru.clevertec.product.data.ProductQuery;
+import ru.clevertec.product.data.ProductQueryResult;
 import ru.clevertec.product.entity.Product;
 import ru.clevertec.product.exception.ProductNotFoundException;
+import ru.clevertec.product.generator.IdGenerator;
 import ru.clevertec.product.mapper.ProductMapper;
 import ru.clevertec.product.repository.ProductRepository;
 import ru.clevertec.product.utils.ProductTestData;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
@@ -36,6 +47,9 @@ class ProductServiceImplTest {
     @Mock
     private ProductRepository productRepository;
 
+    @Mock
+    private IdGenerator idGenerator;
+
     @InjectMocks
     private ProductServiceImpl productService;
 
@@ -95,8 +109,8 @@ class ProductServiceImplTest {
 
         when(productRepository.findAll())
                 .thenReturn(products);
-        when(productMapper.toInfoProductDto(product))
-                .thenReturn(infoProductDto);
+        when(productMapper.toInfoProductDtoList(products))
+                .thenReturn(expected);
 
         //When
         List<InfoProductDto> result = productService.getAll();
@@ -106,7 +120,7 @@ class ProductServiceImplTest {
         verify(productRepository)
                 .findAll();
         verify(productMapper)
-                .toInfoProductDto(product);
+                .toInfoProductDtoList(products);
     }
 
     @Test
@@ -138,9 +152,14 @@ class ProductServiceImplTest {
                 .build()
                 .buildProductDto();
 
+        UUID uuid = UUID.fromString("3ecb77f7-0114-47a7-ada7-3ec685d202a7");
+
         when(productMapper.toProduct(productDto))
                 .thenReturn(product);
 
+        when(idGenerator.generate())
+                .thenReturn(uuid);
+
         when(productRepository.save(product))
                 .thenReturn(product);
 
@@ -148,7 +167,7 @@ class ProductServiceImplTest {
         UUID result = productService.create(productDto);
 
         //Then
-        assertEquals(product.getUuid(), result);
+        assertEquals(uuid, result);
 
         verify(productMapper)
                 .toProduct(productDto);
@@ -176,6 +195,9 @@ class ProductServiceImplTest {
         when(productMapper.merge(product, productDto))
                 .thenReturn(product);
 
+        when(productRepository.compareAndSave(product))
+                .thenReturn(Optional.of(product));
+
         //When
         productService.update(product.getUuid(), productDto);
 
@@ -187,11 +209,72 @@ class ProductServiceImplTest {
                 .merge(product, productDto);
 
         verify(productRepository)
-                .save(productCaptor.capture());
+                .compareAndSave(productCaptor.capture());
 
         assertEquals(product, productCaptor.getValue());
     }
 
+    @Test
+    public void shouldRetryUpdateWhenProductWasChangedConcurrently() {
+        //Given
+        Product stale = ProductTestData.builder()
+                .withVersion(1)
+                .build()
+                .buildProduct();
+
+        Product fresh = ProductTestData.builder()
+                .withVersion(2)
+                .build()
+                .buildProduct();
+
+        ProductDto productDto = ProductTestData.builder()
+                .withName("New name")
+                .build()
+                .buildProductDto();
+
+        when(productRepository.findById(stale.getUuid()))
+                .thenReturn(Optional.of(stale), Optional.of(fresh));
+
+        when(productRepository.compareAndSave(any(Product.class)))
+                .thenReturn(Optional.empty(), Optional.of(fresh));
+
+        //When
+        productService.update(stale.getUuid(), productDto);
+
+        //Then
+        verify(productRepository, times(2))
+                .findById(stale.getUuid());
+
+        verify(productRepository, times(2))
+                .compareAndSave(productCaptor.capture());
+
+        assertEquals(List.of(1L, 2L), productCaptor.getAllValues().stream()
+                .map(Product::getVersion)
+                .toList());
+        verify(productRepository, never())
+                .save(any(Product.class));
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenUpdatedProductDoesNotExist() {
+        //Given
+        UUID uuid = UUID.fromString("3ecb77f7-0114-47a7-ada7-3ec685d202a7");
+        ProductDto productDto = ProductTestData.builder()
+                .build()
+                .buildProductDto();
+
+        when(productRepository.findById(uuid))
+                .thenReturn(Optional.empty());
+
+        //When
+        ProductNotFoundException exception = assertThrows(ProductNotFoundException.class,
+                () -> productService.update(uuid, productDto));
+
+        //Then
+        assertEquals(String.format("Product with uuid: %s not found", uuid), exception.getMessage());
+        verifyNoInteractions(productMapper);
+    }
+
     @Test
     public void shouldDeleteExistingProduct() {
         //Given
@@ -203,4 +286,259 @@ class ProductServiceImplTest {
         //Then
         verify(productRepository).delete(uuid);
     }
+
+    @Test
+    public void shouldReturnPriceStatisticsFromRepository() {
+        //Given
+        PriceStatistics statistics = new PriceStatistics(2, BigDecimal.ONE, BigDecimal.TEN, BigDecimal.valueOf(11),
+                new BigDecimal("5.5"));
+
+        when(productRepository.priceStatistics(BigDecimal.ONE, null))
+                .thenReturn(statistics);
+
+        //When
+        PriceStatistics result = productService.getPriceStatistics(BigDecimal.ONE, null);
+
+        //Then
+        assertEquals(statistics, result);
+        verifyNoInteractions(productMapper);
+    }
+
+    @Test
+    public void shouldReturnFoundProductsInRepositoryOrderWhenSearched() {
+        //Given
+        Product product = ProductTestData.builder()
+                .build()
+                .buildProduct();
+        InfoProductDto infoProductDto = ProductTestData.builder()
+                .build()
+                .buildInfoProductDto();
+
+        when(productRepository.search("молоко", 10))
+                .thenReturn(List.of(product));
+        when(productMapper.toInfoProductDtoList(List.of(product)))
+                .thenReturn(List.of(infoProductDto));
+
+        //When
+        List<InfoProductDto> result = productService.search("молоко", 10);
+
+        //Then
+        assertEquals(List.of(infoProductDto), result);
+        verify(productRepository).search("молоко", 10);
+    }
+
+    @Test
+    public void shouldReturnTopProductsInQueryOrderWithAggregatesOfAllMatches() {
+        //Given
+        Product cheap = ProductTestData.builder().withUuid(UUID.randomUUID()).withPrice(BigDecimal.ONE).build().buildProduct();
+        Product middle = ProductTestData.builder().withUuid(UUID.randomUUID()).withPrice(BigDecimal.valueOf(3)).build().buildProduct();
+        Product expensive = ProductTestData.builder().withUuid(UUID.randomUUID()).withPrice(BigDecimal.valueOf(5)).build().buildProduct();
+        Product withoutPrice = ProductTestData.builder().withUuid(UUID.randomUUID()).withPrice(null).build().buildProduct();
+        InfoProductDto expensiveDto = ProductTestData.builder().withUuid(expensive.getUuid()).build().buildInfoProductDto();
+        InfoProductDto middleDto = ProductTestData.builder().withUuid(middle.getUuid()).build().buildInfoProductDto();
+        ProductQuery query = ProductQuery.builder()
+                .sortBy(ProductQuery.SortKey.PRICE)
+                .descending(true)
+                .limit(2)
+                .build();
+
+        when(productRepository.streamAll())
+                .thenReturn(Stream.of(cheap, withoutPrice, expensive, middle));
+        when(productMapper.toInfoProductDtoList(List.of(expensive, middle)))
+                .thenReturn(List.of(expensiveDto, middleDto));
+
+        //When
+        ProductQueryResult result = productService.query(query);
+
+        //Then
+        assertEquals(new ProductQueryResult(List.of(expensiveDto, middleDto), 4,
+                new PriceStatistics(3, BigDecimal.ONE, BigDecimal.valueOf(5), BigDecimal.valueOf(9), BigDecimal.valueOf(3))),
+                result);
+    }
+
+    @Test
+    public void shouldFilterQueriedProductsByNameDescriptionPriceAndCreated() {
+        //Given
+        LocalDateTime created = LocalDateTime.of(2023, 10, 15, 12, 0);
+        Product matching = ProductTestData.builder().withUuid(UUID.randomUUID()).withName("Молоко")
+                .withDescription("Пастеризованное").withPrice(BigDecimal.TEN).withCreated(created).build().buildProduct();
+        Product otherName = ProductTestData.builder().withUuid(UUID.randomUUID()).withName("Кефир")
+                .withDescription("Пастеризованное").withPrice(BigDecimal.TEN).withCreated(created).build().buildProduct();
+        Product otherDescription = ProductTestData.builder().withUuid(UUID.randomUUID()).withName("Молоко")
+                .withDescription(null).withPrice(BigDecimal.TEN).withCreated(created).build().buildProduct();
+        Product tooExpensive = ProductTestData.builder().withUuid(UUID.randomUUID()).withName("Молоко")
+                .withDescription("Пастеризованное").withPrice(BigDecimal.valueOf(100)).withCreated(created).build().buildProduct();
+        Product tooOld = ProductTestData.builder().withUuid(UUID.randomUUID()).withName("Молоко")
+                .withDescription("Пастеризованное").withPrice(BigDecimal.TEN).withCreated(created.minusDays(1)).build().buildProduct();
+        InfoProductDto matchingDto = ProductTestData.builder().withUuid(matching.getUuid()).build().buildInfoProductDto();
+        ProductQuery query = ProductQuery.builder()
+                .nameContains("мол")
+                .descriptionContains("ПАСТЕР")
+                .priceTo(BigDecimal.TEN)
+                .createdFrom(created)
+                .limit(10)
+                .build();
+
+        when(productRepository.streamAll())
+                .thenReturn(Stream.of(matching, otherName, otherDescription, tooExpensive, tooOld));
+        when(productMapper.toInfoProductDtoList(List.of(matching)))
+                .thenReturn(List.of(matchingDto));
+
+        //When
+        ProductQueryResult result = productService.query(query);
+
+        //Then
+        assertEquals(List.of(matchingDto), result.products());
+        assertEquals(1, result.count());
+    }
+
+    @Test
+    public void shouldReturnEmptyQueryResultWithoutMappingWhenNothingMatches() {
+        //Given
+        Product product = ProductTestData.builder()
+                .build()
+                .buildProduct();
+        ProductQuery query = ProductQuery.builder()
+                .nameContains("Хлеб")
+                .limit(10)
+                .build();
+
+        when(productRepository.streamAll())
+                .thenReturn(Stream.of(product));
+
+        //When
+        ProductQueryResult result = productService.query(query);
+
+        //Then
+        assertEquals(new ProductQueryResult(List.of(), 0, new PriceStatistics(0, null, null, BigDecimal.ZERO, null)), result);
+        verifyNoInteractions(productMapper);
+    }
+
+    @Test
+    public void shouldThrowIllegalArgumentExceptionWhenQueryLimitIsNotPositive() {
+        //Given
+        ProductQuery.ProductQueryBuilder builder = ProductQuery.builder()
+                .limit(0);
+
+        //When, Then
+        assertThrows(IllegalArgumentException.class, builder::build);
+    }
+
+    @Test
+    public void shouldReturnInfoProductDtosForGivenUuids() {
+        //Given
+        Product product = ProductTestData.builder()
+                .build()
+                .buildProduct();
+        InfoProductDto infoProductDto = ProductTestData.builder()
+                .build()
+                .buildInfoProductDto();
+        List<UUID> uuids = List.of(product.getUuid(), UUID.fromString("3ecb77f7-0114-47a7-ada7-3ec685d202a7"));
+
+        when(productRepository.findAllById(uuids))
+                .thenReturn(List.of(product));
+        when(productMapper.toInfoProductDtoList(List.of(product)))
+                .thenReturn(List.of(infoProductDto));
+
+        //When
+        List<InfoProductDto> result = productService.getAll(uuids);
+
+        //Then
+        assertEquals(List.of(infoProductDto), result);
+        verify(productRepository)
+                .findAllById(uuids);
+    }
+
+    @Test
+    public void shouldCreateAllProductsWithSameCreationTime() {
+        //Given
+        ProductDto first = ProductTestData.builder()
+                .build()
+                .buildProductDto();
+        ProductDto second = ProductTestData.builder()
+                .withName("Second")
+                .build()
+                .buildProductDto();
+
+        when(productMapper.toProduct(first))
+                .thenReturn(ProductTestData.builder().withUuid(null).withCreated(null).build().buildProduct());
+        when(productMapper.toProduct(second))
+                .thenReturn(ProductTestData.builder().withUuid(null).withCreated(null).withName("Second").build().buildProduct());
+        when(idGenerator.generate())
+                .thenReturn(UUID.fromString("3ecb77f7-0114-47a7-ada7-3ec685d202a7"), UUID.fromString("ebc3c5b1-aeaa-44f5-8d8a-bfcc53de36e6"));
+        when(productRepository.saveAll(anyList()))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        //When
+        List<UUID> result = productService.createAll(List.of(first, second));
+
+        //Then
+        ArgumentCaptor<List<Product>> productsCaptor = ArgumentCaptor.forClass(List.class);
+        verify(productRepository)
+                .saveAll(productsCaptor.capture());
+
+        List<Product> saved = productsCaptor.getValue();
+        assertEquals(2, saved.size());
+        assertEquals(saved.get(0).getCreated(), saved.get(1).getCreated());
+        assertEquals(List.of(saved.get(0).getUuid(), saved.get(1).getUuid()), result);
+        assertTrue(saved.stream().allMatch(product -> product.getUuid() != null && product.getCreated() != null));
+    }
+
+    @Test
+    public void shouldDeleteAllGivenProducts() {
+        //Given
+        List<UUID> uuids = List.of(UUID.fromString("3ecb77f7-0114-47a7-ada7-3ec685d202a7"));
+
+        //When
+        productService.deleteAll(uuids);
+
+        //Then
+        verify(productRepository).deleteAll(uuids);
+    }
+
+    @Test
+    public void shouldReturnPageOfInfoProductDtos() {
+        //Given
+        UUID after = UUID.fromString("3ecb77f7-0114-47a7-ada7-3ec685d202a7");
+        Product product = ProductTestData.builder()
+                .build()
+                .buildProduct();
+        InfoProductDto infoProductDto = ProductTestData.builder()
+                .build()
+                .buildInfoProductDto();
+
+        when(productRepository.findPage(after, 10))
+                .thenReturn(List.of(product));
+        when(productMapper.toInfoProductDtoList(List.of(product)))
+                .thenReturn(List.of(infoProductDto));
+
+        //When
+        List<InfoProductDto> result = productService.getPage(after, 10);
+
+        //Then
+        assertEquals(List.of(infoProductDto), result);
+    }
+
+    @Test
+    public void shouldMapProductsLazilyWhenStreamingAll() {
+        //Given
+        Product product = ProductTestData.builder()
+                .build()
+                .buildProduct();
+        InfoProductDto infoProductDto = ProductTestData.builder()
+                .build()
+                .buildInfoProductDto();
+
+        when(productRepository.streamAll())
+                .thenReturn(Stream.of(product));
+
+        //When
+        Stream<InfoProductDto> result = productService.streamAll();
+
+        //Then
+        verifyNoInteractions(productMapper);
+        when(productMapper.toInfoProductDto(product))
+                .thenReturn(infoProductDto);
+        assertEquals(List.of(infoProductDto), result.toList());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,181 @@
+package ru.clevertec.product.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.clevertec.product.data.InfoProductDto;
+import ru.clevertec.product.entity.Product;
+import ru.clevertec.product.mapper.impl.ProductMapperImpl;
+import ru.clevertec.product.repository.ProductRepository;
+import ru.clevertec.product.repository.impl.InMemoryProductRepository;
+import ru.clevertec.product.utils.ProductTestData;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class ReactiveProductServiceImplTest {
+
+    private static final int CHUNK_SIZE = 4;
+
+    private ProductRepository repository;
+    private ReactiveProductServiceImpl reactiveService;
+
+    @BeforeEach
+    void setUp() {
+        repository = spy(new InMemoryProductRepository());
+        reactiveService = new ReactiveProductServiceImpl(repository, new ProductMapperImpl(), Runnable::run, CHUNK_SIZE);
+    }
+
+    @Test
+    void shouldReadOnlyOneChunkForSmallDemand() {
+        // Given
+        saveProducts(10);
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        reactiveService.getAll().subscribe(subscriber);
+
+        // When
+        subscriber.subscription.request(3);
+
+        // Then
+        assertAll("backpressure test", () -> assertEquals(3, subscriber.received.size()),
+                () -> assertFalse(subscriber.completed),
+                () -> verify(repository, times(1)).findPage(any(), anyInt()));
+    }
+
+    @Test
+    void shouldPublishWholeCatalogInUuidOrderAndComplete() {
+        // Given
+        List<UUID> expected = saveProducts(10).stream()
+                .map(Product::getUuid)
+                .sorted(Comparator.naturalOrder())
+                .toList();
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        reactiveService.getAll().subscribe(subscriber);
+
+        // When
+        subscriber.subscription.request(Long.MAX_VALUE);
+
+        // Then
+        assertAll("publish all test", () -> assertEquals(expected, subscriber.received.stream().map(InfoProductDto::uuid).toList()),
+                () -> assertTrue(subscriber.completed),
+                () -> verify(repository, times(3)).findPage(any(), anyInt()));
+    }
+
+    @Test
+    void shouldCompleteEmptyCatalogOnFirstDemand() {
+        // Given
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        reactiveService.getAll().subscribe(subscriber);
+
+        // When
+        subscriber.subscription.request(1);
+
+        // Then
+        assertAll("empty catalog test", () -> assertTrue(subscriber.received.isEmpty()),
+                () -> assertTrue(subscriber.completed));
+    }
+
+    @Test
+    void shouldStopPublishingWhenSubscriptionIsCancelled() {
+        // Given
+        saveProducts(10);
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        reactiveService.getAll().subscribe(subscriber);
+        subscriber.subscription.request(2);
+
+        // When
+        subscriber.subscription.cancel();
+        subscriber.subscription.request(5);
+
+        // Then
+        assertAll("cancel test", () -> assertEquals(2, subscriber.received.size()),
+                () -> assertFalse(subscriber.completed));
+    }
+
+    @Test
+    void shouldSignalErrorWhenDemandIsNotPositive() {
+        // Given
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        reactiveService.getAll().subscribe(subscriber);
+
+        // When
+        subscriber.subscription.request(0);
+
+        // Then
+        assertThat(subscriber.error).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldPublishFromVirtualThreadsByDefault() throws InterruptedException {
+        // Given
+        saveProducts(ReactiveProductServiceImpl.DEFAULT_CHUNK_SIZE + 1);
+        ReactiveProductServiceImpl defaultService = new ReactiveProductServiceImpl(repository, new ProductMapperImpl());
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        defaultService.getAll().subscribe(subscriber);
+
+        // When
+        subscriber.subscription.request(Long.MAX_VALUE);
+
+        // Then
+        assertTrue(subscriber.terminated.await(10, TimeUnit.SECONDS));
+        assertAll("virtual threads test", () -> assertEquals(ReactiveProductServiceImpl.DEFAULT_CHUNK_SIZE + 1,
+                        subscriber.received.size()),
+                () -> assertTrue(subscriber.completed),
+                () -> assertTrue(subscriber.onVirtualThreads));
+    }
+
+    private List<Product> saveProducts(int count) {
+        return repository.saveAll(IntStream.range(0, count)
+                .mapToObj(i -> ProductTestData.builder().withUuid(UUID.randomUUID()).build().buildProduct())
+                .toList());
+    }
+
+    private static class RecordingSubscriber implements Flow.Subscriber<InfoProductDto> {
+
+        private final List<InfoProductDto> received = new ArrayList<>();
+        private final CountDownLatch terminated = new CountDownLatch(1);
+        private Flow.Subscription subscription;
+        private boolean completed;
+        private boolean onVirtualThreads = true;
+        private Throwable error;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(InfoProductDto item) {
+            received.add(item);
+            onVirtualThreads &= Thread.currentThread().isVirtual();
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            terminated.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+            terminated.countDown();
+        }
+    }
+}
@@ -29,8 +29,11 @@ public class ProductTestData {
     @Builder.Default
     private LocalDateTime created = LocalDateTime.of(2023, 10, 15, 12, 34);
 
+    @Builder.Default
+    private long version = 0;
+
     public Product buildProduct() {
-        return new Product(uuid, name, description, price, created);
+        return new Product(uuid, name, description, price, created, version);
     }
 
     public ProductDto buildProductDto() {